@@ -0,0 +1,65 @@
+package edu.kit.kastel.recommendationsystem.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+import edu.kit.kastel.recommendationsystem.util.parser.DatabaseParser;
+
+/**
+ * Creates deterministic databases of a given size for the benchmarks with the
+ * {@link CatalogGenerator}. The successor chains all have
+ * {@value #CHAIN_LENGTH} products and are never closed to a cycle, so the chain
+ * starts are exactly the product ids divisible by {@value #CHAIN_LENGTH}.
+ * 
+ * @author urrwg
+ */
+public final class BenchmarkGraphs {
+
+    /**
+     * The length of the successor chains.
+     */
+    public static final int CHAIN_LENGTH = 20;
+
+    private BenchmarkGraphs() {
+        // This is a utility class
+    }
+
+    /**
+     * Creates the specification of a catalog with the given number of products.
+     * 
+     * @param productCount the number of products
+     * @return the specification
+     */
+    public static CatalogSpec createSpec(int productCount) {
+        CatalogSpec defaults = CatalogSpec.defaults(productCount);
+        return new CatalogSpec(defaults.seed(), productCount, defaults.categoryCount(), defaults.categoryExponent(),
+                defaults.categoryDepth(), CHAIN_LENGTH, CHAIN_LENGTH, 0, defaults.assemblyRate(), defaults.maxPartFanOut());
+    }
+
+    /**
+     * Creates the lines of a database with the given number of products.
+     * 
+     * @param productCount the number of products
+     * @return the lines of the database
+     * @throws IOException if generating the database failed
+     */
+    public static List<String> createLines(int productCount) throws IOException {
+        StringBuilder database = new StringBuilder();
+        CatalogGenerator.generate(createSpec(productCount), database);
+        return database.toString().lines().toList();
+    }
+
+    /**
+     * Creates a graph with the given number of products.
+     * 
+     * @param productCount the number of products
+     * @return the graph
+     * @throws IOException       if generating the database failed
+     * @throws DataParsException if the created database is invalid
+     */
+    public static Graph createGraph(int productCount) throws IOException, DataParsException {
+        return DatabaseParser.parse(createLines(productCount));
+    }
+}
@@ -0,0 +1,243 @@
+package edu.kit.kastel.recommendationsystem.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import edu.kit.kastel.recommendationsystem.model.RelationshipType;
+import edu.kit.kastel.recommendationsystem.view.InvalidArgumentException;
+
+/**
+ * Generates valid database files of arbitrary size from a
+ * {@link CatalogSpec}. The catalog is streamed line by line: only the category
+ * size distribution is held in memory, so files with hundreds of millions of
+ * lines can be written. Products are named {@code p<id>} and categories
+ * {@code c<index>}.
+ * 
+ * <p>
+ * The generated catalog consists of
+ * </p>
+ * <ul>
+ * <li>a category hierarchy with the given number of levels, every category
+ * below the first level is contained in a category of the level above</li>
+ * <li>one {@code contains} line per product, the categories are chosen by a
+ * power-law distribution and the largest categories are on the deepest
+ * level</li>
+ * <li>successor chains over consecutive product ids, some of them closed to a
+ * cycle</li>
+ * <li>assemblies, every assembly has up to the maximal fan-out parts chosen from
+ * the preceding products</li>
+ * </ul>
+ * 
+ * @author urrwg
+ */
+public final class CatalogGenerator {
+
+    private static final int OUTPUT_INDEX = 0;
+    private static final int WRITER_BUFFER_SIZE = 1 << 16;
+    private static final int MIN_CYCLE_LENGTH = 3;
+    private static final int PART_WINDOW_FACTOR = 4;
+    private static final char LINE_SEPARATOR = '\n';
+    private static final char SEPARATOR = ' ';
+    private static final String PRODUCT_PREFIX = "p";
+    private static final String PRODUCT_ID_PREFIX = "(id=";
+    private static final String PRODUCT_ID_SUFFIX = ")";
+    private static final String CATEGORY_PREFIX = "c";
+    private static final String OPTION_PREFIX = "--";
+    private static final String ERROR_PREFIX = "Error, ";
+    private static final String ERROR_USAGE = "invalid command line arguments. Expected: <output> [--seed <n>] "
+            + "[--products <n>] [--categories <n>] [--category-exponent <x>] [--category-depth <n>] [--min-chain <n>] "
+            + "[--max-chain <n>] [--cycle-rate <x>] [--assembly-rate <x>] [--max-fan-out <n>]";
+
+    private final CatalogSpec spec;
+    private final SplittableRandom random;
+    private final StringBuilder line = new StringBuilder();
+    private final int[] parts;
+    private double[] cumulativeCategoryWeights;
+
+    private CatalogGenerator(CatalogSpec spec) {
+        this.spec = spec;
+        this.random = new SplittableRandom(spec.seed());
+        this.parts = new int[spec.maxPartFanOut()];
+    }
+
+    /**
+     * Writes the catalog described by the given specification to the given file.
+     * 
+     * @param spec the specification of the catalog
+     * @param path the file to write
+     * @throws IOException if the file can not be written
+     */
+    public static void write(CatalogSpec spec, Path path) throws IOException {
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8), WRITER_BUFFER_SIZE)) {
+            generate(spec, writer);
+        }
+    }
+
+    /**
+     * Appends the lines of the catalog described by the given specification to the
+     * given output.
+     * 
+     * @param spec   the specification of the catalog
+     * @param output the output to append to
+     * @throws IOException if appending to the output failed
+     */
+    public static void generate(CatalogSpec spec, Appendable output) throws IOException {
+        new CatalogGenerator(spec).generate(output);
+    }
+
+    /**
+     * Writes a catalog to the file given as first argument. The catalog is
+     * specified by the further options, see {@link CatalogSpec#fromOptions(Map)}.
+     * 
+     * @param args the output file and the options
+     */
+    public static void main(String[] args) {
+        if (args.length == 0 || args.length % 2 == 0) {
+            System.err.println(ERROR_PREFIX + ERROR_USAGE);
+            return;
+        }
+        Map<String, String> options = new HashMap<>();
+        for (int i = OUTPUT_INDEX + 1; i < args.length; i += 2) {
+            if (!args[i].startsWith(OPTION_PREFIX)) {
+                System.err.println(ERROR_PREFIX + ERROR_USAGE);
+                return;
+            }
+            options.put(args[i].substring(OPTION_PREFIX.length()), args[i + 1]);
+        }
+
+        try {
+            write(CatalogSpec.fromOptions(options), Path.of(args[OUTPUT_INDEX]));
+        } catch (InvalidArgumentException | IOException exception) {
+            System.err.println(ERROR_PREFIX + exception.getMessage());
+        }
+    }
+
+    private void generate(Appendable output) throws IOException {
+        generateCategoryHierarchy(output);
+        this.cumulativeCategoryWeights = createCumulativeCategoryWeights();
+
+        int chainStart = 0;
+        int chainEnd = nextChainEnd(chainStart);
+        for (int id = 0; id < this.spec.productCount(); id++) {
+            startLine().append(CATEGORY_PREFIX).append(nextCategory()).append(SEPARATOR)
+                    .append(RelationshipType.CONTAINS).append(SEPARATOR);
+            appendProduct(id);
+            endLine(output);
+
+            if (id > chainStart) {
+                appendProductRelationship(id, RelationshipType.SUCCESSOR_OF, id - 1, output);
+            }
+            if (id == chainEnd) {
+                closeChain(chainStart, chainEnd, output);
+                chainStart = id + 1;
+                chainEnd = nextChainEnd(chainStart);
+            }
+            if (this.random.nextDouble() < this.spec.assemblyRate()) {
+                generateParts(id, output);
+            }
+        }
+    }
+
+    private void generateCategoryHierarchy(Appendable output) throws IOException {
+        for (int level = 1; level < this.spec.categoryDepth(); level++) {
+            int parentLevelStart = levelStart(level - 1);
+            int parentLevelSize = levelStart(level) - parentLevelStart;
+
+            for (int category = levelStart(level); category < levelStart(level + 1); category++) {
+                int parent = parentLevelStart + this.random.nextInt(parentLevelSize);
+                startLine().append(CATEGORY_PREFIX).append(category).append(SEPARATOR)
+                        .append(RelationshipType.CONTAINED_IN).append(SEPARATOR)
+                        .append(CATEGORY_PREFIX).append(parent);
+                endLine(output);
+            }
+        }
+    }
+
+    private int levelStart(int level) {
+        return (int) ((long) level * this.spec.categoryCount() / this.spec.categoryDepth());
+    }
+
+    private double[] createCumulativeCategoryWeights() {
+        double[] weights = new double[this.spec.categoryCount()];
+        double total = 0;
+        for (int rank = 0; rank < weights.length; rank++) {
+            total += 1.0 / Math.pow(rank + 1, this.spec.categoryExponent());
+            weights[rank] = total;
+        }
+        return weights;
+    }
+
+    private int nextCategory() {
+        double[] weights = this.cumulativeCategoryWeights;
+        double target = this.random.nextDouble() * weights[weights.length - 1];
+        int rank = Arrays.binarySearch(weights, target);
+        if (rank < 0) {
+            rank = -rank - 1;
+        }
+        return weights.length - 1 - Math.min(rank, weights.length - 1);
+    }
+
+    private int nextChainEnd(int chainStart) {
+        int length = this.random.nextInt(this.spec.minChainLength(), this.spec.maxChainLength() + 1);
+        return (int) Math.min((long) chainStart + length - 1, this.spec.productCount() - 1);
+    }
+
+    private void closeChain(int chainStart, int chainEnd, Appendable output) throws IOException {
+        if (chainEnd - chainStart + 1 >= MIN_CYCLE_LENGTH && this.random.nextDouble() < this.spec.chainCycleRate()) {
+            appendProductRelationship(chainStart, RelationshipType.SUCCESSOR_OF, chainEnd, output);
+        }
+    }
+
+    private void generateParts(int assembly, Appendable output) throws IOException {
+        int window = Math.min(assembly, PART_WINDOW_FACTOR * this.spec.maxPartFanOut());
+        int partCount = Math.min(window, 1 + this.random.nextInt(this.spec.maxPartFanOut()));
+
+        for (int i = 0; i < partCount; i++) {
+            int part;
+            do {
+                part = assembly - 1 - this.random.nextInt(window);
+            } while (contains(this.parts, i, part));
+            this.parts[i] = part;
+            appendProductRelationship(part, RelationshipType.PART_OF, assembly, output);
+        }
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void appendProductRelationship(int subject, RelationshipType predicate, int object, Appendable output)
+            throws IOException {
+        startLine();
+        appendProduct(subject);
+        this.line.append(SEPARATOR).append(predicate).append(SEPARATOR);
+        appendProduct(object);
+        endLine(output);
+    }
+
+    private StringBuilder startLine() {
+        this.line.setLength(0);
+        return this.line;
+    }
+
+    private void appendProduct(int id) {
+        this.line.append(PRODUCT_PREFIX).append(id).append(PRODUCT_ID_PREFIX).append(id).append(PRODUCT_ID_SUFFIX);
+    }
+
+    private void endLine(Appendable output) throws IOException {
+        output.append(this.line.append(LINE_SEPARATOR));
+    }
+}
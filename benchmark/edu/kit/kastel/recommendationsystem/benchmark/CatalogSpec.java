@@ -0,0 +1,161 @@
+package edu.kit.kastel.recommendationsystem.benchmark;
+
+import java.util.Map;
+
+import edu.kit.kastel.recommendationsystem.view.InvalidArgumentException;
+
+/**
+ * Describes the shape of a synthetic catalog created by the
+ * {@link CatalogGenerator}.
+ * 
+ * @param seed                 the seed of the random generator, the same
+ *                             specification always yields the same catalog
+ * @param productCount         the number of products
+ * @param categoryCount        the number of categories
+ * @param categoryExponent     the exponent of the power-law distribution of the
+ *                             category sizes, {@code 0} distributes the products
+ *                             evenly
+ * @param categoryDepth        the number of levels of the category hierarchy
+ * @param minChainLength       the minimal length of a successor chain
+ * @param maxChainLength       the maximal length of a successor chain
+ * @param chainCycleRate       the probability that a successor chain of at least
+ *                             three products is closed to a cycle
+ * @param assemblyRate         the probability that a product is assembled from
+ *                             previous products
+ * @param maxPartFanOut        the maximal number of parts of an assembly
+ * 
+ * @author urrwg
+ */
+public record CatalogSpec(long seed, int productCount, int categoryCount, double categoryExponent,
+        int categoryDepth, int minChainLength, int maxChainLength, double chainCycleRate,
+        double assemblyRate, int maxPartFanOut) {
+
+    private static final long DEFAULT_SEED = 42;
+    private static final int DEFAULT_PRODUCT_COUNT = 1000;
+    private static final int PRODUCTS_PER_CATEGORY = 100;
+    private static final double DEFAULT_CATEGORY_EXPONENT = 1.0;
+    private static final int DEFAULT_CATEGORY_DEPTH = 3;
+    private static final int DEFAULT_MIN_CHAIN_LENGTH = 1;
+    private static final int DEFAULT_MAX_CHAIN_LENGTH = 10;
+    private static final double DEFAULT_CHAIN_CYCLE_RATE = 0.05;
+    private static final double DEFAULT_ASSEMBLY_RATE = 0.1;
+    private static final int DEFAULT_MAX_PART_FAN_OUT = 3;
+
+    private static final String OPTION_SEED = "seed";
+    private static final String OPTION_PRODUCTS = "products";
+    private static final String OPTION_CATEGORIES = "categories";
+    private static final String OPTION_CATEGORY_EXPONENT = "category-exponent";
+    private static final String OPTION_CATEGORY_DEPTH = "category-depth";
+    private static final String OPTION_MIN_CHAIN = "min-chain";
+    private static final String OPTION_MAX_CHAIN = "max-chain";
+    private static final String OPTION_CYCLE_RATE = "cycle-rate";
+    private static final String OPTION_ASSEMBLY_RATE = "assembly-rate";
+    private static final String OPTION_MAX_FAN_OUT = "max-fan-out";
+
+    private static final String ERROR_INVALID_NUMBER = "invalid value for %s: %s";
+    private static final String ERROR_INVALID_SPEC = "the catalog needs at least one product, at least as many categories "
+            + "as levels, 1 <= min-chain <= max-chain, rates between 0 and 1 and a fan-out of at least 1";
+
+    /**
+     * Creates the default specification for the given number of products.
+     * 
+     * @param productCount the number of products
+     * @return the default specification
+     */
+    public static CatalogSpec defaults(int productCount) {
+        return new CatalogSpec(DEFAULT_SEED, productCount, defaultCategoryCount(productCount), DEFAULT_CATEGORY_EXPONENT,
+                DEFAULT_CATEGORY_DEPTH, DEFAULT_MIN_CHAIN_LENGTH, DEFAULT_MAX_CHAIN_LENGTH, DEFAULT_CHAIN_CYCLE_RATE,
+                DEFAULT_ASSEMBLY_RATE, DEFAULT_MAX_PART_FAN_OUT);
+    }
+
+    /**
+     * Creates a specification from the given options, e.g. {@code products} to
+     * {@code 1000000}. Missing options take their default value.
+     * 
+     * @param options the options by their name
+     * @return the specification
+     * @throws InvalidArgumentException if a value is not a number or the
+     *                                  specification is inconsistent
+     */
+    public static CatalogSpec fromOptions(Map<String, String> options) throws InvalidArgumentException {
+        int productCount = parseInt(options, OPTION_PRODUCTS, DEFAULT_PRODUCT_COUNT);
+        CatalogSpec spec = new CatalogSpec(
+                parseLong(options, OPTION_SEED, DEFAULT_SEED),
+                productCount,
+                parseInt(options, OPTION_CATEGORIES, defaultCategoryCount(productCount)),
+                parseDouble(options, OPTION_CATEGORY_EXPONENT, DEFAULT_CATEGORY_EXPONENT),
+                parseInt(options, OPTION_CATEGORY_DEPTH, DEFAULT_CATEGORY_DEPTH),
+                parseInt(options, OPTION_MIN_CHAIN, DEFAULT_MIN_CHAIN_LENGTH),
+                parseInt(options, OPTION_MAX_CHAIN, DEFAULT_MAX_CHAIN_LENGTH),
+                parseDouble(options, OPTION_CYCLE_RATE, DEFAULT_CHAIN_CYCLE_RATE),
+                parseDouble(options, OPTION_ASSEMBLY_RATE, DEFAULT_ASSEMBLY_RATE),
+                parseInt(options, OPTION_MAX_FAN_OUT, DEFAULT_MAX_PART_FAN_OUT));
+
+        if (!spec.isValid()) {
+            throw new InvalidArgumentException(ERROR_INVALID_SPEC);
+        }
+        return spec;
+    }
+
+    /**
+     * Checks whether a catalog can be created from this specification.
+     * 
+     * @return {@code true} if the specification is consistent, {@code false}
+     *         otherwise
+     */
+    public boolean isValid() {
+        return this.productCount > 0
+                && this.categoryDepth > 0 && this.categoryCount >= this.categoryDepth
+                && this.categoryExponent >= 0
+                && this.minChainLength > 0 && this.minChainLength <= this.maxChainLength
+                && isRate(this.chainCycleRate) && isRate(this.assemblyRate)
+                && this.maxPartFanOut > 0;
+    }
+
+    private static boolean isRate(double value) {
+        return value >= 0 && value <= 1;
+    }
+
+    private static int defaultCategoryCount(int productCount) {
+        return Math.max(DEFAULT_CATEGORY_DEPTH, productCount / PRODUCTS_PER_CATEGORY);
+    }
+
+    private static int parseInt(Map<String, String> options, String option, int defaultValue)
+            throws InvalidArgumentException {
+        String value = options.get(option);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException exception) {
+            throw new InvalidArgumentException(String.format(ERROR_INVALID_NUMBER, option, value));
+        }
+    }
+
+    private static long parseLong(Map<String, String> options, String option, long defaultValue)
+            throws InvalidArgumentException {
+        String value = options.get(option);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException exception) {
+            throw new InvalidArgumentException(String.format(ERROR_INVALID_NUMBER, option, value));
+        }
+    }
+
+    private static double parseDouble(Map<String, String> options, String option, double defaultValue)
+            throws InvalidArgumentException {
+        String value = options.get(option);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException exception) {
+            throw new InvalidArgumentException(String.format(ERROR_INVALID_NUMBER, option, value));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package edu.kit.kastel.recommendationsystem.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.kit.kastel.recommendationsystem.model.Edge;
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.util.SortUtils;
+import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+import edu.kit.kastel.recommendationsystem.view.Result;
+import edu.kit.kastel.recommendationsystem.view.commands.CommandExport;
+
+/**
+ * Benchmarks sorting the nodes and edges of a graph and exporting it.
+ * 
+ * @author urrwg
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OutputBenchmark {
+
+    /**
+     * The number of products of the graph.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int productCount;
+
+    private Graph graph;
+
+    /**
+     * Creates the graph.
+     * 
+     * @throws IOException       if generating the database failed
+     * @throws DataParsException if the created database is invalid
+     */
+    @Setup
+    public void setup() throws IOException, DataParsException {
+        this.graph = BenchmarkGraphs.createGraph(this.productCount);
+    }
+
+    /**
+     * Sorts all nodes of the graph.
+     * 
+     * @return the sorted nodes
+     */
+    @Benchmark
+    public List<Node> sortNodes() {
+        List<Node> nodes = new ArrayList<>(this.graph.getNodes());
+        SortUtils.sortNodes(nodes);
+        return nodes;
+    }
+
+    /**
+     * Sorts all edges of the graph.
+     * 
+     * @return the sorted edges
+     */
+    @Benchmark
+    public List<Edge> sortEdges() {
+        List<Edge> edges = new ArrayList<>(this.graph.getEdges());
+        SortUtils.sortEdges(edges);
+        return edges;
+    }
+
+    /**
+     * Exports the graph in DOT notation.
+     * 
+     * @return the result holding the export
+     */
+    @Benchmark
+    public Result export() {
+        return new CommandExport().execute(this.graph);
+    }
+}
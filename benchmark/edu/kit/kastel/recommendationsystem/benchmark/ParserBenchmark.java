@@ -0,0 +1,84 @@
+package edu.kit.kastel.recommendationsystem.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.model.RelationshipDTO;
+import edu.kit.kastel.recommendationsystem.model.SymbolTable;
+import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+import edu.kit.kastel.recommendationsystem.util.parser.DatabaseParser;
+import edu.kit.kastel.recommendationsystem.util.parser.LineParser;
+
+/**
+ * Benchmarks parsing single lines and whole databases.
+ * 
+ * @author urrwg
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParserBenchmark {
+
+    /**
+     * The number of products of the parsed database.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int productCount;
+
+    private List<String> lines;
+    private SymbolTable symbols;
+    private int lineIndex;
+
+    /**
+     * Creates the database lines.
+     * 
+     * @throws IOException if generating the database failed
+     */
+    @Setup
+    public void setup() throws IOException {
+        this.lines = BenchmarkGraphs.createLines(this.productCount);
+        this.symbols = new SymbolTable();
+    }
+
+    /**
+     * Parses a single line, cycling through all lines of the database. The names
+     * are interned in one table, like the lines of a graph are.
+     * 
+     * @return the parsed relationship
+     * @throws DataParsException if the line is invalid
+     */
+    @Benchmark
+    public RelationshipDTO lineParser() throws DataParsException {
+        this.lineIndex = (this.lineIndex + 1) % this.lines.size();
+        return LineParser.parse(this.lines.get(this.lineIndex), this.symbols);
+    }
+
+    /**
+     * Parses, validates and builds the whole database.
+     * 
+     * @return the parsed graph
+     * @throws DataParsException if the database is invalid
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Graph databaseParser() throws DataParsException {
+        return DatabaseParser.parse(this.lines);
+    }
+}
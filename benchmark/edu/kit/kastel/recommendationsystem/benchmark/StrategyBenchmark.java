@@ -0,0 +1,110 @@
+package edu.kit.kastel.recommendationsystem.benchmark;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.model.RecommendationStrategy;
+import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+import edu.kit.kastel.recommendationsystem.util.parser.RecursiveDescentParser;
+
+/**
+ * Benchmarks the recommendation strategies and the evaluation of nested
+ * recommendation queries.
+ * 
+ * @author urrwg
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StrategyBenchmark {
+
+    private static final String NESTED_QUERY_FORMAT = "UNION(INTERSECTION(S1 %1$d, S2 %2$d), "
+            + "UNION(S3 %3$d, INTERSECTION(S2 %2$d, UNION(S1 %3$d, S3 %1$d))))";
+
+    /**
+     * The number of products of the graph.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int productCount;
+
+    private Graph graph;
+    private Node chainStart;
+    private Node chainEnd;
+    private String nestedQuery;
+
+    /**
+     * Creates the graph and selects the reference products, the start and the end
+     * of a successor chain in the middle of the graph.
+     * 
+     * @throws IOException       if generating the database failed
+     * @throws DataParsException if the created database is invalid
+     */
+    @Setup
+    public void setup() throws IOException, DataParsException {
+        this.graph = BenchmarkGraphs.createGraph(this.productCount);
+        int chainStartId = this.productCount / 2 / BenchmarkGraphs.CHAIN_LENGTH * BenchmarkGraphs.CHAIN_LENGTH;
+        int chainEndId = chainStartId + BenchmarkGraphs.CHAIN_LENGTH - 1;
+        this.chainStart = this.graph.findProductById(chainStartId);
+        this.chainEnd = this.graph.findProductById(chainEndId);
+        this.nestedQuery = String.format(NESTED_QUERY_FORMAT, chainEndId, chainStartId, chainEndId - 1);
+    }
+
+    /**
+     * Finds the sibling products (S1).
+     * 
+     * @return the siblings
+     */
+    @Benchmark
+    public Set<Node> siblings() {
+        return RecommendationStrategy.findSiblingProducts(this.chainStart, this.graph);
+    }
+
+    /**
+     * Finds all successor products of a chain start (S2).
+     * 
+     * @return the successors
+     */
+    @Benchmark
+    public Set<Node> successors() {
+        return RecommendationStrategy.findSuccessorProducts(this.chainStart, this.graph);
+    }
+
+    /**
+     * Finds all predecessor products of a chain end (S3).
+     * 
+     * @return the predecessors
+     */
+    @Benchmark
+    public Set<Node> predecessors() {
+        return RecommendationStrategy.findPredecessorProducts(this.chainEnd, this.graph);
+    }
+
+    /**
+     * Parses and evaluates a query with nested UNION and INTERSECTION terms.
+     * 
+     * @return the recommended products
+     * @throws DataParsException if the query is invalid
+     */
+    @Benchmark
+    public Set<Node> nestedQuery() throws DataParsException {
+        return RecursiveDescentParser.parse(this.nestedQuery, this.graph);
+    }
+}
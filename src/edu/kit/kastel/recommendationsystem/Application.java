@@ -1,6 +1,23 @@
 package edu.kit.kastel.recommendationsystem;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.BufferedOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.util.journal.JournalException;
+import edu.kit.kastel.recommendationsystem.util.journal.MutationJournal;
+import edu.kit.kastel.recommendationsystem.view.ApplicationState;
+import edu.kit.kastel.recommendationsystem.view.CommandPipeline;
 import edu.kit.kastel.recommendationsystem.view.UserInterface;
+import edu.kit.kastel.recommendationsystem.view.server.GraphServer;
+import edu.kit.kastel.recommendationsystem.view.shard.ShardCoordinator;
+import edu.kit.kastel.recommendationsystem.view.shard.ShardWorker;
 
 /**
  * The class offering the entry point for the application.
@@ -10,25 +27,203 @@
  */
 public final class Application {
 
-    private static final int EXPECTED_COMMAND_LINE_ARGUMENTS_COUNT = 0;
-    private static final String ERROR_MESSAGE_COMMAND_LINE_ARGUMENTS = "Error, no command line arguments expected.";
+    private static final int OPTION_LENGTH = 2;
+    private static final int MAX_PORT = 65535;
+    private static final String JOURNAL_OPTION = "--journal";
+    private static final String SERVER_OPTION = "--server";
+    private static final String BATCH_OPTION = "--batch";
+    private static final String FLUSH_OPTION = "--flush-every";
+    private static final String PIPELINE_OPTION = "--pipeline";
+    private static final String SHARDS_OPTION = "--shards";
+    private static final String SHARD_WORKER_OPTION = "--shard-worker";
+    private static final int INVALID_NUMBER = -2;
+    private static final String STANDARD_INPUT = "-";
+    private static final int DEFAULT_FLUSH_INTERVAL = 4096;
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+    private static final String ERROR_PREFIX = "Error, ";
+    private static final String ERROR_MESSAGE_COMMAND_LINE_ARGUMENTS = ERROR_PREFIX
+            + "invalid command line arguments. Expected: [--journal <directory>] "
+            + "[--server <port> | [--batch <script> [--flush-every <commands>]] [--pipeline <workers>]] "
+            + "| --shards <count>";
+    private static final String ERROR_READING_SCRIPT = ERROR_PREFIX + "could not read the script: %s";
+    private static final String LISTENING_FORMAT = "listening on port %d";
 
     private Application() {
         // This is a utility class
     }
 
     /**
-     * The entry point for the application. No command line arguments are expected.
+     * The entry point for the application. Optionally a journal directory can be
+     * given with {@code --journal <directory>}: the graph is then restored from
+     * the journal on startup and all further mutations are recorded in it. With
+     * {@code --server <port>} the commands are not read from the standard input,
+     * but from clients connecting to the given local port, which all share one
+     * graph. With {@code --batch <script>} the commands are executed
+     * non-interactively from the given script, or from the standard input if the
+     * script is {@code -}, and the output is buffered and only flushed every
+     * {@code --flush-every <commands>} commands and at the end. With
+     * {@code --pipeline <workers>} the commands read from the standard input or
+     * the script are executed by a {@link CommandPipeline} with the given number of
+     * workers. With {@code --shards <count>} the graph is split across the given
+     * number of local {@link ShardWorker worker} processes, which are started
+     * with the internal option {@code --shard-worker <port>}.
      * 
      * @param args the command line arguments
      */
     public static void main(String[] args) {
-        if (args.length != EXPECTED_COMMAND_LINE_ARGUMENTS_COUNT) {
+        if (args.length == OPTION_LENGTH && (args[0].equals(SHARDS_OPTION) || args[0].equals(SHARD_WORKER_OPTION))) {
+            runShards(args[0], args[1]);
+            return;
+        }
+        Options options = parseOptions(args);
+        if (options == null) {
             System.err.println(ERROR_MESSAGE_COMMAND_LINE_ARGUMENTS);
             return;
         }
 
-        UserInterface userInterface = new UserInterface(System.in, System.out, System.err);
-        userInterface.handleUserInput();
+        ApplicationState state = new ApplicationState();
+        if (options.journalDirectory() == null) {
+            run(state, options);
+        } else {
+            runWithJournal(state, options);
+        }
+    }
+
+    private static Options parseOptions(String[] args) {
+        Path journalDirectory = null;
+        int port = -1;
+        String batchScript = null;
+        int flushInterval = DEFAULT_FLUSH_INTERVAL;
+        int workers = 0;
+
+        for (int i = 0; i < args.length; i += OPTION_LENGTH) {
+            if (i + 1 >= args.length) {
+                return null;
+            }
+            String value = args[i + 1];
+            if (args[i].equals(JOURNAL_OPTION) && journalDirectory == null) {
+                journalDirectory = Path.of(value);
+            } else if (args[i].equals(SERVER_OPTION) && port < 0 && batchScript == null && workers == 0) {
+                port = parsePort(value);
+            } else if (args[i].equals(BATCH_OPTION) && port < 0 && batchScript == null) {
+                batchScript = value;
+            } else if (args[i].equals(FLUSH_OPTION)) {
+                flushInterval = parsePositive(value);
+            } else if (args[i].equals(PIPELINE_OPTION) && port < 0 && workers == 0) {
+                workers = parsePositive(value);
+            } else {
+                return null;
+            }
+            if (port == INVALID_NUMBER || flushInterval == INVALID_NUMBER || workers == INVALID_NUMBER) {
+                return null;
+            }
+        }
+        return new Options(journalDirectory, port, batchScript, flushInterval, workers);
+    }
+
+    private static void runWithJournal(ApplicationState state, Options options) {
+        try (MutationJournal journal = MutationJournal.open(options.journalDirectory())) {
+            state.setJournal(journal);
+
+            Graph restoredGraph = journal.recover();
+            if (restoredGraph != null) {
+                state.setGraph(restoredGraph);
+            }
+            run(state, options);
+        } catch (JournalException exception) {
+            System.err.println(ERROR_PREFIX + exception.getMessage());
+        }
+    }
+
+    private static void run(ApplicationState state, Options options) {
+        if (options.batchScript() != null) {
+            runBatch(state, options);
+            return;
+        }
+        if (options.port() < 0) {
+            UserInterface userInterface = new UserInterface(System.in, System.out, System.err, state);
+            if (options.workers() > 0) {
+                new CommandPipeline(userInterface, options.workers()).run(System.in, 1);
+            } else {
+                userInterface.handleUserInput();
+            }
+            return;
+        }
+
+        try (GraphServer server = GraphServer.bind(options.port(), state)) {
+            System.out.println(LISTENING_FORMAT.formatted(server.getPort()));
+            server.serve(System.err);
+        } catch (IOException exception) {
+            System.err.println(ERROR_PREFIX + exception.getMessage());
+        }
+    }
+
+    private static void runShards(String option, String value) {
+        boolean isWorker = option.equals(SHARD_WORKER_OPTION);
+        int number = isWorker ? parsePort(value) : parsePositive(value);
+        if (number == INVALID_NUMBER) {
+            System.err.println(ERROR_MESSAGE_COMMAND_LINE_ARGUMENTS);
+            return;
+        }
+
+        if (isWorker) {
+            try (ShardWorker worker = ShardWorker.bind(number)) {
+                System.out.println(LISTENING_FORMAT.formatted(worker.getPort()));
+                System.out.flush();
+                worker.serve();
+            } catch (IOException exception) {
+                System.err.println(ERROR_PREFIX + exception.getMessage());
+            }
+            return;
+        }
+        try (ShardCoordinator coordinator = ShardCoordinator.start(number)) {
+            coordinator.run(System.in, System.out, System.err);
+        } catch (IOException exception) {
+            System.err.println(ERROR_PREFIX + exception.getMessage());
+        }
+    }
+
+    private static void runBatch(ApplicationState state, Options options) {
+        String script = options.batchScript();
+        InputStream input;
+        try {
+            input = script.equals(STANDARD_INPUT) ? System.in : Files.newInputStream(Path.of(script));
+        } catch (IOException exception) {
+            System.err.println(ERROR_READING_SCRIPT.formatted(script));
+            return;
+        }
+
+        // The standard streams flush on every line, so the output bypasses them
+        PrintStream output = new PrintStream(
+                new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), OUTPUT_BUFFER_SIZE), false);
+        PrintStream error = new PrintStream(
+                new BufferedOutputStream(new FileOutputStream(FileDescriptor.err), OUTPUT_BUFFER_SIZE), false);
+        UserInterface userInterface = new UserInterface(input, output, error, state);
+        if (options.workers() > 0) {
+            new CommandPipeline(userInterface, options.workers()).run(input, options.flushInterval());
+        } else {
+            userInterface.handleBatchInput(options.flushInterval());
+        }
+    }
+
+    private static int parsePositive(String argument) {
+        try {
+            int value = Integer.parseInt(argument);
+            return value > 0 ? value : INVALID_NUMBER;
+        } catch (NumberFormatException exception) {
+            return INVALID_NUMBER;
+        }
+    }
+
+    private static int parsePort(String argument) {
+        try {
+            int port = Integer.parseInt(argument);
+            return port >= 0 && port <= MAX_PORT ? port : INVALID_NUMBER;
+        } catch (NumberFormatException exception) {
+            return INVALID_NUMBER;
+        }
+    }
+
+    private record Options(Path journalDirectory, int port, String batchScript, int flushInterval, int workers) {
     }
 }
@@ -0,0 +1,84 @@
+package edu.kit.kastel.recommendationsystem.model;
+
+import java.util.Map;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link NodeOrdinals} of a graph in the heap. An ordinal is assigned the
+ * first time a node is looked up, so the ordinals stay valid across all
+ * versions of the graph and are shared with its snapshots.
+ * <p>
+ * Ordinals of removed nodes are not reused, instead the graph replaces its
+ * ordinals once most of them belong to removed nodes, see
+ * {@link #isMostlyStale(int)}. Traversals which are still running keep the
+ * replaced ordinals, which are released as soon as the last of them ends.
+ * </p>
+ *
+ * @author urrwg
+ */
+final class AssignedOrdinals extends NodeOrdinals {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int STALE_FACTOR = 2;
+
+    private final Map<Node, Integer> ordinals = new ConcurrentHashMap<>();
+    private volatile Node[] nodes = new Node[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Returns whether the assigned ordinals exceed the given number of contained
+     * nodes so far that most of them have to belong to removed nodes.
+     *
+     * @param nodeCount the number of nodes the graph currently contains
+     * @return {@code true} if the ordinals should be replaced, {@code false}
+     *         otherwise
+     */
+    boolean isMostlyStale(int nodeCount) {
+        return this.ordinals.size() > STALE_FACTOR * nodeCount + INITIAL_CAPACITY;
+    }
+
+    @Override
+    protected int findOrdinal(Node node) {
+        Integer ordinal = this.ordinals.get(node);
+        return ordinal != null ? ordinal : assign(node);
+    }
+
+    @Override
+    protected Node nodeAt(int ordinal) {
+        return this.nodes[ordinal];
+    }
+
+    /**
+     * Returns the estimated number of bytes retained by the ordinals, including
+     * the ordinals cached in the nodes, see {@link MemoryFootprint}.
+     *
+     * @return the estimated size of the ordinals
+     */
+    @Override
+    protected synchronized long estimateBytes() {
+        long bytes = MemoryFootprint.hashMapBytes(this.size) + MemoryFootprint.arrayBytes(this.nodes.length, MemoryFootprint.REFERENCE)
+                + this.size * MemoryFootprint.objectBytes(Long.BYTES + Integer.BYTES);
+        for (int ordinal = 0; ordinal < this.size; ordinal++) {
+            bytes += MemoryFootprint.integerBytes(ordinal);
+        }
+        return bytes;
+    }
+
+    private synchronized int assign(Node node) {
+        Integer ordinal = this.ordinals.get(node);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        // The node is stored before its ordinal is published, so every reader of
+        // the ordinal sees the node
+        Node[] currentNodes = this.nodes;
+        if (this.size == currentNodes.length) {
+            currentNodes = Arrays.copyOf(currentNodes, this.size * 2);
+        }
+        currentNodes[this.size] = node;
+        this.nodes = currentNodes;
+        this.ordinals.put(node, this.size);
+        return this.size++;
+    }
+}
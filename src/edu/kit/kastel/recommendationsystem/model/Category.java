@@ -11,9 +11,20 @@ public class Category extends Node {
     /**
      * Constructs a new category with the specified name.
      *
-     * @param name the name of the category
+     * @param symbols the table of the names of the graph the category belongs to
+     * @param name    the name of the category
      */
-    public Category(String name) {
-        super(name, NodeType.CATEGORY);
+    public Category(SymbolTable symbols, String name) {
+        super(symbols, name, NodeType.CATEGORY);
+    }
+
+    /**
+     * Constructs a new category with the name of the specified symbol.
+     *
+     * @param symbols the table of the names of the graph the category belongs to
+     * @param symbol  the symbol of the name of the category in the table
+     */
+    public Category(SymbolTable symbols, int symbol) {
+        super(symbols, symbol, NodeType.CATEGORY);
     }
 }
\ No newline at end of file
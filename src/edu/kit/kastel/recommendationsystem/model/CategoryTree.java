@@ -0,0 +1,311 @@
+package edu.kit.kastel.recommendationsystem.model;
+
+import java.util.Set;
+import java.util.Map;
+import java.util.List;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Answers which products and categories lie in the subtree of a category of a
+ * {@link Graph}, using an interval labelling of the category hierarchy. The
+ * labelling is shared by a graph and its snapshots.
+ * <p>
+ * The categories are numbered in the post order of a depth-first search over
+ * the {@code contains} relationships between categories, so the categories of
+ * every search subtree get consecutive numbers. Each category is labelled with
+ * the intervals of the numbers of all categories below it: the interval of its
+ * search subtree, merged with the intervals of categories which are contained
+ * in several categories. Whether a category lies below another one is then an
+ * interval lookup, and the subtree of a category is enumerated by walking its
+ * intervals, both without a recursive traversal of the graph.
+ * </p>
+ * <p>
+ * The labelling is only valid as long as no relationship between two
+ * categories changes, see {@link HierarchyIndex#getCategoryStamp()}. It is
+ * relabelled on the first query after such a change, while changes of products
+ * keep it. Only the categories linked to other categories are labelled, see
+ * {@link Graph#getLinkedCategories()}, so relabelling does not depend on the
+ * number of products. Every other category only lies below itself.
+ * </p>
+ * 
+ * @author urrwg
+ */
+public final class CategoryTree {
+
+    private volatile Labels labels;
+
+    /**
+     * Returns all products which are contained in the given category or in any
+     * category below it.
+     * 
+     * @param category the category
+     * @param graph    the graph to search, which should be pinned to a version
+     * @return an unmodifiable set of the products
+     */
+    public Set<Node> findProducts(Node category, Graph graph) {
+        Set<Node> products = new HashSet<>();
+        for (Node subcategory : label(graph).categoriesBelow(category)) {
+            for (Node node : graph.getNeighbors(subcategory, RelationshipType.CONTAINS)) {
+                if (node.isOfType(NodeType.PRODUCT)) {
+                    products.add(node);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(products);
+    }
+
+    /**
+     * Returns whether the given node is contained in the given category or in any
+     * category below it.
+     * 
+     * @param node     the product or category
+     * @param category the category
+     * @param graph    the graph to search, which should be pinned to a version
+     * @return {@code true} if the node lies in the subtree of the category,
+     *         {@code false} otherwise
+     */
+    public boolean isInCategory(Node node, Node category, Graph graph) {
+        Labels current = label(graph);
+        if (node.isOfType(NodeType.CATEGORY)) {
+            return current.isBelow(node, category);
+        }
+        for (Node parent : graph.getNeighbors(node, RelationshipType.CONTAINED_IN)) {
+            if (current.isBelow(parent, category)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the estimated number of bytes retained by the current labelling, not
+     * including its nodes, see {@link MemoryFootprint}.
+     *
+     * @return the estimated size of the labelling, zero if there is none yet
+     */
+    long estimateBytes() {
+        Labels current = this.labels;
+        if (current == null) {
+            return 0;
+        }
+        long bytes = MemoryFootprint.arrayBytes(current.order.length, MemoryFootprint.REFERENCE)
+                + MemoryFootprint.hashMapBytes(current.numbers.size()) + MemoryFootprint.hashMapBytes(current.intervals.size());
+        for (Integer number : current.numbers.values()) {
+            bytes += MemoryFootprint.integerBytes(number);
+        }
+        for (int[] categoryIntervals : current.intervals.values()) {
+            bytes += MemoryFootprint.arrayBytes(categoryIntervals.length, Integer.BYTES);
+        }
+        return bytes;
+    }
+
+    private Labels label(Graph graph) {
+        long stamp = graph.getHierarchies().getCategoryStamp();
+        Labels current = this.labels;
+        if (current == null || current.stamp != stamp) {
+            Labeller labeller = new Labeller(graph.getLinkedCategories(), graph);
+            labeller.numberAll();
+            labeller.propagate();
+            current = new Labels(stamp, labeller.order, labeller.numbers, labeller.intervals);
+            this.labels = current;
+        }
+        return current;
+    }
+
+    /**
+     * Merges two sorted lists of intervals into one sorted list of disjoint and
+     * non-adjacent intervals.
+     */
+    private static int[] merge(int[] first, int[] second) {
+        long[] bounds = new long[(first.length + second.length) / 2];
+        for (int i = 0; i < first.length; i += 2) {
+            bounds[i / 2] = ((long) first[i] << Integer.SIZE) | first[i + 1];
+        }
+        for (int i = 0; i < second.length; i += 2) {
+            bounds[(first.length + i) / 2] = ((long) second[i] << Integer.SIZE) | second[i + 1];
+        }
+        Arrays.sort(bounds);
+
+        int[] merged = new int[bounds.length * 2];
+        int size = 0;
+        for (long bound : bounds) {
+            int lower = (int) (bound >>> Integer.SIZE);
+            int upper = (int) bound;
+            if (size > 0 && lower <= merged[size - 1] + 1) {
+                merged[size - 1] = Math.max(merged[size - 1], upper);
+            } else {
+                merged[size++] = lower;
+                merged[size++] = upper;
+            }
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    /**
+     * The interval labelling of the category hierarchy of one category stamp.
+     */
+    private static final class Labels {
+
+        private final long stamp;
+        private final Node[] order;
+        private final Map<Node, Integer> numbers;
+        private final Map<Node, int[]> intervals;
+
+        Labels(long stamp, Node[] order, Map<Node, Integer> numbers, Map<Node, int[]> intervals) {
+            this.stamp = stamp;
+            this.order = order;
+            this.numbers = numbers;
+            this.intervals = intervals;
+        }
+
+        boolean isBelow(Node node, Node category) {
+            if (node.equals(category)) {
+                return true;
+            }
+            Integer number = this.numbers.get(node);
+            int[] categoryIntervals = this.intervals.get(category);
+            if (number == null || categoryIntervals == null) {
+                return false;
+            }
+            for (int i = 0; i < categoryIntervals.length; i += 2) {
+                if (number >= categoryIntervals[i] && number <= categoryIntervals[i + 1]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        List<Node> categoriesBelow(Node category) {
+            int[] categoryIntervals = this.intervals.get(category);
+            if (categoryIntervals == null) {
+                return List.of(category);
+            }
+            List<Node> categories = new ArrayList<>();
+            for (int i = 0; i < categoryIntervals.length; i += 2) {
+                categories.addAll(Arrays.asList(this.order).subList(categoryIntervals[i], categoryIntervals[i + 1] + 1));
+            }
+            return categories;
+        }
+    }
+
+    /**
+     * Computes the interval labelling of the category hierarchy of a graph.
+     */
+    private static final class Labeller {
+
+        private final Map<Node, List<Node>> children = new HashMap<>();
+        private final List<Node> roots = new ArrayList<>();
+        private final Set<Node> entered = new HashSet<>();
+        private final Map<Node, Integer> numbers = new HashMap<>();
+        private final Map<Node, int[]> intervals = new HashMap<>();
+        private final Node[] order;
+        private int nextNumber;
+
+        Labeller(Collection<Node> linkedCategories, Graph graph) {
+            List<Node> categories = new ArrayList<>();
+            for (Node node : linkedCategories) {
+                if (node.isOfType(NodeType.CATEGORY)) {
+                    categories.add(node);
+                    this.children.put(node, categoryNeighbors(graph, node, RelationshipType.CONTAINS));
+                    if (categoryNeighbors(graph, node, RelationshipType.CONTAINED_IN).isEmpty()) {
+                        this.roots.add(node);
+                    }
+                }
+            }
+            // Categories on cycles have no root, so they are searched after all roots
+            this.roots.addAll(categories);
+            this.order = new Node[categories.size()];
+        }
+
+        void numberAll() {
+            for (Node root : this.roots) {
+                if (this.entered.add(root)) {
+                    number(root);
+                }
+            }
+        }
+
+        /**
+         * Numbers the categories below the given root in post order with an
+         * iterative depth-first search, labelling each with the interval of its
+         * search subtree.
+         */
+        private void number(Node root) {
+            Deque<Node> path = new ArrayDeque<>();
+            Deque<Iterator<Node>> pendingChildren = new ArrayDeque<>();
+            Deque<Integer> firstNumbers = new ArrayDeque<>();
+            enter(root, path, pendingChildren, firstNumbers);
+            while (!path.isEmpty()) {
+                Node child = nextUnentered(pendingChildren.peek());
+                if (child != null) {
+                    enter(child, path, pendingChildren, firstNumbers);
+                } else {
+                    Node finished = path.pop();
+                    pendingChildren.pop();
+                    this.order[this.nextNumber] = finished;
+                    this.numbers.put(finished, this.nextNumber);
+                    this.intervals.put(finished, new int[] {firstNumbers.pop(), this.nextNumber});
+                    this.nextNumber++;
+                }
+            }
+        }
+
+        private void enter(Node category, Deque<Node> path, Deque<Iterator<Node>> pendingChildren, Deque<Integer> firstNumbers) {
+            path.push(category);
+            pendingChildren.push(this.children.getOrDefault(category, List.of()).iterator());
+            firstNumbers.push(this.nextNumber);
+        }
+
+        private Node nextUnentered(Iterator<Node> pending) {
+            while (pending.hasNext()) {
+                Node child = pending.next();
+                if (this.entered.add(child)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Merges the intervals of every category into the intervals of the
+         * categories containing it. Children are numbered before their parents
+         * unless they lie on a cycle, so a single pass in post order suffices for
+         * hierarchies without cycles.
+         */
+        void propagate() {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (Node category : this.order) {
+                    int[] categoryIntervals = this.intervals.get(category);
+                    int[] merged = categoryIntervals;
+                    for (Node child : this.children.get(category)) {
+                        merged = merge(merged, this.intervals.get(child));
+                    }
+                    if (!Arrays.equals(merged, categoryIntervals)) {
+                        this.intervals.put(category, merged);
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<Node> categoryNeighbors(Graph graph, Node category, RelationshipType relationship) {
+        List<Node> neighbors = new ArrayList<>();
+        for (Node neighbor : graph.getNeighbors(category, relationship)) {
+            if (neighbor.isOfType(NodeType.CATEGORY)) {
+                neighbors.add(neighbor);
+            }
+        }
+        return neighbors;
+    }
+}
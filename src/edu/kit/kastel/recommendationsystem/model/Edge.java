@@ -17,6 +17,7 @@ public class Edge {
     private final Node startNode;
     private final Node endNode;
     private final RelationshipType type;
+    private final int hash;
 
     /**
      * Constructs a new edge with the specified start node, end node, and
@@ -30,6 +31,7 @@ public Edge(Node startNode, Node endNode, RelationshipType type) {
         this.startNode = startNode;
         this.endNode = endNode;
         this.type = type;
+        this.hash = Objects.hash(startNode, type, endNode);
     }
 
     /**
@@ -79,6 +81,6 @@ public boolean equals(Object object) {
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.startNode, this.type, this.endNode);
+        return this.hash;
     }
 }
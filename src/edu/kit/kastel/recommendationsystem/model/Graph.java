@@ -1,33 +1,97 @@
 package edu.kit.kastel.recommendationsystem.model;
 
 import java.util.Set;
-import java.util.HashSet;
-import java.util.Collections;
+import java.util.List;
+import java.util.Collection;
 
 /**
  * Represents a graph structure for the recommendation system.
  * The graph consists of nodes (products and categories) and edges
  * (relationships between nodes).
- * I have chosen a Set with a polymorphic design to follow the SOLID criteria
- * and provide maximum expandability, even though Maps could theoretically be
- * more performant (with larger graphs).
+ * <p>
+ * The nodes and edges are held in an immutable {@link GraphVersion}. Every
+ * mutation publishes a new version, so readers never block: a reader which
+ * needs a consistent view over several calls pins the current version with
+ * {@link #snapshot()}, which is a single volatile read.
+ * </p>
+ * <p>
+ * Mutations run concurrently. A mutation holds the {@link NodeLocks striped
+ * locks} of the nodes it touches and publishes its version with a compare-and-set,
+ * see {@link VersionPublisher}. Mutations of the same nodes are therefore
+ * serialized, including the removal of nodes left without edges, while a
+ * mutation of unrelated nodes only has to recompute its version if another one
+ * was published in between.
+ * </p>
  * 
  * @author urrwg
  */
 public class Graph {
 
-    private final Set<Node> nodes;
-    private final Set<Edge> edges;
+    private final VersionPublisher versions;
+    private final PartClosures partClosures;
+    private final CategoryTree categoryTree;
+    private volatile AssignedOrdinals nodeOrdinals;
 
     /**
-     * Constructs a new graph with the specified nodes and edges.
+     * Constructs a new graph with the specified nodes and edges, whose names are
+     * held by the given table.
      *
-     * @param nodes the set of nodes in the graph
-     * @param edges the set of edges in the graph
+     * @param symbols the table of the names of the graph
+     * @param nodes   the set of nodes in the graph
+     * @param edges   the set of edges in the graph
      */
-    public Graph(Set<Node> nodes, Set<Edge> edges) {
-        this.nodes = new HashSet<>(nodes);
-        this.edges = new HashSet<>(edges);
+    public Graph(SymbolTable symbols, Set<Node> nodes, Set<Edge> edges) {
+        this(GraphVersion.of(symbols, nodes, edges));
+    }
+
+    /**
+     * Constructs a new graph starting at the given version.
+     * 
+     * @param version the initial version of the graph
+     */
+    public Graph(GraphVersion version) {
+        this(new VersionPublisher(version, new NodeLocks()), new PartClosures(), new CategoryTree(),
+                new AssignedOrdinals());
+    }
+
+    private Graph(VersionPublisher versions, PartClosures partClosures, CategoryTree categoryTree,
+            AssignedOrdinals nodeOrdinals) {
+        this.versions = versions;
+        this.partClosures = partClosures;
+        this.categoryTree = categoryTree;
+        this.nodeOrdinals = nodeOrdinals;
+    }
+
+    /**
+     * Returns the current version of the graph.
+     * 
+     * @return the current version
+     */
+    public GraphVersion getVersion() {
+        return this.versions.get();
+    }
+
+    /**
+     * Returns a graph pinned to the current version. Mutations of this graph are
+     * not visible in the returned graph and vice versa, so long-running readers see
+     * a consistent graph while mutations continue. Mutation listeners are not
+     * carried over.
+     * 
+     * @return the pinned graph
+     */
+    public Graph snapshot() {
+        return new Graph(this.versions.pin(), this.partClosures, this.categoryTree, this.nodeOrdinals);
+    }
+
+    /**
+     * Returns the table of the names of the graph, which is shared with its
+     * versions and snapshots. Nodes created for this graph should intern their
+     * names in it.
+     * 
+     * @return the table of the names
+     */
+    public SymbolTable getSymbols() {
+        return this.versions.get().getSymbols();
     }
 
     /**
@@ -36,7 +100,45 @@ public Graph(Set<Node> nodes, Set<Edge> edges) {
      * @return the set of edges
      */
     public Set<Edge> getEdges() {
-        return Collections.unmodifiableSet(this.edges);
+        return this.versions.get().getEdges();
+    }
+
+    /**
+     * Returns the outgoing edges of the given node.
+     * 
+     * @param node the node
+     * @return an unmodifiable list of the outgoing edges
+     */
+    public List<Edge> getEdges(Node node) {
+        return this.versions.get().getEdges(node);
+    }
+
+    /**
+     * Returns the outgoing edges of the given node without copying them, for
+     * traversals visiting many nodes. The returned array must not be modified.
+     * 
+     * @param node the node
+     * @return the outgoing edges, empty if the node is not contained
+     */
+    protected Edge[] edgesOf(Node node) {
+        return this.versions.get().edgesOf(node);
+    }
+
+    /**
+     * Returns the ordinals of the nodes of this graph, which are shared with its
+     * snapshots. Once most of the ordinals belong to removed nodes, they are
+     * replaced by new ones, which the snapshots taken afterwards share.
+     * 
+     * @return the ordinals of the nodes
+     */
+    protected NodeOrdinals getNodeOrdinals() {
+        AssignedOrdinals ordinals = this.nodeOrdinals;
+        if (ordinals.isMostlyStale(this.versions.get().getNodes().size())) {
+            // Concurrent replacements only cost the ordinals of the replaced instance
+            ordinals = new AssignedOrdinals();
+            this.nodeOrdinals = ordinals;
+        }
+        return ordinals;
     }
 
     /**
@@ -45,7 +147,7 @@ public Set<Edge> getEdges() {
      * @return the set of nodes
      */
     public Set<Node> getNodes() {
-        return Collections.unmodifiableSet(this.nodes);
+        return this.versions.get().getNodes();
     }
 
     /**
@@ -55,12 +157,71 @@ public Set<Node> getNodes() {
      * @return the product node, or {@code null} if no such node exists
      */
     public Node findProductById(int productId) {
-        for (Node node : this.nodes) {
-            if (node.isOfType(NodeType.PRODUCT) && ((Product) node).getId() == productId) {
-                return node;
-            }
-        }
-        return null;
+        return this.versions.get().findProductById(productId);
+    }
+
+    /**
+     * Finds the node with the given name.
+     * 
+     * @param name the name of the node
+     * @return the node, or {@code null} if no such node exists
+     */
+    public Node findNodeByName(String name) {
+        return this.versions.get().findNodeByName(name);
+    }
+
+    /**
+     * Returns the stamps of the hierarchies of the current version, see
+     * {@link HierarchyIndex#getPartStamp(Node)} and
+     * {@link HierarchyIndex#getCategoryStamp()}.
+     * 
+     * @return the index of the hierarchies
+     */
+    HierarchyIndex getHierarchies() {
+        return this.versions.get().getHierarchies();
+    }
+
+    /**
+     * Returns the memoized closures of the part hierarchy, which are shared with
+     * the snapshots of this graph.
+     * 
+     * @return the memoized closures
+     */
+    public PartClosures getPartClosures() {
+        return this.partClosures;
+    }
+
+    /**
+     * Returns the categories which contain or are contained in another category,
+     * from which the {@link CategoryTree} labels the category hierarchy.
+     * Categories without such relationships may be returned as well.
+     * 
+     * @return an unmodifiable collection of the categories
+     */
+    protected Collection<Node> getLinkedCategories() {
+        return this.versions.get().getHierarchies().getLinkedCategories();
+    }
+
+    /**
+     * Returns the labelling of the category hierarchy, which is shared with the
+     * snapshots of this graph.
+     * 
+     * @return the labelling of the category hierarchy
+     */
+    public CategoryTree getCategoryTree() {
+        return this.categoryTree;
+    }
+
+    /**
+     * Returns the nodes which are directly connected to the given node by an
+     * outgoing edge of the given relationship type.
+     * 
+     * @param node         the node whose neighbors are returned
+     * @param relationship the relationship type of the outgoing edges
+     * @return the set of neighbors
+     */
+    public Set<Node> getNeighbors(Node node, RelationshipType relationship) {
+        return this.versions.get().getNeighbors(node, relationship);
     }
 
     /**
@@ -69,11 +230,26 @@ public Node findProductById(int productId) {
      * @param newNode the node to be added
      */
     public void addNode(Node newNode) {
-        this.nodes.add(newNode);
+        this.versions.publish(NodeLocks.stripeOf(newNode), current -> true, current -> current.withNode(newNode), List.of(),
+                true);
+    }
+
+    /**
+     * Adds the given node to the graph unless it conflicts with a contained node,
+     * see {@link GraphVersion#resolveNode(Node)}. Checking and adding happen
+     * atomically.
+     * 
+     * @param node the node to be registered
+     * @return the contained node which equals the given node, the given node if it
+     *         was added, or {@code null} if it conflicts with a contained node
+     */
+    public Node registerNode(Node node) {
+        return this.versions.register(node);
     }
 
     /**
-     * Removes an edge (and its reverse) from the graph.
+     * Removes an edge (and its reverse) from the graph. Nodes left without any
+     * edges are removed as well.
      *
      * @param relationship the relationship descriptor representing the edge to
      *                     remove
@@ -81,18 +257,31 @@ public void addNode(Node newNode) {
      *         otherwise
      */
     public boolean removeEdge(RelationshipDTO relationship) {
-        if (relationship == null || !edgeIsPresent(relationship)) {
+        if (relationship == null) {
             return false;
         }
+        return this.versions.publish(NodeLocks.stripeOf(relationship.subject()) | NodeLocks.stripeOf(relationship.object()),
+                current -> current.containsRelationship(relationship), current -> current.withoutRelationship(relationship),
+                List.of(relationship), false);
+    }
 
-        this.edges.remove(relationship.edge());
-        this.edges.remove(relationship.reverseEdge());
-        cleanupNodes(relationship);
-        return true;
+    /**
+     * Removes the given node together with all of its edges and their reverses.
+     * Neighbors left without any edges are removed as well. The listeners are
+     * notified of every removed relationship.
+     * 
+     * @param node the node to remove
+     * @return {@code true} if the node was removed, {@code false} if it is not
+     *         contained in the graph
+     */
+    public boolean removeNode(Node node) {
+        return this.versions.remove(node);
     }
 
     /**
-     * Adds a new relationship (and its reverse) to the graph.
+     * Adds a new relationship (and its reverse) to the graph. If one of its nodes
+     * was removed concurrently since it was registered, it is added again as long
+     * as it does not conflict with another node.
      *
      * @param relationship the relationship data transfer object representing the
      *                     edge to add
@@ -100,42 +289,65 @@ public boolean removeEdge(RelationshipDTO relationship) {
      *         {@code false} otherwise
      */
     public boolean addRelationship(RelationshipDTO relationship) {
-        if (relationship == null || !canAddRelationship(relationship)) {
+        if (relationship == null) {
             return false;
         }
-
-        this.edges.add(relationship.edge());
-        this.edges.add(relationship.reverseEdge());
-        relationship.subject().addEdge(relationship.edge());
-        relationship.object().addEdge(relationship.reverseEdge());
-        return true;
+        return this.versions.publish(NodeLocks.stripeOf(relationship.subject()) | NodeLocks.stripeOf(relationship.object()),
+                current -> current.canAddRelationship(relationship), current -> current.withRelationships(List.of(relationship)),
+                List.of(relationship), true);
     }
 
-    private boolean edgeIsPresent(RelationshipDTO relationship) {
-        return this.edges.contains(relationship.edge())
-                || this.edges.contains(relationship.reverseEdge());
+    /**
+     * Adds all given relationships (and their reverses) to the graph at once.
+     * Either all of them are added in one new version or none is, so readers never
+     * see a part of the batch. All node locks are held meanwhile. Relationships
+     * which are already contained are skipped.
+     * 
+     * @param relationships the relationships to add
+     * @return {@code true} if the relationships were added, {@code false} if one of
+     *         them can not be added
+     */
+    public boolean addRelationships(Collection<RelationshipDTO> relationships) {
+        return this.versions.publish(NodeLocks.ALL_STRIPES,
+                current -> relationships.stream().allMatch(current::canAddRelationship),
+                current -> current.withRelationships(relationships), relationships, true);
     }
 
-    private void cleanupNodes(RelationshipDTO relationship) {
-        Node subjectNode = relationship.subject();
-        Node objectNode = relationship.object();
-
-        cleanupNode(subjectNode, relationship.edge(), relationship.reverseEdge());
-        cleanupNode(objectNode, relationship.edge(), relationship.reverseEdge());
+    /**
+     * Registers a listener which is notified after every successful mutation of
+     * this graph.
+     * 
+     * @param listener the listener to register
+     */
+    public void addMutationListener(MutationListener listener) {
+        this.versions.addListener(listener);
     }
 
-    private void cleanupNode(Node node, Edge primaryEdge, Edge reversedEdge) {
-        node.removeEdge(primaryEdge);
-        node.removeEdge(reversedEdge);
+    /**
+     * Removes a previously registered mutation listener.
+     * 
+     * @param listener the listener to remove
+     */
+    public void removeMutationListener(MutationListener listener) {
+        this.versions.removeListener(listener);
+    }
 
-        if (node.getEdges().isEmpty()) {
-            this.nodes.remove(node);
-        }
+    /**
+     * Returns whether this graph can not be mutated, so commands mutating it have
+     * to be rejected before they are executed.
+     * 
+     * @return {@code true} if the graph is read-only, {@code false} otherwise
+     */
+    public boolean isReadOnly() {
+        return false;
     }
 
-    private boolean canAddRelationship(RelationshipDTO relationship) {
-        return this.nodes.contains(relationship.subject())
-                && this.nodes.contains(relationship.object())
-                && RelationshipType.isAllowedRelationship(relationship);
+    /**
+     * Returns an estimate of the heap retained by this graph.
+     * 
+     * @return the estimate, see {@link MemoryFootprint}
+     */
+    public MemoryFootprint getMemoryFootprint() {
+        return MemoryFootprint.of(this);
     }
-}
\ No newline at end of file
+}
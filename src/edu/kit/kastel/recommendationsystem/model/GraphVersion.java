@@ -0,0 +1,386 @@
+package edu.kit.kastel.recommendationsystem.model;
+
+import java.util.Set;
+import java.util.Map;
+import java.util.List;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import edu.kit.kastel.recommendationsystem.util.collections.PersistentMap;
+
+/**
+ * An immutable version of the nodes and edges of a {@link Graph}. Mutations
+ * create a new version which shares all unchanged parts with this version: the
+ * node, edge and product indexes are {@link PersistentMap persistent maps} and
+ * only the edge arrays of the affected nodes are copied. The products are
+ * indexed by their id and all nodes by the symbol of their name in the
+ * {@link SymbolTable} of the graph, which all versions of a graph share, see
+ * {@link NodeIndex}. A version can therefore be read by any number of threads
+ * while newer versions are created.
+ * 
+ * @author urrwg
+ */
+public final class GraphVersion {
+
+    private static final Edge[] NO_EDGES = new Edge[0];
+
+    private final PersistentMap<Node, Edge[]> adjacency;
+    private final PersistentMap<Edge, Edge> edges;
+    private final NodeIndex index;
+    private final HierarchyIndex hierarchies;
+
+    private GraphVersion(PersistentMap<Node, Edge[]> adjacency, PersistentMap<Edge, Edge> edges, NodeIndex index,
+            HierarchyIndex hierarchies) {
+        this.adjacency = adjacency;
+        this.edges = edges;
+        this.index = index;
+        this.hierarchies = hierarchies;
+    }
+
+    /**
+     * Creates a version with the given nodes and edges. The start node of every
+     * edge has to be contained in the given nodes.
+     * 
+     * @param symbols the table of the names of the graph
+     * @param nodes   the nodes of the version
+     * @param edges   the edges of the version
+     * @return the new version
+     */
+    public static GraphVersion of(SymbolTable symbols, Set<Node> nodes, Set<Edge> edges) {
+        Map<Node, List<Edge>> edgesByNode = new HashMap<>();
+        for (Node node : nodes) {
+            edgesByNode.put(node, new ArrayList<>());
+        }
+
+        for (Edge edge : edges) {
+            edgesByNode.computeIfAbsent(edge.getStartNode(), node -> new ArrayList<>()).add(edge);
+        }
+
+        return new GraphVersion(PersistentMap.of(edgesByNode.keySet(), node -> edgesByNode.get(node).toArray(NO_EDGES)),
+                PersistentMap.of(edges, edge -> edge), NodeIndex.of(symbols, nodes), HierarchyIndex.of(edges));
+    }
+
+    /**
+     * Returns the table of the names of the graph, which all of its versions
+     * share.
+     * 
+     * @return the table of the names
+     */
+    public SymbolTable getSymbols() {
+        return this.index.getSymbols();
+    }
+
+    /**
+     * Returns the outgoing edges of the given node without copying them, for
+     * traversals visiting many nodes. The returned array must not be modified.
+     * 
+     * @param node the node
+     * @return the outgoing edges, empty if the node is not contained
+     */
+    Edge[] edgesOf(Node node) {
+        Edge[] nodeEdges = this.adjacency.get(node);
+        return nodeEdges == null ? NO_EDGES : nodeEdges;
+    }
+
+    /**
+     * Returns an unmodifiable view of the nodes of this version.
+     * 
+     * @return the set of nodes
+     */
+    public Set<Node> getNodes() {
+        return this.adjacency.keySet();
+    }
+
+    /**
+     * Returns an unmodifiable view of the edges of this version.
+     * 
+     * @return the set of edges
+     */
+    public Set<Edge> getEdges() {
+        return this.edges.keySet();
+    }
+
+    /**
+     * Returns the outgoing edges of the given node.
+     * 
+     * @param node the node
+     * @return an unmodifiable list of the outgoing edges, empty if the node is not
+     *         contained
+     */
+    public List<Edge> getEdges(Node node) {
+        Edge[] nodeEdges = this.adjacency.get(node);
+        return nodeEdges == null ? List.of() : Collections.unmodifiableList(Arrays.asList(nodeEdges));
+    }
+
+    /**
+     * Returns the nodes which are directly connected to the given node by an
+     * outgoing edge of the given relationship type.
+     * 
+     * @param node         the node whose neighbors are returned
+     * @param relationship the relationship type of the outgoing edges
+     * @return the set of neighbors
+     */
+    public Set<Node> getNeighbors(Node node, RelationshipType relationship) {
+        Set<Node> neighbors = new HashSet<>();
+        Edge[] nodeEdges = this.adjacency.get(node);
+        if (nodeEdges != null) {
+            for (Edge edge : nodeEdges) {
+                if (edge.getRelationship() == relationship) {
+                    neighbors.add(edge.getEndNode());
+                }
+            }
+        }
+        return neighbors;
+    }
+
+    /**
+     * Finds a product node by its unique identification number (id).
+     *
+     * @param productId the id of the product to find
+     * @return the product node, or {@code null} if no such node exists
+     */
+    public Node findProductById(int productId) {
+        return this.index.findProduct(productId);
+    }
+
+    /**
+     * Finds the node with the given name.
+     * 
+     * @param name the name of the node
+     * @return the node, or {@code null} if no such node exists
+     */
+    public Node findNodeByName(String name) {
+        int symbol = this.index.getSymbols().lookup(name);
+        return symbol == SymbolTable.NO_SYMBOL ? null : this.index.findBySymbol(symbol);
+    }
+
+    /**
+     * Finds the node whose name has the given symbol in the table of the graph,
+     * see {@link #getSymbols()}.
+     * 
+     * @param symbol the symbol of the name of the node
+     * @return the node, or {@code null} if no such node exists
+     */
+    public Node findNodeBySymbol(int symbol) {
+        return this.index.findBySymbol(symbol);
+    }
+
+    /**
+     * Resolves the given node against the nodes of this version. A node is only
+     * placeable if neither a node with the same name nor, for products, a product
+     * with the same id is contained.
+     * 
+     * @param node the node to resolve
+     * @return the contained node which equals the given node, the given node if it
+     *         is placeable, or {@code null} if it conflicts with a contained node
+     */
+    public Node resolveNode(Node node) {
+        Node namesake = this.index.findNamesake(node);
+        if (namesake != null) {
+            return namesake.equals(node) ? namesake : null;
+        }
+        if (node.isOfType(NodeType.PRODUCT) && this.index.findProduct(((Product) node).getId()) != null) {
+            return null;
+        }
+        return node;
+    }
+
+    /**
+     * Returns whether the given node is contained in this version.
+     * 
+     * @param node the node
+     * @return {@code true} if the node is contained, {@code false} otherwise
+     */
+    public boolean containsNode(Node node) {
+        return this.adjacency.containsKey(node);
+    }
+
+    /**
+     * Returns the stamps of the hierarchies and the categories linked to other
+     * categories in this version, see {@link PartClosures} and
+     * {@link CategoryTree}.
+     * 
+     * @return the index of the hierarchies
+     */
+    HierarchyIndex getHierarchies() {
+        return this.hierarchies;
+    }
+
+    /**
+     * Returns whether the given edge is contained in this version.
+     * 
+     * @param edge the edge
+     * @return {@code true} if the edge is contained, {@code false} otherwise
+     */
+    public boolean containsEdge(Edge edge) {
+        return this.edges.containsKey(edge);
+    }
+
+    /**
+     * Returns whether the edge of the given relationship or its reverse is
+     * contained in this version.
+     * 
+     * @param relationship the relationship
+     * @return {@code true} if the relationship is contained, {@code false}
+     *         otherwise
+     */
+    public boolean containsRelationship(RelationshipDTO relationship) {
+        return containsEdge(relationship.edge()) || containsEdge(relationship.reverseEdge());
+    }
+
+    /**
+     * Returns whether the given relationship can be added to this version: it has
+     * to be allowed and neither of its nodes may conflict with a contained node.
+     * 
+     * @param relationship the relationship
+     * @return {@code true} if the relationship can be added, {@code false}
+     *         otherwise
+     */
+    public boolean canAddRelationship(RelationshipDTO relationship) {
+        return resolveNode(relationship.subject()) != null && resolveNode(relationship.object()) != null
+                && RelationshipType.isAllowedRelationship(relationship);
+    }
+
+    /**
+     * Returns a version which additionally contains the given node without edges.
+     * 
+     * @param node the node to add
+     * @return the new version, or this version if the node is already contained
+     */
+    public GraphVersion withNode(Node node) {
+        if (containsNode(node)) {
+            return this;
+        }
+        return new GraphVersion(this.adjacency.put(node, NO_EDGES), this.edges, this.index.with(List.of(node)),
+                this.hierarchies);
+    }
+
+    /**
+     * Returns a version which additionally contains the edges of all given
+     * relationships and their reverses. The indexes are updated once for the
+     * whole batch, and the edge array of every affected node is copied only once.
+     * 
+     * @param relationships the relationships to add
+     * @return the new version
+     */
+    public GraphVersion withRelationships(Collection<RelationshipDTO> relationships) {
+        Map<Edge, Edge> newEdges = new HashMap<>();
+        Map<Node, List<Edge>> addedEdges = new HashMap<>();
+        List<Node> addedNodes = new ArrayList<>();
+        for (RelationshipDTO relationship : relationships) {
+            for (Edge edge : List.of(relationship.edge(), relationship.reverseEdge())) {
+                if (!this.edges.containsKey(edge) && newEdges.putIfAbsent(edge, edge) == null) {
+                    addedEdges.computeIfAbsent(edge.getStartNode(), node -> new ArrayList<>()).add(edge);
+                }
+            }
+        }
+
+        Map<Node, Edge[]> newAdjacency = new HashMap<>();
+        for (Map.Entry<Node, List<Edge>> entry : addedEdges.entrySet()) {
+            Node node = entry.getKey();
+            Edge[] nodeEdges = this.adjacency.get(node);
+            if (nodeEdges == null) {
+                nodeEdges = NO_EDGES;
+                addedNodes.add(node);
+            }
+            Edge[] extendedEdges = Arrays.copyOf(nodeEdges, nodeEdges.length + entry.getValue().size());
+            for (int i = 0; i < entry.getValue().size(); i++) {
+                extendedEdges[nodeEdges.length + i] = entry.getValue().get(i);
+            }
+            newAdjacency.put(node, extendedEdges);
+        }
+        return new GraphVersion(this.adjacency.putAll(newAdjacency), this.edges.putAll(newEdges),
+                this.index.with(addedNodes), this.hierarchies.update(this, newEdges.keySet()));
+    }
+
+    /**
+     * Returns a version without the edge of the given relationship and its
+     * reverse. Nodes which are left without any edges are removed as well.
+     * 
+     * @param relationship the relationship to remove
+     * @return the new version
+     */
+    public GraphVersion withoutRelationship(RelationshipDTO relationship) {
+        Edge edge = relationship.edge();
+        Edge reverseEdge = relationship.reverseEdge();
+        PersistentMap<Node, Edge[]> newAdjacency = this.adjacency;
+        List<Node> removedNodes = new ArrayList<>();
+
+        for (Node node : List.of(relationship.subject(), relationship.object())) {
+            Edge[] nodeEdges = newAdjacency.get(node);
+            if (nodeEdges == null) {
+                continue;
+            }
+            Edge[] remainingEdges = Arrays.stream(nodeEdges)
+                    .filter(nodeEdge -> !nodeEdge.equals(edge) && !nodeEdge.equals(reverseEdge))
+                    .toArray(Edge[]::new);
+            if (remainingEdges.length == nodeEdges.length) {
+                continue;
+            }
+            if (remainingEdges.length > 0) {
+                newAdjacency = newAdjacency.put(node, remainingEdges);
+            } else {
+                newAdjacency = newAdjacency.remove(node);
+                removedNodes.add(node);
+            }
+        }
+        return withoutIndexedNodes(newAdjacency, this.edges.remove(edge).remove(reverseEdge), removedNodes, List.of(edge));
+    }
+
+    /**
+     * Returns a version without the given node and all of its edges and their
+     * reverses. Neighbors which are left without any edges are removed as well.
+     * Only the edge arrays of the node and its neighbors are visited, so the cost
+     * depends on the degree of the node but not on the size of the graph.
+     * 
+     * @param node the node to remove
+     * @return the new version, or this version if the node is not contained
+     */
+    public GraphVersion withoutNode(Node node) {
+        Edge[] nodeEdges = this.adjacency.get(node);
+        if (nodeEdges == null) {
+            return this;
+        }
+        PersistentMap<Node, Edge[]> newAdjacency = this.adjacency.remove(node);
+        PersistentMap<Edge, Edge> newEdges = this.edges;
+        List<Node> removedNodes = new ArrayList<>(List.of(node));
+
+        for (Edge edge : nodeEdges) {
+            newEdges = newEdges.remove(edge);
+            Node neighbor = edge.getEndNode();
+            Edge[] neighborEdges = newAdjacency.get(neighbor);
+            if (neighborEdges == null) {
+                continue;
+            }
+            Edge[] remainingEdges = new Edge[neighborEdges.length];
+            int remaining = 0;
+            for (Edge neighborEdge : neighborEdges) {
+                if (neighborEdge.getEndNode().equals(node)) {
+                    newEdges = newEdges.remove(neighborEdge);
+                } else {
+                    remainingEdges[remaining++] = neighborEdge;
+                }
+            }
+            if (remaining == neighborEdges.length) {
+                continue;
+            }
+            if (remaining > 0) {
+                newAdjacency = newAdjacency.put(neighbor, Arrays.copyOf(remainingEdges, remaining));
+            } else {
+                newAdjacency = newAdjacency.remove(neighbor);
+                removedNodes.add(neighbor);
+            }
+        }
+        return withoutIndexedNodes(newAdjacency, newEdges, removedNodes, Arrays.asList(nodeEdges));
+    }
+
+    private GraphVersion withoutIndexedNodes(PersistentMap<Node, Edge[]> newAdjacency, PersistentMap<Edge, Edge> newEdges,
+            List<Node> removedNodes, Collection<Edge> removedEdges) {
+        return new GraphVersion(newAdjacency, newEdges, this.index.without(removedNodes),
+                this.hierarchies.update(this, removedEdges));
+    }
+}
@@ -0,0 +1,171 @@
+package edu.kit.kastel.recommendationsystem.model;
+
+import java.util.Set;
+import java.util.Map;
+import java.util.List;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.kit.kastel.recommendationsystem.util.collections.PersistentMap;
+
+/**
+ * The stamps of a {@link GraphVersion} which tell whether memoized results over
+ * the hierarchies of the graph are still valid: a part stamp per node for the
+ * {@link PartClosures part hierarchy}, and one stamp for the
+ * {@link CategoryTree category hierarchy}. A stamp changes whenever the part of
+ * the hierarchy it covers changes. Stamps are unique over all versions, so two
+ * versions with the same stamp agree on what it covers.
+ * <p>
+ * The index also holds the categories which contain or are contained in
+ * another category, together with the number of those relationships, so the
+ * category hierarchy can be labelled without visiting every node.
+ * </p>
+ * 
+ * @author urrwg
+ */
+final class HierarchyIndex {
+
+    private static final AtomicLong NEXT_STAMP = new AtomicLong();
+
+    private final PersistentMap<Node, Long> partStamps;
+    private final long categoryStamp;
+    private final PersistentMap<Node, Integer> categoryLinks;
+
+    private HierarchyIndex(PersistentMap<Node, Long> partStamps, long categoryStamp,
+            PersistentMap<Node, Integer> categoryLinks) {
+        this.partStamps = partStamps;
+        this.categoryStamp = categoryStamp;
+        this.categoryLinks = categoryLinks;
+    }
+
+    /**
+     * Creates the index of a version whose hierarchies did not change yet, which
+     * holds the given edges.
+     * 
+     * @param edges the edges of the version
+     * @return the new index
+     */
+    static HierarchyIndex of(Collection<Edge> edges) {
+        Map<Node, Integer> links = new HashMap<>();
+        for (Edge edge : edges) {
+            if (edge.getRelationship() == RelationshipType.CONTAINS && isCategoryLink(edge)) {
+                links.merge(edge.getStartNode(), 1, Integer::sum);
+                links.merge(edge.getEndNode(), 1, Integer::sum);
+            }
+        }
+        return new HierarchyIndex(PersistentMap.empty(), 0, PersistentMap.of(links));
+    }
+
+    /**
+     * Returns the part stamp of the given node, which changes whenever a part
+     * relationship is added to or removed from the closure of its components or
+     * assemblies.
+     * 
+     * @param node the node
+     * @return the part stamp of the node
+     */
+    long getPartStamp(Node node) {
+        Long stamp = this.partStamps.get(node);
+        return stamp == null ? 0 : stamp;
+    }
+
+    /**
+     * Returns the category stamp, which changes whenever a relationship between
+     * two categories is added or removed.
+     * 
+     * @return the category stamp
+     */
+    long getCategoryStamp() {
+        return this.categoryStamp;
+    }
+
+    /**
+     * Returns the categories which contain or are contained in another category.
+     * 
+     * @return an unmodifiable view of the linked categories
+     */
+    Set<Node> getLinkedCategories() {
+        return this.categoryLinks.keySet();
+    }
+
+    /**
+     * Returns the stamps of a version derived from the given version by adding or
+     * removing the given edges. Every node whose closure of components or
+     * assemblies may change gets a new part stamp, i.e. the assemblies of changed
+     * part relationships and their ancestors and the components and their
+     * descendants.
+     * 
+     * @param version      the version the edges are added to or removed from,
+     *                     whose stamps these are
+     * @param changedEdges the added or removed edges
+     * @return the stamps of the derived version
+     */
+    HierarchyIndex update(GraphVersion version, Collection<Edge> changedEdges) {
+        List<Node> changedAssemblies = new ArrayList<>();
+        List<Node> changedComponents = new ArrayList<>();
+        Set<Edge> changedLinks = new HashSet<>();
+        for (Edge edge : changedEdges) {
+            if (edge.getRelationship() == RelationshipType.HAS_PART) {
+                changedAssemblies.add(edge.getStartNode());
+                changedComponents.add(edge.getEndNode());
+            } else if (edge.getRelationship() == RelationshipType.PART_OF) {
+                changedAssemblies.add(edge.getEndNode());
+                changedComponents.add(edge.getStartNode());
+            } else if (isCategoryLink(edge)) {
+                // A relationship may be passed in one or both directions, so it is counted in the contains direction
+                changedLinks.add(edge.getRelationship() == RelationshipType.CONTAINS ? edge
+                        : new Edge(edge.getEndNode(), edge.getStartNode(), RelationshipType.CONTAINS));
+            }
+        }
+        if (changedAssemblies.isEmpty() && changedLinks.isEmpty()) {
+            return this;
+        }
+
+        Long stamp = NEXT_STAMP.incrementAndGet();
+        Map<Node, Long> newPartStamps = new HashMap<>();
+        for (Node node : reach(version, changedAssemblies, RelationshipType.PART_OF)) {
+            newPartStamps.put(node, stamp);
+        }
+        for (Node node : reach(version, changedComponents, RelationshipType.HAS_PART)) {
+            newPartStamps.put(node, stamp);
+        }
+        return new HierarchyIndex(newPartStamps.isEmpty() ? this.partStamps : this.partStamps.putAll(newPartStamps),
+                changedLinks.isEmpty() ? this.categoryStamp : stamp, updateLinks(version, changedLinks));
+    }
+
+    private PersistentMap<Node, Integer> updateLinks(GraphVersion version, Set<Edge> changedLinks) {
+        PersistentMap<Node, Integer> newLinks = this.categoryLinks;
+        for (Edge link : changedLinks) {
+            // The version is the one before the change, so contained links are removed
+            int delta = version.containsEdge(link) ? -1 : 1;
+            for (Node category : List.of(link.getStartNode(), link.getEndNode())) {
+                Integer count = newLinks.get(category);
+                int newCount = (count == null ? 0 : count) + delta;
+                newLinks = newCount > 0 ? newLinks.put(category, newCount) : newLinks.remove(category);
+            }
+        }
+        return newLinks;
+    }
+
+    private static boolean isCategoryLink(Edge edge) {
+        return edge.getStartNode().isOfType(NodeType.CATEGORY) && edge.getEndNode().isOfType(NodeType.CATEGORY);
+    }
+
+    private static Set<Node> reach(GraphVersion version, List<Node> startNodes, RelationshipType relationship) {
+        Set<Node> reached = new HashSet<>(startNodes);
+        Deque<Node> stack = new ArrayDeque<>(reached);
+        while (!stack.isEmpty()) {
+            for (Node neighbor : version.getNeighbors(stack.pop(), relationship)) {
+                if (reached.add(neighbor)) {
+                    stack.push(neighbor);
+                }
+            }
+        }
+        return reached;
+    }
+}
@@ -0,0 +1,312 @@
+package edu.kit.kastel.recommendationsystem.model;
+
+import java.util.Map;
+import java.util.Locale;
+import java.util.LinkedHashMap;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * An estimate of the heap retained by a {@link Graph}, computed from the sizes
+ * of its data structures instead of a heap dump. Every structure is charged
+ * with the shallow sizes of the objects it consists of, assuming the layout of
+ * a 64-bit JVM with compressed references: 12 byte object headers, 16 byte
+ * array headers, 4 byte references and objects aligned to 8 bytes.
+ * <p>
+ * The nodes are visited once, every other structure is estimated from its
+ * size: the tries of the {@link edu.kit.kastel.recommendationsystem.util.collections.PersistentMap
+ * persistent maps} by the expected number of their inner nodes for uniformly
+ * distributed hashes, and hash maps by their table and entries. The edge
+ * objects are assumed to be shared by the edge arrays of the nodes and the
+ * global edge index. Only the names of the contained nodes are charged, not
+ * the names of removed nodes which the symbol table of the graph still holds.
+ * </p>
+ * <p>
+ * A graph which is read in place from a mapped file is not materialized, its
+ * nodes and edges are charged with the sections of the file holding them
+ * instead. These reside in the page cache rather than the heap and are shared
+ * by all processes mapping the same file.
+ * </p>
+ *
+ * @author urrwg
+ */
+public final class MemoryFootprint {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int ALIGNMENT = 8;
+    /**
+     * The size of a reference in bytes.
+     */
+    static final int REFERENCE = 4;
+
+    private static final int NODE_FIELDS = Integer.BYTES + 3 * REFERENCE;
+    private static final long PRODUCT = objectBytes(NODE_FIELDS + Integer.BYTES);
+    private static final long CATEGORY = objectBytes(NODE_FIELDS);
+    private static final long EDGE = objectBytes(3 * REFERENCE + Integer.BYTES);
+    private static final long INTEGER_BOX = objectBytes(Integer.BYTES);
+    private static final long LONG_BOX = objectBytes(Long.BYTES);
+    private static final long TRIE_LEAF = objectBytes(2 * REFERENCE + Integer.BYTES);
+    private static final long TRIE_NODE = objectBytes(Integer.BYTES + REFERENCE) + ARRAY_HEADER + ALIGNMENT / 2;
+    private static final long HASH_MAP = objectBytes(6 * REFERENCE + 2 * Integer.BYTES);
+    private static final long HASH_ENTRY = objectBytes(Integer.BYTES + 3 * REFERENCE);
+    private static final long SET_WRAPPER = objectBytes(REFERENCE);
+
+    private static final int TRIE_FANOUT = 32;
+    private static final double MAX_HASHES = 0x1p32;
+    private static final double LOAD_FACTOR = 0.75;
+    private static final int SMALLEST_TABLE = 16;
+    private static final int MAX_CACHED_INTEGER = 127;
+    private static final int MIN_CACHED_INTEGER = -128;
+
+    private static final String EDGES = "edges";
+    private static final String EDGE_INDEX = "edge index";
+    private static final String SUMMARY_FORMAT = "memory of %d nodes (%d products, %d categories) and %d edges%n"
+            + "structure                bytes    share";
+    private static final String ROW_FORMAT = "%n%-16s %12d %7.1f %%";
+    private static final String TOTAL_FORMAT = "%n%-16s %12d%nbytes per node   %12.1f%nbytes per edge   %12.1f%n"
+            + "degree             nodes";
+    private static final String DEGREE_FORMAT = "%n%-16s %12d";
+    private static final String DEGREE_RANGE = "%d-%d";
+    private static final String TOTAL = "total";
+
+    private final int products;
+    private final int categories;
+    private final int edges;
+    private final Map<String, Long> structures;
+    private final long edgeBytes;
+    private final long[] degrees;
+
+    private MemoryFootprint(int products, int categories, int edges, Map<String, Long> structures, long edgeBytes,
+            long[] degrees) {
+        this.products = products;
+        this.categories = categories;
+        this.edges = edges;
+        this.structures = structures;
+        this.edgeBytes = edgeBytes;
+        this.degrees = degrees;
+    }
+
+    /**
+     * Estimates the heap retained by the given graph in time linear in its number
+     * of nodes, see {@link Graph#getMemoryFootprint()}.
+     *
+     * @param graph the graph, which should be pinned to a version
+     * @return the estimate
+     */
+    static MemoryFootprint of(Graph graph) {
+        GraphVersion version = graph.getVersion();
+        int productCount = 0;
+        int edgeCount = 0;
+        long nodeBytes = 0;
+        long edgeArrayBytes = 0;
+        long boxBytes = 0;
+        long nameBytes = 0;
+        int stampedNodes = 0;
+        long[] degrees = new long[Integer.SIZE + 1];
+        for (Node node : version.getNodes()) {
+            int degree = version.edgesOf(node).length;
+            edgeCount += degree;
+            degrees[degreeBucket(degree)]++;
+            edgeArrayBytes += degree == 0 ? 0 : arrayBytes(degree, REFERENCE);
+            boxBytes += integerBytes(node.getSymbol());
+            nameBytes += node.getSymbols().estimateBytes(node.getSymbol());
+            if (node.isOfType(NodeType.PRODUCT)) {
+                productCount++;
+                nodeBytes += PRODUCT;
+                boxBytes += integerBytes(((Product) node).getId());
+            } else {
+                nodeBytes += CATEGORY;
+            }
+            if (version.getHierarchies().getPartStamp(node) != 0) {
+                stampedNodes++;
+            }
+        }
+
+        int nodeCount = version.getNodes().size();
+        Map<String, Long> structures = new LinkedHashMap<>();
+        structures.put("nodes", nodeBytes);
+        structures.put(EDGES, edgeCount * EDGE);
+        structures.put("edge arrays", edgeArrayBytes);
+        structures.put("node index", trieBytes(nodeCount));
+        structures.put(EDGE_INDEX, trieBytes(edgeCount));
+        structures.put("key boxes", boxBytes);
+        structures.put("product index", trieBytes(productCount));
+        structures.put("name index", trieBytes(nodeCount));
+        structures.put("names", nameBytes);
+        structures.put("part stamps", trieBytes(stampedNodes) + stampedNodes * LONG_BOX);
+        structures.put("category links", trieBytes(version.getHierarchies().getLinkedCategories().size()));
+        putSharedStructures(structures, graph);
+        long edgeBytes = structures.get(EDGES) + structures.get(EDGE_INDEX) + (long) edgeCount * REFERENCE;
+        return new MemoryFootprint(productCount, nodeCount - productCount, edgeCount, structures, edgeBytes, degrees);
+    }
+
+    /**
+     * Estimates the memory of a graph which is read in place from a mapped file,
+     * in time linear in its number of nodes without materializing any of them.
+     *
+     * @param graph      the mapped graph, whose memoized closures, category tree
+     *                   and node ordinals are estimated like those of any graph
+     * @param products   the number of products
+     * @param categories the number of categories
+     * @param degreeOf   the number of outgoing edges of the node with the given
+     *                   ordinal
+     * @param nodeBytes  the size of the sections of the file holding the nodes
+     * @param edgeBytes  the size of the sections of the file holding the edges
+     * @return the estimate
+     */
+    public static MemoryFootprint ofMapping(Graph graph, int products, int categories, IntUnaryOperator degreeOf,
+            long nodeBytes, long edgeBytes) {
+        int edgeCount = 0;
+        long[] degrees = new long[Integer.SIZE + 1];
+        for (int ordinal = 0; ordinal < products + categories; ordinal++) {
+            int degree = degreeOf.applyAsInt(ordinal);
+            edgeCount += degree;
+            degrees[degreeBucket(degree)]++;
+        }
+
+        Map<String, Long> structures = new LinkedHashMap<>();
+        structures.put("mapped nodes", nodeBytes);
+        structures.put("mapped edges", edgeBytes);
+        putSharedStructures(structures, graph);
+        return new MemoryFootprint(products, categories, edgeCount, structures, edgeBytes, degrees);
+    }
+
+    /**
+     * Returns the estimated number of bytes retained by the graph in total.
+     *
+     * @return the estimated total bytes
+     */
+    public long getTotalBytes() {
+        long total = 0;
+        for (long bytes : this.structures.values()) {
+            total += bytes;
+        }
+        return total;
+    }
+
+    /**
+     * Formats the estimate as a table of the estimated bytes of every structure
+     * and its share of the total, followed by the average bytes per node and per
+     * edge and the number of nodes per range of outgoing edges. The bytes per
+     * edge are the edge objects, their entries in the edge index and their
+     * references in the edge arrays, or the sections of a mapped file holding the
+     * edges. All other bytes are charged to the nodes.
+     *
+     * @return the formatted estimate
+     */
+    public String format() {
+        int nodes = this.products + this.categories;
+        long total = getTotalBytes();
+        StringBuilder builder = new StringBuilder(String.format(Locale.ROOT, SUMMARY_FORMAT, nodes, this.products,
+                this.categories, this.edges));
+        for (Map.Entry<String, Long> structure : this.structures.entrySet()) {
+            builder.append(String.format(Locale.ROOT, ROW_FORMAT, structure.getKey(), structure.getValue(),
+                    100.0 * structure.getValue() / total));
+        }
+
+        builder.append(String.format(Locale.ROOT, TOTAL_FORMAT, TOTAL, total, average(total - this.edgeBytes, nodes),
+                average(this.edgeBytes, this.edges)));
+        for (int bucket = 0; bucket < this.degrees.length; bucket++) {
+            if (this.degrees[bucket] > 0) {
+                builder.append(String.format(Locale.ROOT, DEGREE_FORMAT, degreeRange(bucket), this.degrees[bucket]));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the size of an object with the given bytes of fields.
+     *
+     * @param fieldBytes the total size of the fields
+     * @return the aligned size of the object
+     */
+    static long objectBytes(int fieldBytes) {
+        return align(OBJECT_HEADER + (long) fieldBytes);
+    }
+
+    /**
+     * Returns the size of an array of the given length.
+     *
+     * @param length       the length of the array
+     * @param elementBytes the size of an element
+     * @return the aligned size of the array
+     */
+    static long arrayBytes(int length, int elementBytes) {
+        return align(ARRAY_HEADER + (long) length * elementBytes);
+    }
+
+    /**
+     * Returns the size of a hash map with the given number of entries, including
+     * its table and entries but not its keys and values. This also estimates a
+     * concurrent hash map, whose entries have the same size.
+     *
+     * @param size the number of entries
+     * @return the estimated size of the map
+     */
+    static long hashMapBytes(int size) {
+        int capacity = SMALLEST_TABLE;
+        while (size > capacity * LOAD_FACTOR) {
+            capacity *= 2;
+        }
+        return HASH_MAP + arrayBytes(capacity, REFERENCE) + size * HASH_ENTRY;
+    }
+
+    /**
+     * Returns the size of an unmodifiable hash set with the given number of
+     * elements, not including the elements.
+     *
+     * @param size the number of elements
+     * @return the estimated size of the set
+     */
+    static long hashSetBytes(int size) {
+        return 2 * SET_WRAPPER + hashMapBytes(size);
+    }
+
+    /**
+     * Returns the size of the box of the given int, which is zero for the values
+     * cached by {@link Integer#valueOf(int)}.
+     *
+     * @param value the boxed value
+     * @return the size of the box
+     */
+    static long integerBytes(int value) {
+        return value >= MIN_CACHED_INTEGER && value <= MAX_CACHED_INTEGER ? 0 : INTEGER_BOX;
+    }
+
+    private static void putSharedStructures(Map<String, Long> structures, Graph graph) {
+        structures.put("part closures", graph.getPartClosures().estimateBytes());
+        structures.put("category tree", graph.getCategoryTree().estimateBytes());
+        structures.put("node ordinals", graph.getNodeOrdinals().estimateBytes());
+    }
+
+    private static int degreeBucket(int degree) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(degree);
+    }
+
+    private static long trieBytes(int size) {
+        // Every slot of a trie level holding at least two hashes needs an inner node
+        double innerNodes = 1;
+        for (double slots = TRIE_FANOUT; slots <= MAX_HASHES; slots *= TRIE_FANOUT) {
+            double hashesPerSlot = size / slots;
+            innerNodes += slots * (-Math.expm1(-hashesPerSlot) - hashesPerSlot * Math.exp(-hashesPerSlot));
+        }
+        long references = Math.round(size + innerNodes - 1);
+        return size * TRIE_LEAF + Math.round(innerNodes * TRIE_NODE) + references * REFERENCE;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static double average(long bytes, int count) {
+        return count == 0 ? 0 : (double) bytes / count;
+    }
+
+    private static String degreeRange(int bucket) {
+        if (bucket <= 1) {
+            return String.valueOf(bucket);
+        }
+        long lowest = 1L << (bucket - 1);
+        return String.format(Locale.ROOT, DEGREE_RANGE, lowest, 2 * lowest - 1);
+    }
+}
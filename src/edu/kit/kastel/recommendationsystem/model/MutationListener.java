@@ -0,0 +1,26 @@
+package edu.kit.kastel.recommendationsystem.model;
+
+/**
+ * Listens for successful mutations of a {@link Graph}. The listener is notified
+ * after the graph has been changed, one mutation at a time and in the order the
+ * mutations were applied.
+ * 
+ * @author urrwg
+ */
+public interface MutationListener {
+
+    /**
+     * Called after a relationship (and its reverse) has been added to the graph.
+     * 
+     * @param relationship the added relationship
+     */
+    void relationshipAdded(RelationshipDTO relationship);
+
+    /**
+     * Called after a relationship (and its reverse) has been removed from the
+     * graph.
+     * 
+     * @param relationship the removed relationship
+     */
+    void relationshipRemoved(RelationshipDTO relationship);
+}
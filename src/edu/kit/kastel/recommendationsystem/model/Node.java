@@ -1,42 +1,75 @@
 package edu.kit.kastel.recommendationsystem.model;
 
-import java.util.Set;
-import java.util.HashSet;
-import java.util.Objects;
-import java.util.Collections;
-
 /**
  * Represents a node in the recommendation system graph.
- * A node can be either a product or a category.
+ * A node can be either a product or a category. The name of a node is only
+ * held as its symbol in the {@link SymbolTable} of its graph, so names of the
+ * same graph are compared by their symbols.
  * 
  * @author urrwg
  */
 public abstract class Node {
 
-    protected final String name;
+    private static final int HASH_MULTIPLIER = 31;
+
+    protected final SymbolTable symbols;
+    protected final int symbol;
     protected final NodeType type;
 
-    private Set<Edge> edges;
+    private NodeOrdinals.Ordinal ordinal;
 
     /**
-     * Constructs a new node with the specified name and type.
+     * Constructs a new node with the specified name and type, interning the name
+     * in the given table.
      *
-     * @param name the name of the node
-     * @param type the type of the node (product or category)
+     * @param symbols the table of the names of the graph the node belongs to
+     * @param name    the name of the node
+     * @param type    the type of the node (product or category)
      */
-    public Node(String name, NodeType type) {
-        this.name = name.toLowerCase();
+    protected Node(SymbolTable symbols, String name, NodeType type) {
+        this(symbols, symbols.intern(name), type);
+    }
+
+    /**
+     * Constructs a new node with the name of the specified symbol and the
+     * specified type.
+     *
+     * @param symbols the table of the names of the graph the node belongs to
+     * @param symbol  the symbol of the name of the node in the table
+     * @param type    the type of the node (product or category)
+     */
+    protected Node(SymbolTable symbols, int symbol, NodeType type) {
+        this.symbols = symbols;
+        this.symbol = symbol;
         this.type = type;
-        this.edges = new HashSet<>();
     }
 
     /**
-     * Returns the name of the node.
+     * Returns the name of the node, which is created from the
+     * {@link SymbolTable} on every call.
      *
      * @return the name of the node
      */
     public String getName() {
-        return this.name;
+        return this.symbols.nameOf(this.symbol);
+    }
+
+    /**
+     * Returns the table holding the name of the node.
+     *
+     * @return the table of the names of the graph the node belongs to
+     */
+    public SymbolTable getSymbols() {
+        return this.symbols;
+    }
+
+    /**
+     * Returns the symbol of the name of the node in its {@link SymbolTable}.
+     *
+     * @return the symbol of the name
+     */
+    public int getSymbol() {
+        return this.symbol;
     }
 
     /**
@@ -51,30 +84,23 @@ public boolean isOfType(NodeType type) {
     }
 
     /**
-     * Returns an unmodifiable view of the edges connected to this node.
-     *
-     * @return the set of edges
-     */
-    public Set<Edge> getEdges() {
-        return Collections.unmodifiableSet(this.edges);
-    }
-
-    /**
-     * Adds a new edge to this node.
+     * Returns the ordinal last cached by {@link NodeOrdinals}. Since the ordinal
+     * is immutable, it may be cached and read by different threads without
+     * synchronization.
      *
-     * @param newEdge the edge to add
+     * @return the cached ordinal, or {@code null} if none is cached
      */
-    public void addEdge(Edge newEdge) {
-        this.edges.add(newEdge);
+    NodeOrdinals.Ordinal getCachedOrdinal() {
+        return this.ordinal;
     }
 
     /**
-     * Removes an edge from this node.
+     * Caches the given ordinal of this node, see {@link #getCachedOrdinal()}.
      *
-     * @param removedEdge the edge to remove
+     * @param ordinal the ordinal to cache
      */
-    public void removeEdge(Edge removedEdge) {
-        this.edges.remove(removedEdge);
+    void cacheOrdinal(NodeOrdinals.Ordinal ordinal) {
+        this.ordinal = ordinal;
     }
 
     /**
@@ -88,16 +114,16 @@ public boolean equals(Object object) {
         if (!(object instanceof Node node)) {
             return false;
         }
-        return name.equals(node.name) && this.type.equals(node.type);
+        return this.type == node.type && SymbolTable.equalNames(this.symbols, this.symbol, node.symbols, node.symbol);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.name, this.type);
+        return HASH_MULTIPLIER * this.symbols.hashOf(this.symbol) + this.type.ordinal();
     }
 
     @Override
     public String toString() {
-        return this.name;
+        return getName();
     }
 }
\ No newline at end of file
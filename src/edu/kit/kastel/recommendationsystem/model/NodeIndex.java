@@ -0,0 +1,142 @@
+package edu.kit.kastel.recommendationsystem.model;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Collection;
+
+import edu.kit.kastel.recommendationsystem.util.collections.PersistentMap;
+
+/**
+ * The immutable index of the nodes of a {@link GraphVersion} by the symbol of
+ * their name in the {@link SymbolTable} of the graph and, for products, by
+ * their id. Like the version, an index shares all unchanged parts with the
+ * index it was derived from. Nodes whose name is held by another table are
+ * indexed by the symbol of their name in the table of the graph.
+ *
+ * @author urrwg
+ */
+final class NodeIndex {
+
+    private final SymbolTable symbols;
+    private final PersistentMap<Integer, Node> products;
+    private final PersistentMap<Integer, Node> names;
+
+    private NodeIndex(SymbolTable symbols, PersistentMap<Integer, Node> products, PersistentMap<Integer, Node> names) {
+        this.symbols = symbols;
+        this.products = products;
+        this.names = names;
+    }
+
+    /**
+     * Creates an index of the given nodes. Of several nodes with the same name or
+     * id, only the first one is indexed.
+     *
+     * @param symbols the table of the names of the graph
+     * @param nodes   the nodes to index
+     * @return the new index
+     */
+    static NodeIndex of(SymbolTable symbols, Collection<Node> nodes) {
+        return new NodeIndex(symbols, PersistentMap.empty(), PersistentMap.empty()).with(nodes);
+    }
+
+    /**
+     * Returns the table of the names of the graph.
+     *
+     * @return the table of the names
+     */
+    SymbolTable getSymbols() {
+        return this.symbols;
+    }
+
+    /**
+     * Returns the number of indexed products.
+     *
+     * @return the number of products
+     */
+    int getProductCount() {
+        return this.products.size();
+    }
+
+    /**
+     * Finds a product by its id.
+     *
+     * @param productId the id of the product
+     * @return the product, or {@code null} if no such product is indexed
+     */
+    Node findProduct(int productId) {
+        return this.products.get(productId);
+    }
+
+    /**
+     * Finds the node whose name has the given symbol in the table of the graph.
+     *
+     * @param symbol the symbol of the name
+     * @return the node, or {@code null} if no such node is indexed
+     */
+    Node findBySymbol(int symbol) {
+        return this.names.get(symbol);
+    }
+
+    /**
+     * Finds the node with the same name as the given node, which may be held by
+     * another table.
+     *
+     * @param node the node whose namesake is searched
+     * @return the indexed node with the same name, or {@code null} if there is none
+     */
+    Node findNamesake(Node node) {
+        int symbol = symbolOf(node);
+        return symbol == SymbolTable.NO_SYMBOL ? null : this.names.get(symbol);
+    }
+
+    /**
+     * Returns an index which additionally holds the given nodes, unless their name
+     * or id is indexed already.
+     *
+     * @param addedNodes the nodes to add
+     * @return the new index, or this index if no node was added
+     */
+    NodeIndex with(Collection<Node> addedNodes) {
+        Map<Integer, Node> newProducts = new HashMap<>();
+        Map<Integer, Node> newNames = new HashMap<>();
+        for (Node node : addedNodes) {
+            int symbol = node.getSymbols() == this.symbols ? node.getSymbol() : this.symbols.intern(node.getName());
+            if (!this.names.containsKey(symbol)) {
+                newNames.putIfAbsent(symbol, node);
+            }
+            if (node instanceof Product product && !this.products.containsKey(product.getId())) {
+                newProducts.putIfAbsent(product.getId(), node);
+            }
+        }
+        if (newNames.isEmpty() && newProducts.isEmpty()) {
+            return this;
+        }
+        return new NodeIndex(this.symbols, this.products.putAll(newProducts), this.names.putAll(newNames));
+    }
+
+    /**
+     * Returns an index without the given nodes. A name or id indexing another node
+     * than the removed one is kept.
+     *
+     * @param removedNodes the nodes to remove
+     * @return the new index
+     */
+    NodeIndex without(Collection<Node> removedNodes) {
+        PersistentMap<Integer, Node> newProducts = this.products;
+        PersistentMap<Integer, Node> newNames = this.names;
+        for (Node node : removedNodes) {
+            if (node instanceof Product product && node.equals(newProducts.get(product.getId()))) {
+                newProducts = newProducts.remove(product.getId());
+            }
+            int symbol = symbolOf(node);
+            if (symbol != SymbolTable.NO_SYMBOL && node.equals(newNames.get(symbol))) {
+                newNames = newNames.remove(symbol);
+            }
+        }
+        return new NodeIndex(this.symbols, newProducts, newNames);
+    }
+
+    private int symbolOf(Node node) {
+        return node.getSymbols() == this.symbols ? node.getSymbol() : this.symbols.lookup(node.getName());
+    }
+}
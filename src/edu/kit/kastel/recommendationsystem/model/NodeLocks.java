@@ -0,0 +1,77 @@
+package edu.kit.kastel.recommendationsystem.model;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The striped locks guarding the nodes of a {@link Graph}. Every node belongs
+ * to one of {@value #STRIPES} stripes, and a set of stripes is represented by
+ * a bit mask, so the stripes of all nodes touched by a mutation can be
+ * combined cheaply and are always locked in ascending order. That way no two
+ * mutations wait for each other crosswise.
+ * 
+ * @author urrwg
+ */
+final class NodeLocks {
+
+    /**
+     * The number of stripes.
+     */
+    static final int STRIPES = Long.SIZE;
+
+    /**
+     * The bit mask of all stripes.
+     */
+    static final long ALL_STRIPES = -1L;
+
+    private final Lock[] locks = new Lock[STRIPES];
+
+    /**
+     * Constructs a new set of unlocked stripes.
+     */
+    NodeLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            this.locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns the bit mask of the stripe the given node belongs to.
+     * 
+     * @param node the node
+     * @return the bit mask with the single bit of the stripe of the node
+     */
+    static long stripeOf(Node node) {
+        int hash = node.hashCode();
+        return 1L << ((hash ^ (hash >>> 16)) & (STRIPES - 1));
+    }
+
+    /**
+     * Locks the given stripes in ascending order, blocking until all of them are
+     * held.
+     * 
+     * @param stripes the bit mask of the stripes to lock
+     * @return the locked locks, to be released with {@link #unlock(Lock[])}
+     */
+    Lock[] lock(long stripes) {
+        Lock[] lockedLocks = new Lock[Long.bitCount(stripes)];
+        long remaining = stripes;
+        for (int i = 0; i < lockedLocks.length; i++) {
+            lockedLocks[i] = this.locks[Long.numberOfTrailingZeros(remaining)];
+            lockedLocks[i].lock();
+            remaining &= remaining - 1;
+        }
+        return lockedLocks;
+    }
+
+    /**
+     * Releases the given locks in the reverse order of locking.
+     * 
+     * @param lockedLocks the locks returned by {@link #lock(long)}
+     */
+    static void unlock(Lock[] lockedLocks) {
+        for (int i = lockedLocks.length - 1; i >= 0; i--) {
+            lockedLocks[i].unlock();
+        }
+    }
+}
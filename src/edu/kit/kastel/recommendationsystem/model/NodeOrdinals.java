@@ -0,0 +1,91 @@
+package edu.kit.kastel.recommendationsystem.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Assigns dense int ordinals to the nodes of a {@link Graph}, so traversals
+ * can track their nodes in primitive arrays. Equal nodes get the same ordinal,
+ * and the ordinal of a node never changes for the same instance of the
+ * ordinals, so a traversal keeps the instance it started with.
+ * <p>
+ * The ordinal of a node is cached in the node itself, so looking it up again
+ * only reads a field. The cache only holds the id of the ordinals it belongs
+ * to, so nodes do not keep replaced ordinals reachable. How ordinals are
+ * assigned is up to the subclasses: a graph in the heap assigns them on demand,
+ * see {@link AssignedOrdinals}, while a graph read from a file can use the
+ * positions of the nodes in the file.
+ * </p>
+ *
+ * @author urrwg
+ */
+public abstract class NodeOrdinals {
+
+    private static final AtomicLong OWNERS = new AtomicLong();
+
+    private final long owner = OWNERS.incrementAndGet();
+
+    /**
+     * Returns the ordinal of the given node, looking it up with
+     * {@link #findOrdinal(Node)} if it is not cached in the node yet.
+     *
+     * @param node the node
+     * @return the ordinal of the node
+     */
+    protected final int ordinalOf(Node node) {
+        Ordinal cached = node.getCachedOrdinal();
+        if (cached != null && cached.owner() == this.owner) {
+            return cached.value();
+        }
+        int value = findOrdinal(node);
+        node.cacheOrdinal(new Ordinal(this.owner, value));
+        return value;
+    }
+
+    /**
+     * Caches the given ordinal in the given node, for subclasses which know the
+     * ordinal of a node when they create it.
+     *
+     * @param node    the node
+     * @param ordinal the ordinal of the node
+     * @return the given node
+     */
+    protected final Node withOrdinal(Node node, int ordinal) {
+        node.cacheOrdinal(new Ordinal(this.owner, ordinal));
+        return node;
+    }
+
+    /**
+     * Returns the ordinal of the given node, which is not cached in the node.
+     *
+     * @param node the node
+     * @return the ordinal of the node
+     */
+    protected abstract int findOrdinal(Node node);
+
+    /**
+     * Returns the node with the given ordinal, which has to be returned by
+     * {@link #ordinalOf(Node)} before.
+     *
+     * @param ordinal the ordinal
+     * @return the node with the ordinal
+     */
+    protected abstract Node nodeAt(int ordinal);
+
+    /**
+     * Returns the estimated number of bytes retained by the ordinals, see
+     * {@link MemoryFootprint}.
+     *
+     * @return the estimated size of the ordinals
+     */
+    protected abstract long estimateBytes();
+
+    /**
+     * The ordinal of a node together with the id of the ordinals it was assigned
+     * by, since a node may be traversed in several graphs.
+     *
+     * @param owner the id of the ordinals which assigned the ordinal
+     * @param value the ordinal
+     */
+    record Ordinal(long owner, int value) {
+    }
+}
@@ -0,0 +1,138 @@
+package edu.kit.kastel.recommendationsystem.model;
+
+import java.util.Set;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * The scratch space of the breadth-first searches of the
+ * {@link RecommendationStrategy recommendation strategies}. The nodes are
+ * tracked by their {@link NodeOrdinals ordinals}: the queue is a ring buffer
+ * of ordinals, and a node is visited if its slot of the visited array holds
+ * the epoch of the current search. Starting a search only increments the
+ * epoch, so the arrays are never cleared.
+ * <p>
+ * Every thread has its own scratch space, which is reused by all of its
+ * searches and only grows to the largest ordinal seen. A search therefore
+ * allocates nothing but its result once the arrays are large enough.
+ * </p>
+ *
+ * @author urrwg
+ */
+final class OrdinalTraversal {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final ThreadLocal<OrdinalTraversal> SCRATCH = ThreadLocal.withInitial(OrdinalTraversal::new);
+
+    private int[] queue = new int[INITIAL_CAPACITY];
+    private int head;
+    private int queued;
+    private int[] visitedEpochs = new int[INITIAL_CAPACITY];
+    private int epoch;
+    private int visitedCount;
+
+    private OrdinalTraversal() {
+        // Instances are only created per thread by current()
+    }
+
+    /**
+     * Returns the scratch space of the calling thread.
+     *
+     * @return the scratch space of the calling thread
+     */
+    static OrdinalTraversal current() {
+        return SCRATCH.get();
+    }
+
+    /**
+     * Searches the products connected to the start node via the given
+     * relationship, one generation after another, and stops as soon as the
+     * maximum depth or the maximum number of results is reached.
+     *
+     * @param startNode    the starting node for the traversal
+     * @param graph        the graph containing the nodes and edges
+     * @param relationship the relationship type to traverse
+     * @param bounds       the bounds of the search
+     * @return a modifiable set of the products found
+     */
+    Set<Node> traverse(Node startNode, Graph graph, RelationshipType relationship, TraversalBounds bounds) {
+        NodeOrdinals ordinals = graph.getNodeOrdinals();
+        Set<Node> result = new HashSet<>();
+        startSearch();
+        int startOrdinal = ordinals.ordinalOf(startNode);
+        visit(startOrdinal);
+        offer(startOrdinal);
+
+        int depth = 0;
+        while (this.queued > 0 && depth < bounds.maxDepth() && result.size() < bounds.maxResults()) {
+            depth++;
+            for (int generationSize = this.queued; generationSize > 0 && result.size() < bounds.maxResults(); generationSize--) {
+                for (Edge edge : graph.edgesOf(ordinals.nodeAt(poll()))) {
+                    Node neighbor = edge.getEndNode();
+                    if (result.size() < bounds.maxResults() && edge.getRelationship() == relationship
+                            && neighbor.isOfType(NodeType.PRODUCT)) {
+                        int ordinal = ordinals.ordinalOf(neighbor);
+                        if (visit(ordinal)) {
+                            offer(ordinal);
+                            result.add(neighbor);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of nodes visited by the last search, including its start
+     * node.
+     *
+     * @return the number of visited nodes
+     */
+    int visitedCount() {
+        return this.visitedCount;
+    }
+
+    private void startSearch() {
+        this.head = 0;
+        this.queued = 0;
+        this.visitedCount = 0;
+        if (++this.epoch == 0) {
+            // After an overflow the stamps of earlier searches could match again
+            Arrays.fill(this.visitedEpochs, 0);
+            this.epoch = 1;
+        }
+    }
+
+    private boolean visit(int ordinal) {
+        if (ordinal >= this.visitedEpochs.length) {
+            this.visitedEpochs = Arrays.copyOf(this.visitedEpochs, Math.max(this.visitedEpochs.length * 2, ordinal + 1));
+        }
+        if (this.visitedEpochs[ordinal] == this.epoch) {
+            return false;
+        }
+        this.visitedEpochs[ordinal] = this.epoch;
+        this.visitedCount++;
+        return true;
+    }
+
+    private void offer(int ordinal) {
+        if (this.queued == this.queue.length) {
+            int[] grownQueue = new int[this.queue.length * 2];
+            for (int i = 0; i < this.queued; i++) {
+                grownQueue[i] = this.queue[(this.head + i) & (this.queue.length - 1)];
+            }
+            this.queue = grownQueue;
+            this.head = 0;
+        }
+        this.queue[(this.head + this.queued) & (this.queue.length - 1)] = ordinal;
+        this.queued++;
+    }
+
+    private int poll() {
+        int ordinal = this.queue[this.head];
+        this.head = (this.head + 1) & (this.queue.length - 1);
+        this.queued--;
+        return ordinal;
+    }
+}
@@ -0,0 +1,140 @@
+package edu.kit.kastel.recommendationsystem.model;
+
+import java.util.Set;
+import java.util.Map;
+import java.util.List;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memoizes the transitive closures of the part hierarchy of a {@link Graph}:
+ * the components of an assembly and the assemblies containing a component. The
+ * memo is shared by a graph and its snapshots.
+ * <p>
+ * Every version of a graph assigns a part stamp to each node, which changes
+ * whenever a part relationship is added to or removed from the closure of the
+ * node, see {@link HierarchyIndex#getPartStamp(Node)}. A changed part
+ * relationship thus invalidates the memoized closures along the ancestor paths
+ * of its assembly and the descendant paths of its component. A memoized
+ * closure is only used while the stamp it was computed with is the stamp of
+ * its node, so readers of older versions never see closures of newer ones and
+ * vice versa.
+ * </p>
+ * <p>
+ * Closures of removed nodes and closures whose stamp is outdated are evicted
+ * once the memo has doubled since the last eviction, so the memo stays
+ * proportional to the closures still in use while every lookup only pays a
+ * constant share of the evictions.
+ * </p>
+ * 
+ * @author urrwg
+ */
+public final class PartClosures {
+
+    private static final long CLOSURE_BYTES = MemoryFootprint.objectBytes(Long.BYTES + MemoryFootprint.REFERENCE);
+    private static final int MIN_EVICTION_SIZE = 64;
+
+    private final Map<Node, Closure> components = new ConcurrentHashMap<>();
+    private final Map<Node, Closure> assemblies = new ConcurrentHashMap<>();
+    private volatile int evictionSize = MIN_EVICTION_SIZE;
+
+    /**
+     * Returns all products which are directly or indirectly a part of the given
+     * node.
+     * 
+     * @param node  the assembly
+     * @param graph the graph to search, which should be pinned to a version
+     * @return an unmodifiable set of the components
+     */
+    public Set<Node> findComponents(Node node, Graph graph) {
+        Set<Node> closure = findClosure(node, graph, RelationshipType.HAS_PART, this.components);
+        evictIfGrown(graph);
+        return closure;
+    }
+
+    /**
+     * Returns all products which the given node is directly or indirectly a part
+     * of.
+     * 
+     * @param node  the component
+     * @param graph the graph to search, which should be pinned to a version
+     * @return an unmodifiable set of the assemblies
+     */
+    public Set<Node> findAssemblies(Node node, Graph graph) {
+        Set<Node> closure = findClosure(node, graph, RelationshipType.PART_OF, this.assemblies);
+        evictIfGrown(graph);
+        return closure;
+    }
+
+    /**
+     * Returns the estimated number of bytes retained by the memoized closures,
+     * not including their nodes, see {@link MemoryFootprint}.
+     *
+     * @return the estimated size of the memo
+     */
+    long estimateBytes() {
+        long bytes = 0;
+        for (Map<Node, Closure> memo : List.of(this.components, this.assemblies)) {
+            bytes += MemoryFootprint.hashMapBytes(memo.size());
+            for (Closure closure : memo.values()) {
+                bytes += CLOSURE_BYTES + MemoryFootprint.hashSetBytes(closure.nodes().size());
+            }
+        }
+        return bytes;
+    }
+
+    private void evictIfGrown(Graph graph) {
+        if (this.components.size() + this.assemblies.size() < this.evictionSize) {
+            return;
+        }
+        synchronized (this) {
+            if (this.components.size() + this.assemblies.size() < this.evictionSize) {
+                return;
+            }
+            HierarchyIndex stamps = graph.getHierarchies();
+            for (Map<Node, Closure> memo : List.of(this.components, this.assemblies)) {
+                // Nodes without edges are removed, and their closures would be empty anyway
+                memo.entrySet().removeIf(entry -> entry.getValue().stamp() != stamps.getPartStamp(entry.getKey())
+                        || graph.edgesOf(entry.getKey()).length == 0);
+            }
+            this.evictionSize = Math.max(MIN_EVICTION_SIZE, 2 * (this.components.size() + this.assemblies.size()));
+        }
+    }
+
+    private static Set<Node> findClosure(Node node, Graph graph, RelationshipType relationship, Map<Node, Closure> memo) {
+        HierarchyIndex stamps = graph.getHierarchies();
+        long stamp = stamps.getPartStamp(node);
+        Closure memoized = memo.get(node);
+        if (memoized != null && memoized.stamp() == stamp) {
+            return memoized.nodes();
+        }
+
+        // Nodes with a valid memoized closure are not expanded again
+        Set<Node> closure = new HashSet<>();
+        Deque<Node> stack = new ArrayDeque<>(List.of(node));
+        while (!stack.isEmpty()) {
+            for (Node neighbor : graph.getNeighbors(stack.pop(), relationship)) {
+                if (!neighbor.isOfType(NodeType.PRODUCT) || neighbor.equals(node) || !closure.add(neighbor)) {
+                    continue;
+                }
+                Closure neighborClosure = memo.get(neighbor);
+                if (neighborClosure != null && neighborClosure.stamp() == stamps.getPartStamp(neighbor)) {
+                    closure.addAll(neighborClosure.nodes());
+                } else {
+                    stack.push(neighbor);
+                }
+            }
+        }
+        closure.remove(node);
+
+        Set<Node> nodes = Collections.unmodifiableSet(closure);
+        memo.put(node, new Closure(stamp, nodes));
+        return nodes;
+    }
+
+    private record Closure(long stamp, Set<Node> nodes) {
+    }
+}
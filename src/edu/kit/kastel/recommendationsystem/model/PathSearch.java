@@ -0,0 +1,163 @@
+package edu.kit.kastel.recommendationsystem.model;
+
+import java.util.Map;
+import java.util.List;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import edu.kit.kastel.recommendationsystem.util.metrics.TraversalEvent;
+
+/**
+ * Finds the shortest chain of relationships between two nodes of a graph. Every
+ * edge of a chain has the same relationship type, so the chain is monotone: on
+ * a chain of successor-of edges every node is a successor of the node before
+ * it, while mixing a type with its reverse could step back and forth. Each type
+ * is searched by a bidirectional breadth-first search: one frontier follows the
+ * type from the start node and one follows its reverse from the target node,
+ * always expanding the smaller one by a whole generation, and the search stops
+ * as soon as the frontiers meet. The number of visited nodes therefore depends
+ * on the length of the chain, not on the size of the closure of the start node.
+ * 
+ * @author urrwg
+ */
+public final class PathSearch {
+
+    private static final String PATH_STRATEGY = "PATH";
+    private static final int NO_PRODUCT_ID = -1;
+
+    private PathSearch() {
+        // This is a utility class
+    }
+
+    /**
+     * Finds a shortest chain of edges leading from the start node to the target
+     * node whose edges all have one of the given relationship types. Among chains
+     * of the same length, the chain of the type given first is returned. The
+     * search of a type stops as soon as it can not find a shorter chain than the
+     * types before it.
+     * 
+     * @param start         the node the chain starts at
+     * @param target        the node the chain ends at
+     * @param graph         the graph containing the nodes and edges
+     * @param relationships the relationship types a chain may consist of, in the
+     *                      order of their preference
+     * @return the edges of the chain in order, empty if the start node is the
+     *         target node, or {@code null} if there is no such chain
+     */
+    public static List<Edge> findShortestPath(Node start, Node target, Graph graph, List<RelationshipType> relationships) {
+        TraversalEvent event = new TraversalEvent();
+        event.begin();
+        List<Edge> shortest = null;
+        int visitedNodes = 0;
+        for (RelationshipType relationship : relationships) {
+            DirectedSearch search = new DirectedSearch(graph, relationship);
+            List<Edge> path = search.run(start, target, shortest == null ? Integer.MAX_VALUE : shortest.size() - 1);
+            visitedNodes += search.visitedNodes();
+            if (path != null) {
+                shortest = path;
+            }
+        }
+
+        if (event.shouldCommit()) {
+            event.commit(PATH_STRATEGY, productId(start), visitedNodes, shortest == null ? 0 : shortest.size());
+        }
+        return shortest;
+    }
+
+    private static int productId(Node node) {
+        return node.isOfType(NodeType.PRODUCT) ? ((Product) node).getId() : NO_PRODUCT_ID;
+    }
+
+    /**
+     * The bidirectional search for a chain of one relationship type. Every
+     * reached node is mapped to the edge it was reached by, in the direction of
+     * the chain: from the start towards the target.
+     */
+    private static final class DirectedSearch {
+
+        private final Graph graph;
+        private final RelationshipType relationship;
+        private final Map<Node, Edge> forwardEdges = new HashMap<>();
+        private final Map<Node, Edge> backwardEdges = new HashMap<>();
+
+        DirectedSearch(Graph graph, RelationshipType relationship) {
+            this.graph = graph;
+            this.relationship = relationship;
+        }
+
+        /**
+         * Searches a shortest chain which is at most as long as the given length.
+         * 
+         * @return the edges of the chain in order, or {@code null} if there is no
+         *         such chain
+         */
+        List<Edge> run(Node start, Node target, int maxLength) {
+            if (maxLength < 0) {
+                return null;
+            }
+            this.forwardEdges.put(start, null);
+            this.backwardEdges.put(target, null);
+            List<Node> forwardFrontier = List.of(start);
+            List<Node> backwardFrontier = List.of(target);
+            Node meetingNode = start.equals(target) ? start : null;
+
+            // Every generation lengthens the chains the frontiers can still find by one edge
+            for (int length = 0; meetingNode == null && length < maxLength && !forwardFrontier.isEmpty()
+                    && !backwardFrontier.isEmpty(); length++) {
+                List<Node> nextFrontier = new ArrayList<>();
+                if (forwardFrontier.size() <= backwardFrontier.size()) {
+                    meetingNode = expand(forwardFrontier, nextFrontier, false);
+                    forwardFrontier = nextFrontier;
+                } else {
+                    meetingNode = expand(backwardFrontier, nextFrontier, true);
+                    backwardFrontier = nextFrontier;
+                }
+            }
+            return meetingNode == null ? null : joinPath(meetingNode);
+        }
+
+        int visitedNodes() {
+            return this.forwardEdges.size() + this.backwardEdges.size();
+        }
+
+        /**
+         * Expands the given frontier by one generation, following the relationship
+         * type of the chain forwards or its reverse backwards.
+         * 
+         * @return the first newly reached node which was already reached by the
+         *         other frontier, or {@code null} if the frontiers did not meet
+         */
+        private Node expand(List<Node> frontier, List<Node> nextFrontier, boolean backward) {
+            Map<Node, Edge> reachedEdges = backward ? this.backwardEdges : this.forwardEdges;
+            Map<Node, Edge> otherReachedEdges = backward ? this.forwardEdges : this.backwardEdges;
+            RelationshipType followed = backward ? this.relationship.getReverse() : this.relationship;
+            for (Node node : frontier) {
+                for (Edge edge : this.graph.getEdges(node)) {
+                    Node neighbor = edge.getEndNode();
+                    if (edge.getRelationship() != followed || reachedEdges.containsKey(neighbor)) {
+                        continue;
+                    }
+                    reachedEdges.put(neighbor, backward ? new Edge(neighbor, node, this.relationship) : edge);
+                    if (otherReachedEdges.containsKey(neighbor)) {
+                        return neighbor;
+                    }
+                    nextFrontier.add(neighbor);
+                }
+            }
+            return null;
+        }
+
+        private List<Edge> joinPath(Node meetingNode) {
+            List<Edge> path = new ArrayList<>();
+            for (Edge edge = this.forwardEdges.get(meetingNode); edge != null; edge = this.forwardEdges.get(edge.getStartNode())) {
+                path.add(edge);
+            }
+            Collections.reverse(path);
+            for (Edge edge = this.backwardEdges.get(meetingNode); edge != null; edge = this.backwardEdges.get(edge.getEndNode())) {
+                path.add(edge);
+            }
+            return path;
+        }
+    }
+}
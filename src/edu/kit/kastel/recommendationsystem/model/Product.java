@@ -1,7 +1,5 @@
 package edu.kit.kastel.recommendationsystem.model;
 
-import java.util.Objects;
-
 /**
  * Represents a product node in the graph.
  * A product has a unique ID and a name, and it extends the base {@link Node}
@@ -12,17 +10,32 @@
 public class Product extends Node {
 
     private static final String PRODUCT_OUTPUT_FORMAT = "%s:%s";
+    private static final int HASH_MULTIPLIER = 31;
 
     private final int id;
 
     /**
      * Constructs a new product with the specified name and ID.
      *
-     * @param name the name of the product
-     * @param id   the unique identification number (id) of the product
+     * @param symbols the table of the names of the graph the product belongs to
+     * @param name    the name of the product
+     * @param id      the unique identification number (id) of the product
+     */
+    public Product(SymbolTable symbols, String name, int id) {
+        super(symbols, name, NodeType.PRODUCT);
+        this.id = id;
+    }
+
+    /**
+     * Constructs a new product with the name of the specified symbol and the
+     * specified ID.
+     *
+     * @param symbols the table of the names of the graph the product belongs to
+     * @param symbol  the symbol of the name of the product in the table
+     * @param id      the unique identification number (id) of the product
      */
-    public Product(String name, int id) {
-        super(name, NodeType.PRODUCT);
+    public Product(SymbolTable symbols, int symbol, int id) {
+        super(symbols, symbol, NodeType.PRODUCT);
         this.id = id;
     }
 
@@ -37,7 +50,7 @@ public int getId() {
 
     @Override
     public String toString() {
-        return String.format(PRODUCT_OUTPUT_FORMAT, this.name, this.id);
+        return String.format(PRODUCT_OUTPUT_FORMAT, getName(), this.id);
     }
 
     @Override
@@ -49,11 +62,11 @@ public boolean equals(Object object) {
             return false;
         }
         Product product = (Product) object;
-        return this.id == product.id && name.equals(product.name) && this.type.equals(product.type);
+        return this.id == product.id && SymbolTable.equalNames(this.symbols, this.symbol, product.symbols, product.symbol);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.name, this.type, this.id);
+        return HASH_MULTIPLIER * super.hashCode() + this.id;
     }
 }
\ No newline at end of file
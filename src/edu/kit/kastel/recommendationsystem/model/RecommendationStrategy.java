@@ -1,20 +1,28 @@
 package edu.kit.kastel.recommendationsystem.model;
 
 import java.util.Set;
-import java.util.Queue;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.Collections;
 
+import edu.kit.kastel.recommendationsystem.util.metrics.TraversalEvent;
+
 /**
  * Provides recommendation strategies for finding related products in a graph.
- * This class implements three strategies: finding sibling products, successor
- * products, and predecessor products.
+ * This class implements six strategies: finding sibling products, successor
+ * products, predecessor products, component products, assembly products and
+ * the products of a category subtree.
  * 
  * @author urrwg
  */
 public final class RecommendationStrategy {
 
+    private static final String SIBLING_STRATEGY = "S1";
+    private static final String SUCCESSOR_STRATEGY = "S2";
+    private static final String PREDECESSOR_STRATEGY = "S3";
+    private static final String COMPONENT_STRATEGY = "S4";
+    private static final String ASSEMBLY_STRATEGY = "S5";
+    private static final int NO_PRODUCT_ID = -1;
+
     private RecommendationStrategy() {
         // This is a utility class
     }
@@ -29,27 +37,38 @@ private RecommendationStrategy() {
      * @return a set of sibling products, excluding the reference product
      */
     public static Set<Node> findSiblingProducts(Node node, Graph graph) {
-        Set<Node> siblings = new HashSet<>();
+        return findSiblingProducts(node, graph, TraversalBounds.UNBOUNDED);
+    }
 
-        Set<Node> categories = new HashSet<>();
-        for (Edge edge : node.getEdges()) {
-            if (edge.getRelationship() == RelationshipType.CONTAINED_IN) {
-                categories.add(edge.getEndNode());
-            }
-        }
+    /**
+     * Finds at most the given maximum number of sibling products of the given
+     * node, see {@link #findSiblingProducts(Node, Graph)}. Since siblings are
+     * always two relationships away, the maximum depth does not limit them.
+     *
+     * @param node   the reference product node
+     * @param graph  the graph containing the nodes and edges
+     * @param bounds the bounds of the search
+     * @return a set of sibling products, excluding the reference product
+     */
+    public static Set<Node> findSiblingProducts(Node node, Graph graph, TraversalBounds bounds) {
+        TraversalEvent event = new TraversalEvent();
+        event.begin();
+        Set<Node> siblings = new HashSet<>();
+        int nodesVisited = 0;
 
-        for (Node category : categories) {
-            for (Edge edge : graph.getEdges()) {
-                if (edge.getRelationship() == RelationshipType.CONTAINS && edge.getStartNode().equals(category)) {
-                    Node endNode = edge.getEndNode();
-                    if (endNode.isOfType(NodeType.PRODUCT)) {
-                        siblings.add(endNode);
-                    }
+        for (Node category : graph.getNeighbors(node, RelationshipType.CONTAINED_IN)) {
+            for (Node containedNode : graph.getNeighbors(category, RelationshipType.CONTAINS)) {
+                nodesVisited++;
+                if (siblings.size() < bounds.maxResults() && containedNode.isOfType(NodeType.PRODUCT)
+                        && !containedNode.equals(node)) {
+                    siblings.add(containedNode);
                 }
             }
         }
 
-        siblings.remove(node);
+        if (event.shouldCommit()) {
+            event.commit(SIBLING_STRATEGY, productId(node), nodesVisited, siblings.size());
+        }
         return Collections.unmodifiableSet(siblings);
     }
 
@@ -63,7 +82,20 @@ public static Set<Node> findSiblingProducts(Node node, Graph graph) {
      * @return a set of successor products
      */
     public static Set<Node> findSuccessorProducts(Node node, Graph graph) {
-        return traverseRelationship(node, RelationshipType.PREDECESSOR_OF);
+        return findSuccessorProducts(node, graph, TraversalBounds.UNBOUNDED);
+    }
+
+    /**
+     * Finds the successor products of the given node within the given bounds, see
+     * {@link #findSuccessorProducts(Node, Graph)}.
+     *
+     * @param node   the reference product node
+     * @param graph  the graph containing the nodes and edges
+     * @param bounds the bounds of the search
+     * @return a set of successor products
+     */
+    public static Set<Node> findSuccessorProducts(Node node, Graph graph, TraversalBounds bounds) {
+        return traverseRelationship(node, graph, RelationshipType.PREDECESSOR_OF, bounds, SUCCESSOR_STRATEGY);
     }
 
     /**
@@ -76,42 +108,124 @@ public static Set<Node> findSuccessorProducts(Node node, Graph graph) {
      * @return a set of predecessor products
      */
     public static Set<Node> findPredecessorProducts(Node node, Graph graph) {
-        return traverseRelationship(node, RelationshipType.SUCCESSOR_OF);
+        return findPredecessorProducts(node, graph, TraversalBounds.UNBOUNDED);
+    }
+
+    /**
+     * Finds the predecessor products of the given node within the given bounds,
+     * see {@link #findPredecessorProducts(Node, Graph)}.
+     *
+     * @param node   the reference product node
+     * @param graph  the graph containing the nodes and edges
+     * @param bounds the bounds of the search
+     * @return a set of predecessor products
+     */
+    public static Set<Node> findPredecessorProducts(Node node, Graph graph, TraversalBounds bounds) {
+        return traverseRelationship(node, graph, RelationshipType.SUCCESSOR_OF, bounds, PREDECESSOR_STRATEGY);
+    }
+
+    /**
+     * Finds the component products of the given node within the given bounds.
+     * Component products are products that are directly or indirectly connected
+     * via the HAS_PART relationship, i.e. the bill of materials of the reference
+     * product. Without bounds, the memoized closures of the graph are used, so
+     * repeated queries only cost the size of their result.
+     *
+     * @param node   the reference product node
+     * @param graph  the graph containing the nodes and edges
+     * @param bounds the bounds of the search
+     * @return a set of component products
+     */
+    public static Set<Node> findComponentProducts(Node node, Graph graph, TraversalBounds bounds) {
+        if (bounds.equals(TraversalBounds.UNBOUNDED)) {
+            return graph.getPartClosures().findComponents(node, graph.snapshot());
+        }
+        return traverseRelationship(node, graph, RelationshipType.HAS_PART, bounds, COMPONENT_STRATEGY);
+    }
+
+    /**
+     * Finds the assembly products of the given node within the given bounds.
+     * Assembly products are products that are directly or indirectly connected via
+     * the PART_OF relationship, i.e. all products the reference product is built
+     * into. Without bounds, the memoized closures of the graph are used.
+     *
+     * @param node   the reference product node
+     * @param graph  the graph containing the nodes and edges
+     * @param bounds the bounds of the search
+     * @return a set of assembly products
+     */
+    public static Set<Node> findAssemblyProducts(Node node, Graph graph, TraversalBounds bounds) {
+        if (bounds.equals(TraversalBounds.UNBOUNDED)) {
+            return graph.getPartClosures().findAssemblies(node, graph.snapshot());
+        }
+        return traverseRelationship(node, graph, RelationshipType.PART_OF, bounds, ASSEMBLY_STRATEGY);
+    }
+
+    /**
+     * Finds all products in the subtree of the given category, i.e. the products
+     * contained in the category or in any category below it. The subtree is
+     * enumerated with the interval labelling of the category hierarchy of the
+     * graph.
+     *
+     * @param category the category
+     * @param graph    the graph containing the nodes and edges
+     * @return a set of the products in the subtree of the category
+     */
+    public static Set<Node> findCategoryProducts(Node category, Graph graph) {
+        return graph.getCategoryTree().findProducts(category, graph.snapshot());
+    }
+
+    /**
+     * Returns the products of the given nodes which lie in the subtree of the
+     * given category. Every node is checked against the interval labels of the
+     * category hierarchy, so the subtree is not enumerated.
+     *
+     * @param nodes    the nodes to filter
+     * @param category the category
+     * @param graph    the graph containing the nodes and edges
+     * @return a set of the products in the subtree of the category
+     */
+    public static Set<Node> retainCategoryProducts(Set<Node> nodes, Node category, Graph graph) {
+        Graph snapshot = graph.snapshot();
+        Set<Node> products = new HashSet<>();
+        for (Node node : nodes) {
+            if (node.isOfType(NodeType.PRODUCT) && graph.getCategoryTree().isInCategory(node, category, snapshot)) {
+                products.add(node);
+            }
+        }
+        return products;
     }
 
     /**
      * Traverses the graph to find products connected to the start node via the
      * specified relationship.Uses a breadth-first search (BFS) to explore the
-     * graph.
+     * graph one generation after another, which stops as soon as the maximum
+     * depth or the maximum number of results is reached. The search runs on the
+     * reused {@link OrdinalTraversal scratch space} of the calling thread.
      *
      * @param startNode    the starting node for the traversal
      * @param graph        the graph containing the nodes and edges
      * @param relationship the relationship type to traverse
+     * @param bounds       the bounds of the search
+     * @param strategy     the name of the strategy, reported in the
+     *                     {@link TraversalEvent}
      * @return a set of products connected to the startNode node via the specified
      *         relationship
      */
-    private static Set<Node> traverseRelationship(Node startNode, RelationshipType relationship) {
-        Set<Node> result = new HashSet<>();
-        Set<Node> visited = new HashSet<>();
-        Queue<Node> queue = new LinkedList<>();
-
-        queue.add(startNode);
-        visited.add(startNode);
-
-        while (!queue.isEmpty()) {
-            Node currentNode = queue.poll();
-
-            for (Edge edge : currentNode.getEdges()) {
-                if (edge.getRelationship() == relationship) {
-                    Node neighbor = edge.getEndNode();
-                    if (neighbor.isOfType(NodeType.PRODUCT) && !visited.contains(neighbor)) {
-                        visited.add(neighbor);
-                        queue.add(neighbor);
-                        result.add(neighbor);
-                    }
-                }
-            }
+    private static Set<Node> traverseRelationship(Node startNode, Graph graph, RelationshipType relationship,
+            TraversalBounds bounds, String strategy) {
+        TraversalEvent event = new TraversalEvent();
+        event.begin();
+        OrdinalTraversal traversal = OrdinalTraversal.current();
+        Set<Node> result = traversal.traverse(startNode, graph, relationship, bounds);
+
+        if (event.shouldCommit()) {
+            event.commit(strategy, productId(startNode), traversal.visitedCount(), result.size());
         }
         return Collections.unmodifiableSet(result);
     }
+
+    private static int productId(Node node) {
+        return node.isOfType(NodeType.PRODUCT) ? ((Product) node).getId() : NO_PRODUCT_ID;
+    }
 }
@@ -0,0 +1,347 @@
+package edu.kit.kastel.recommendationsystem.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A table of node names, which stores every distinct name once and addresses
+ * it by an int symbol. Names are stored lowercased in one shared byte array,
+ * one byte per character if all characters are Latin-1 and two bytes per
+ * character otherwise. {@link Node Nodes} hold their table and the symbol of
+ * their name, so names of the same table are compared by their symbols.
+ * <p>
+ * Every graph has its own table, which is shared by its versions and
+ * snapshots, so the names of a graph are released together with it. Symbols
+ * are never removed from a table, it therefore grows with the number of
+ * distinct names its graph ever held. Names of different tables are compared
+ * by their characters. Looking up a name does not lock, only interning a new
+ * name does.
+ * </p>
+ *
+ * @author urrwg
+ */
+public final class SymbolTable {
+
+    /**
+     * The symbol returned for names which are not interned.
+     */
+    public static final int NO_SYMBOL = -1;
+
+    private static final int INITIAL_SYMBOLS = 16;
+    private static final int INITIAL_BYTES = 1 << 8;
+    private static final int WIDE = 0x8000_0000;
+    private static final int HASH_MULTIPLIER = 31;
+    private static final int MAX_LATIN1 = 0xFF;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int SYMBOL_BYTES = 5 * Integer.BYTES;
+
+    private final Object lock = new Object();
+
+    // Readers read the count first, which publishes all symbols below it
+    private volatile int count;
+    private volatile byte[] bytes = new byte[INITIAL_BYTES];
+    private volatile int[] starts = new int[INITIAL_SYMBOLS];
+    private volatile int[] ends = new int[INITIAL_SYMBOLS];
+    private volatile int[] hashes = new int[INITIAL_SYMBOLS];
+    private volatile int[] slots = new int[INITIAL_SYMBOLS * 2];
+    private int byteCount;
+
+    /**
+     * Returns the symbol of the given name, interning it if it is new. The name is
+     * lowercased first.
+     *
+     * @param name the name
+     * @return the symbol of the lowercased name
+     */
+    public int intern(String name) {
+        String lowercaseName = name.toLowerCase();
+        return intern(lowercaseName, 0, lowercaseName.length(), hash(lowercaseName, 0, lowercaseName.length()));
+    }
+
+    /**
+     * Returns the symbol of the name between the given indices of the given text,
+     * interning it if it is new, without copying the name out of the text first
+     * unless it has to be lowercased.
+     *
+     * @param text  the text containing the name
+     * @param start the index of the first character of the name
+     * @param end   the index after the last character of the name
+     * @return the symbol of the lowercased name
+     */
+    public int intern(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char character = text.charAt(i);
+            if (character > Byte.MAX_VALUE || Character.isUpperCase(character)) {
+                return intern(text.subSequence(start, end).toString());
+            }
+        }
+        return intern(text, start, end, hash(text, start, end));
+    }
+
+    /**
+     * Returns the symbol of the given name without interning it.
+     *
+     * @param name the name
+     * @return the symbol of the lowercased name, or {@link #NO_SYMBOL} if the name
+     *         was never interned
+     */
+    public int lookup(String name) {
+        String lowercaseName = name.toLowerCase();
+        int symbol = find(lowercaseName, 0, lowercaseName.length(), hash(lowercaseName, 0, lowercaseName.length()));
+        if (symbol != NO_SYMBOL) {
+            return symbol;
+        }
+        synchronized (this.lock) {
+            return find(lowercaseName, 0, lowercaseName.length(), hash(lowercaseName, 0, lowercaseName.length()));
+        }
+    }
+
+    /**
+     * Returns the name of the given symbol.
+     *
+     * @param symbol the symbol
+     * @return the lowercased name
+     */
+    public String nameOf(int symbol) {
+        if (symbol >= this.count) {
+            // The symbol was published without the table, so the lock publishes it
+            synchronized (this.lock) {
+                return decode(symbol);
+            }
+        }
+        return decode(symbol);
+    }
+
+    /**
+     * Returns the hash of the name of the given symbol, which equals
+     * {@link String#hashCode()} of the lowercased name and therefore does not
+     * depend on the table.
+     *
+     * @param symbol the symbol
+     * @return the hash of the name
+     */
+    public int hashOf(int symbol) {
+        if (symbol >= this.count) {
+            synchronized (this.lock) {
+                return this.hashes[symbol];
+            }
+        }
+        return this.hashes[symbol];
+    }
+
+    /**
+     * Compares the names of the given symbols of the given tables like
+     * {@link String#compareToIgnoreCase(String)}. Symbols of the same table are
+     * compared without creating their names.
+     *
+     * @param firstTable  the table of the first symbol
+     * @param first       the first symbol
+     * @param secondTable the table of the second symbol
+     * @param second      the second symbol
+     * @return a negative number, zero or a positive number if the first name is
+     *         less than, equal to or greater than the second name
+     */
+    public static int compare(SymbolTable firstTable, int first, SymbolTable secondTable, int second) {
+        if (firstTable != secondTable) {
+            return firstTable.nameOf(first).compareToIgnoreCase(secondTable.nameOf(second));
+        }
+        if (first == second) {
+            return 0;
+        }
+        if (Math.max(first, second) >= firstTable.count) {
+            synchronized (firstTable.lock) {
+                return firstTable.compareNames(first, second);
+            }
+        }
+        return firstTable.compareNames(first, second);
+    }
+
+    /**
+     * Returns whether the names of the given symbols of the given tables are
+     * equal. Symbols of the same table are compared by their value.
+     *
+     * @param firstTable  the table of the first symbol
+     * @param first       the first symbol
+     * @param secondTable the table of the second symbol
+     * @param second      the second symbol
+     * @return {@code true} if the names are equal, {@code false} otherwise
+     */
+    public static boolean equalNames(SymbolTable firstTable, int first, SymbolTable secondTable, int second) {
+        if (firstTable == secondTable) {
+            return first == second;
+        }
+        return firstTable.hashOf(first) == secondTable.hashOf(second)
+                && firstTable.nameOf(first).equals(secondTable.nameOf(second));
+    }
+
+    /**
+     * Returns the number of interned names.
+     *
+     * @return the number of symbols
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Returns the estimated number of bytes the given symbol takes in the table,
+     * see {@link MemoryFootprint}: its name, its bounds, its hash and its share of
+     * the hash slots, which are at most half full.
+     *
+     * @param symbol the symbol
+     * @return the estimated size of the symbol
+     */
+    long estimateBytes(int symbol) {
+        if (symbol >= this.count) {
+            synchronized (this.lock) {
+                return this.ends[symbol] - (this.starts[symbol] & ~WIDE) + SYMBOL_BYTES;
+            }
+        }
+        return this.ends[symbol] - (this.starts[symbol] & ~WIDE) + SYMBOL_BYTES;
+    }
+
+    private int intern(CharSequence name, int start, int end, int hash) {
+        int symbol = find(name, start, end, hash);
+        if (symbol != NO_SYMBOL) {
+            return symbol;
+        }
+        synchronized (this.lock) {
+            symbol = find(name, start, end, hash);
+            return symbol != NO_SYMBOL ? symbol : add(name, start, end, hash);
+        }
+    }
+
+    private int find(CharSequence name, int start, int end, int hash) {
+        int known = this.count;
+        int[] table = this.slots;
+        int mask = table.length - 1;
+        for (int slot = spread(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int symbol = table[slot] - 1;
+            // A symbol added after the count was read may not be visible yet
+            if (symbol < known && this.hashes[symbol] == hash && matches(symbol, name, start, end)) {
+                return symbol;
+            }
+        }
+        return NO_SYMBOL;
+    }
+
+    private int add(CharSequence name, int start, int end, int hash) {
+        int symbol = this.count;
+        boolean wide = false;
+        for (int i = start; i < end && !wide; i++) {
+            wide = name.charAt(i) > MAX_LATIN1;
+        }
+        int length = (end - start) * (wide ? Character.BYTES : Byte.BYTES);
+        if (this.byteCount + length > this.bytes.length) {
+            this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.byteCount + length));
+        }
+        byte[] currentBytes = this.bytes;
+        for (int i = start; i < end; i++) {
+            char character = name.charAt(i);
+            if (wide) {
+                currentBytes[this.byteCount++] = (byte) (character >>> Byte.SIZE);
+            }
+            currentBytes[this.byteCount++] = (byte) character;
+        }
+
+        if (symbol == this.starts.length) {
+            this.starts = Arrays.copyOf(this.starts, symbol * 2);
+            this.ends = Arrays.copyOf(this.ends, symbol * 2);
+            this.hashes = Arrays.copyOf(this.hashes, symbol * 2);
+        }
+        this.starts[symbol] = (this.byteCount - length) | (wide ? WIDE : 0);
+        this.ends[symbol] = this.byteCount;
+        this.hashes[symbol] = hash;
+        this.count = symbol + 1;
+
+        if ((symbol + 1) * 2 > this.slots.length) {
+            rehash(this.slots.length * 2);
+        } else {
+            insert(this.slots, symbol);
+        }
+        return symbol;
+    }
+
+    private void rehash(int capacity) {
+        int[] table = new int[capacity];
+        for (int symbol = 0; symbol < this.count; symbol++) {
+            insert(table, symbol);
+        }
+        this.slots = table;
+    }
+
+    private void insert(int[] table, int symbol) {
+        int mask = table.length - 1;
+        int slot = spread(this.hashes[symbol]) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = symbol + 1;
+    }
+
+    private boolean matches(int symbol, CharSequence name, int start, int end) {
+        if (length(symbol) != end - start) {
+            return false;
+        }
+        for (int i = 0; i < end - start; i++) {
+            if (charAt(symbol, i) != name.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int compareNames(int first, int second) {
+        int firstLength = length(first);
+        int secondLength = length(second);
+        for (int i = 0; i < Math.min(firstLength, secondLength); i++) {
+            char firstCharacter = charAt(first, i);
+            char secondCharacter = charAt(second, i);
+            if (firstCharacter != secondCharacter) {
+                // The same folding as String#compareToIgnoreCase
+                firstCharacter = Character.toLowerCase(Character.toUpperCase(firstCharacter));
+                secondCharacter = Character.toLowerCase(Character.toUpperCase(secondCharacter));
+                if (firstCharacter != secondCharacter) {
+                    return firstCharacter - secondCharacter;
+                }
+            }
+        }
+        return firstLength - secondLength;
+    }
+
+    private String decode(int symbol) {
+        int start = this.starts[symbol];
+        int offset = start & ~WIDE;
+        int length = this.ends[symbol] - offset;
+        return new String(this.bytes, offset, length,
+                (start & WIDE) == 0 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_16BE);
+    }
+
+    private int length(int symbol) {
+        int start = this.starts[symbol];
+        int length = this.ends[symbol] - (start & ~WIDE);
+        return (start & WIDE) == 0 ? length : length / Character.BYTES;
+    }
+
+    private char charAt(int symbol, int index) {
+        int start = this.starts[symbol];
+        byte[] currentBytes = this.bytes;
+        if ((start & WIDE) == 0) {
+            return (char) (currentBytes[start + index] & BYTE_MASK);
+        }
+        int offset = (start & ~WIDE) + index * Character.BYTES;
+        return (char) (((currentBytes[offset] & BYTE_MASK) << Byte.SIZE) | (currentBytes[offset + 1] & BYTE_MASK));
+    }
+
+    private static int hash(CharSequence name, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = HASH_MULTIPLIER * hash + name.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> (Integer.SIZE / 2));
+    }
+}
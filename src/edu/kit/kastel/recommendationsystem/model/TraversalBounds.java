@@ -0,0 +1,41 @@
+package edu.kit.kastel.recommendationsystem.model;
+
+/**
+ * Bounds limiting how far a recommendation strategy traverses the graph. A
+ * traversal stops as soon as one of the bounds is reached.
+ * 
+ * @param maxDepth   the maximum number of relationships between the reference
+ *                   product and a recommended product
+ * @param maxResults the maximum number of recommended products
+ * @author urrwg
+ */
+public record TraversalBounds(
+        int maxDepth,
+        int maxResults) {
+
+    /**
+     * The bounds of a traversal which expands the full closure.
+     */
+    public static final TraversalBounds UNBOUNDED = new TraversalBounds(Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    /**
+     * Returns these bounds with the given maximum depth.
+     * 
+     * @param newMaxDepth the maximum number of relationships between the reference
+     *                    product and a recommended product
+     * @return the new bounds
+     */
+    public TraversalBounds withMaxDepth(int newMaxDepth) {
+        return new TraversalBounds(newMaxDepth, this.maxResults);
+    }
+
+    /**
+     * Returns these bounds with the given maximum number of results.
+     * 
+     * @param newMaxResults the maximum number of recommended products
+     * @return the new bounds
+     */
+    public TraversalBounds withMaxResults(int newMaxResults) {
+        return new TraversalBounds(this.maxDepth, newMaxResults);
+    }
+}
@@ -0,0 +1,207 @@
+package edu.kit.kastel.recommendationsystem.model;
+
+import java.util.List;
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Publishes the versions of a {@link Graph}. A mutation holds the
+ * {@link NodeLocks striped locks} of the nodes it touches and publishes its
+ * version with a compare-and-set, so mutations of the same nodes are
+ * serialized while a mutation of unrelated nodes only has to recompute its
+ * version if another one was published in between. A version is published
+ * and its listeners are notified under one short publish lock, so the
+ * listeners see all mutations in the order their versions were published, even
+ * mutations of unrelated nodes. A journal therefore replays them in the same
+ * order. The versions themselves are still computed outside this lock.
+ *
+ * @author urrwg
+ */
+final class VersionPublisher {
+
+    private final List<MutationListener> listeners = new CopyOnWriteArrayList<>();
+    private final Lock publishLock = new ReentrantLock();
+    private final AtomicReference<GraphVersion> version;
+    private final NodeLocks nodeLocks;
+
+    /**
+     * Constructs a new publisher starting at the given version.
+     *
+     * @param version   the initial version
+     * @param nodeLocks the locks guarding the nodes
+     */
+    VersionPublisher(GraphVersion version, NodeLocks nodeLocks) {
+        this.version = new AtomicReference<>(version);
+        this.nodeLocks = nodeLocks;
+    }
+
+    /**
+     * Returns the last published version.
+     *
+     * @return the current version
+     */
+    GraphVersion get() {
+        return this.version.get();
+    }
+
+    /**
+     * Returns a new publisher starting at the current version, which shares the
+     * locks of this publisher but not its listeners.
+     *
+     * @return the new publisher
+     */
+    VersionPublisher pin() {
+        return new VersionPublisher(this.version.get(), this.nodeLocks);
+    }
+
+    /**
+     * Registers a listener which is notified after every published mutation.
+     *
+     * @param listener the listener to register
+     */
+    void addListener(MutationListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered listener.
+     *
+     * @param listener the listener to remove
+     */
+    void removeListener(MutationListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Publishes the mutation of the current version under the given stripes and
+     * notifies the listeners of the given relationships.
+     *
+     * @param stripes       the bit mask of the stripes of the touched nodes
+     * @param canMutate     whether the mutation can be applied to a version
+     * @param mutation      the mutation creating the new version
+     * @param relationships the relationships the listeners are notified of
+     * @param added         whether the relationships were added or removed
+     * @return {@code true} if the mutation was published, {@code false} if it can
+     *         not be applied
+     */
+    boolean publish(long stripes, Predicate<GraphVersion> canMutate, UnaryOperator<GraphVersion> mutation,
+            Collection<RelationshipDTO> relationships, boolean added) {
+        Lock[] locks = this.nodeLocks.lock(stripes);
+        try {
+            GraphVersion current;
+            do {
+                current = this.version.get();
+                if (!canMutate.test(current)) {
+                    return false;
+                }
+            } while (!publish(current, mutation.apply(current), relationships, added));
+            return true;
+        } finally {
+            NodeLocks.unlock(locks);
+        }
+    }
+
+    /**
+     * Adds the given node unless it conflicts with a contained node, see
+     * {@link Graph#registerNode(Node)}.
+     *
+     * @param node the node to be registered
+     * @return the contained node which equals the given node, the given node if it
+     *         was added, or {@code null} if it conflicts with a contained node
+     */
+    Node register(Node node) {
+        Lock[] locks = this.nodeLocks.lock(NodeLocks.stripeOf(node));
+        try {
+            GraphVersion current;
+            Node resolvedNode;
+            do {
+                current = this.version.get();
+                resolvedNode = current.resolveNode(node);
+                if (resolvedNode != node) {
+                    return resolvedNode;
+                }
+            } while (!this.version.compareAndSet(current, current.withNode(node)));
+            return node;
+        } finally {
+            NodeLocks.unlock(locks);
+        }
+    }
+
+    /**
+     * Removes the given node together with all of its edges, see
+     * {@link Graph#removeNode(Node)}.
+     *
+     * @param node the node to remove
+     * @return {@code true} if the node was removed, {@code false} if it is not
+     *         contained
+     */
+    boolean remove(Node node) {
+        // The neighbors only change under the stripe of the node, so the stripes are
+        // taken again until the stripes of all neighbors are held as well
+        long stripes = NodeLocks.stripeOf(node);
+        Lock[] locks = this.nodeLocks.lock(stripes);
+        long requiredStripes = withNeighborStripes(node, stripes);
+        while (requiredStripes != stripes) {
+            NodeLocks.unlock(locks);
+            stripes = requiredStripes;
+            locks = this.nodeLocks.lock(stripes);
+            requiredStripes = withNeighborStripes(node, stripes);
+        }
+
+        try {
+            GraphVersion current;
+            List<RelationshipDTO> relationships;
+            do {
+                current = this.version.get();
+                if (!current.containsNode(node)) {
+                    return false;
+                }
+                relationships = current.getEdges(node).stream()
+                        .map(edge -> new RelationshipDTO(edge.getStartNode(), edge.getRelationship(), edge.getEndNode()))
+                        .toList();
+            } while (!publish(current, current.withoutNode(node), relationships, false));
+            return true;
+        } finally {
+            NodeLocks.unlock(locks);
+        }
+    }
+
+    private boolean publish(GraphVersion current, GraphVersion next, Collection<RelationshipDTO> relationships,
+            boolean added) {
+        this.publishLock.lock();
+        try {
+            if (!this.version.compareAndSet(current, next)) {
+                return false;
+            }
+            notifyListeners(relationships, added);
+            return true;
+        } finally {
+            this.publishLock.unlock();
+        }
+    }
+
+    private void notifyListeners(Collection<RelationshipDTO> relationships, boolean added) {
+        for (RelationshipDTO relationship : relationships) {
+            for (MutationListener listener : this.listeners) {
+                if (added) {
+                    listener.relationshipAdded(relationship);
+                } else {
+                    listener.relationshipRemoved(relationship);
+                }
+            }
+        }
+    }
+
+    private long withNeighborStripes(Node node, long stripes) {
+        long requiredStripes = stripes;
+        for (Edge edge : this.version.get().getEdges(node)) {
+            requiredStripes |= NodeLocks.stripeOf(edge.getEndNode());
+        }
+        return requiredStripes;
+    }
+}
@@ -8,6 +8,7 @@
 import edu.kit.kastel.recommendationsystem.model.NodeType;
 import edu.kit.kastel.recommendationsystem.model.Product;
 import edu.kit.kastel.recommendationsystem.model.RelationshipType;
+import edu.kit.kastel.recommendationsystem.model.SymbolTable;
 
 /**
  * Provides utility methods for sorting nodes and edges in a graph.
@@ -59,7 +60,8 @@ public int compare(Edge firstEdge, Edge secondEdge) {
             }
 
             private int compareNodes(Node firstNode, Node secondNode) {
-                return firstNode.getName().compareToIgnoreCase(secondNode.getName());
+                return SymbolTable.compare(firstNode.getSymbols(), firstNode.getSymbol(),
+                        secondNode.getSymbols(), secondNode.getSymbol());
             }
         });
     }
@@ -75,7 +77,8 @@ public static void sortNodes(List<Node> nodes) {
         nodes.sort(new Comparator<Node>() {
             @Override
             public int compare(Node firstNode, Node secondNode) {
-                int nameCompare = firstNode.getName().compareToIgnoreCase(secondNode.getName());
+                int nameCompare = SymbolTable.compare(firstNode.getSymbols(), firstNode.getSymbol(),
+                        secondNode.getSymbols(), secondNode.getSymbol());
                 if (nameCompare != EQUAL) {
                     return nameCompare;
                 }
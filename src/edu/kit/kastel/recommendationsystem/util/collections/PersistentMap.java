@@ -0,0 +1,398 @@
+package edu.kit.kastel.recommendationsystem.util.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * An immutable hash map, implemented as hash array mapped trie. Every update
+ * returns a new map which shares all unchanged parts of the trie with this map,
+ * so an update copies at most one small node per trie level and old versions
+ * stay valid. Keys and values must not be {@code null}.
+ * 
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * 
+ * @author urrwg
+ */
+public final class PersistentMap<K, V> implements Iterable<Map.Entry<K, V>> {
+
+    static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    static final int MAX_DEPTH = Integer.SIZE / BITS + 2;
+
+    private final BitmapNode<K, V> root;
+    private final int size;
+
+    private PersistentMap(BitmapNode<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map.
+     * 
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return the empty map
+     */
+    public static <K, V> PersistentMap<K, V> empty() {
+        return new PersistentMap<>(new BitmapNode<>(0, TrieBuilder.slots(0)), 0);
+    }
+
+    /**
+     * Creates a map with the entries of the given map, see
+     * {@link #of(Collection, Function)}.
+     * 
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @param map the entries of the new map
+     * @return the new map
+     */
+    public static <K, V> PersistentMap<K, V> of(Map<K, V> map) {
+        Leaf<K, V>[] leaves = TrieBuilder.leaves(map.size());
+        int index = 0;
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            leaves[index++] = new Leaf<>(entry.getKey(), entry.getValue(), hash(entry.getKey()));
+        }
+        return new PersistentMap<>(TrieBuilder.build(leaves), leaves.length);
+    }
+
+    /**
+     * Creates a map from the given distinct keys to the values computed by the
+     * given function. The trie is built bottom up in one pass, which is
+     * considerably faster than inserting the entries one by one.
+     * 
+     * @param <K>    the type of the keys
+     * @param <V>    the type of the values
+     * @param keys   the distinct keys of the new map
+     * @param values the function computing the value of a key
+     * @return the new map
+     */
+    public static <K, V> PersistentMap<K, V> of(Collection<K> keys, Function<? super K, ? extends V> values) {
+        Leaf<K, V>[] leaves = TrieBuilder.leaves(keys.size());
+        int index = 0;
+        for (K key : keys) {
+            leaves[index++] = new Leaf<>(key, values.apply(key), hash(key));
+        }
+        return new PersistentMap<>(TrieBuilder.build(leaves), leaves.length);
+    }
+
+    /**
+     * Returns the number of entries.
+     * 
+     * @return the number of entries
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the value mapped to the given key.
+     * 
+     * @param key the key
+     * @return the value, or {@code null} if the key is not contained
+     */
+    public V get(Object key) {
+        int hash = hash(key);
+        TrieNode<K, V> node = this.root;
+        for (int shift = 0;; shift += BITS) {
+            if (node instanceof BitmapNode<K, V> bitmapNode) {
+                int bit = bit(hash, shift);
+                if ((bitmapNode.bitmap & bit) == 0) {
+                    return null;
+                }
+                node = bitmapNode.slots[bitmapNode.index(bit)];
+            } else if (node instanceof CollisionNode<K, V> collisionNode) {
+                int index = collisionNode.indexOf(key, hash);
+                return index < 0 ? null : collisionNode.leaves[index].getValue();
+            } else {
+                Leaf<K, V> leaf = (Leaf<K, V>) node;
+                return leaf.hash == hash && leaf.getKey().equals(key) ? leaf.getValue() : null;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the given key is contained.
+     * 
+     * @param key the key
+     * @return {@code true} if the key is contained, {@code false} otherwise
+     */
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a map which additionally maps the given key to the given value. If
+     * the key is already contained, its value is replaced, but the contained key
+     * instance is kept.
+     * 
+     * @param key   the key
+     * @param value the value
+     * @return the updated map, or this map if the key is already mapped to the
+     *         value
+     */
+    public PersistentMap<K, V> put(K key, V value) {
+        int hash = hash(key);
+        boolean contained = containsKey(key);
+        TrieNode<K, V> newRoot = put(this.root, new Leaf<>(key, value, hash), 0);
+        return newRoot == this.root ? this : new PersistentMap<>((BitmapNode<K, V>) newRoot, contained ? this.size : this.size + 1);
+    }
+
+    /**
+     * Returns a map which additionally maps all keys of the given map to their
+     * values, see {@link #put(Object, Object)}. The entries are merged into the
+     * trie in one pass, so every node of the trie is copied at most once, instead
+     * of once per entry.
+     * 
+     * @param map the entries to add
+     * @return the updated map, or this map if the given map is empty
+     */
+    public PersistentMap<K, V> putAll(Map<? extends K, ? extends V> map) {
+        if (map.isEmpty()) {
+            return this;
+        }
+        Leaf<K, V>[] leaves = TrieBuilder.leaves(map.size());
+        int index = 0;
+        int newSize = this.size;
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            leaves[index++] = new Leaf<>(entry.getKey(), entry.getValue(), hash(entry.getKey()));
+            if (!containsKey(entry.getKey())) {
+                newSize++;
+            }
+        }
+        return new PersistentMap<>(TrieBuilder.merge(this.root, leaves), newSize);
+    }
+
+    /**
+     * Returns a map without the given key.
+     * 
+     * @param key the key
+     * @return the updated map, or this map if the key is not contained
+     */
+    public PersistentMap<K, V> remove(Object key) {
+        TrieNode<K, V> newRoot = remove(this.root, key, hash(key), 0);
+        if (newRoot == this.root) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentMap<>((BitmapNode<K, V>) newRoot, this.size - 1);
+    }
+
+    /**
+     * Returns an unmodifiable set view of the keys.
+     * 
+     * @return the keys
+     */
+    public Set<K> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<K> iterator() {
+                Iterator<Map.Entry<K, V>> entries = PersistentMap.this.iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public K next() {
+                        return entries.next().getKey();
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return PersistentMap.this.size;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new TrieIterator<>(this.root);
+    }
+
+    static <K, V> TrieNode<K, V> put(TrieNode<K, V> node, Leaf<K, V> leaf, int shift) {
+        if (node instanceof BitmapNode<K, V> bitmapNode) {
+            int bit = bit(leaf.hash, shift);
+            int index = bitmapNode.index(bit);
+            if ((bitmapNode.bitmap & bit) == 0) {
+                return new BitmapNode<>(bitmapNode.bitmap | bit, insert(bitmapNode.slots, index, leaf));
+            }
+            TrieNode<K, V> child = bitmapNode.slots[index];
+            TrieNode<K, V> newChild = put(child, leaf, shift + BITS);
+            return newChild == child ? bitmapNode : new BitmapNode<>(bitmapNode.bitmap, replace(bitmapNode.slots, index, newChild));
+        }
+        if (node instanceof CollisionNode<K, V> collisionNode) {
+            if (collisionNode.hash != leaf.hash) {
+                TrieNode<K, V>[] slots = TrieBuilder.slots(1);
+                slots[0] = collisionNode;
+                return put(new BitmapNode<>(bit(collisionNode.hash, shift), slots), leaf, shift);
+            }
+            int index = collisionNode.indexOf(leaf.getKey(), leaf.hash);
+            if (index < 0) {
+                return new CollisionNode<>(leaf.hash, insert(collisionNode.leaves, collisionNode.leaves.length, leaf));
+            }
+            Leaf<K, V> existing = collisionNode.leaves[index];
+            return existing.getValue() == leaf.getValue() ? collisionNode
+                    : new CollisionNode<>(leaf.hash, replace(collisionNode.leaves, index, existing.withValue(leaf.getValue())));
+        }
+
+        Leaf<K, V> existing = (Leaf<K, V>) node;
+        if (existing.hash == leaf.hash && existing.getKey().equals(leaf.getKey())) {
+            return existing.getValue() == leaf.getValue() ? existing : existing.withValue(leaf.getValue());
+        }
+        return merge(existing, leaf, shift);
+    }
+
+    private static <K, V> TrieNode<K, V> merge(Leaf<K, V> first, Leaf<K, V> second, int shift) {
+        if (first.hash == second.hash) {
+            Leaf<K, V>[] leaves = TrieBuilder.leaves(2);
+            leaves[0] = first;
+            leaves[1] = second;
+            return new CollisionNode<>(first.hash, leaves);
+        }
+        int firstBit = bit(first.hash, shift);
+        int secondBit = bit(second.hash, shift);
+        if (firstBit == secondBit) {
+            TrieNode<K, V>[] slots = TrieBuilder.slots(1);
+            slots[0] = merge(first, second, shift + BITS);
+            return new BitmapNode<>(firstBit, slots);
+        }
+        TrieNode<K, V>[] slots = TrieBuilder.slots(2);
+        int firstIndex = Integer.compareUnsigned(firstBit, secondBit) < 0 ? 0 : 1;
+        slots[firstIndex] = first;
+        slots[1 - firstIndex] = second;
+        return new BitmapNode<>(firstBit | secondBit, slots);
+    }
+
+    private static <K, V> TrieNode<K, V> remove(TrieNode<K, V> node, Object key, int hash, int shift) {
+        if (node instanceof BitmapNode<K, V> bitmapNode) {
+            int bit = bit(hash, shift);
+            if ((bitmapNode.bitmap & bit) == 0) {
+                return bitmapNode;
+            }
+            int index = bitmapNode.index(bit);
+            TrieNode<K, V> child = bitmapNode.slots[index];
+            TrieNode<K, V> newChild = remove(child, key, hash, shift + BITS);
+            if (newChild == child) {
+                return bitmapNode;
+            }
+            if (newChild == null) {
+                if (bitmapNode.slots.length == 1) {
+                    return null;
+                }
+                TrieNode<K, V>[] slots = delete(bitmapNode.slots, index);
+                // A single remaining leaf is inlined into the parent node
+                return slots.length == 1 && slots[0] instanceof Leaf && shift > 0 ? slots[0]
+                        : new BitmapNode<>(bitmapNode.bitmap ^ bit, slots);
+            }
+            if (newChild instanceof Leaf && bitmapNode.slots.length == 1 && shift > 0) {
+                return newChild;
+            }
+            return new BitmapNode<>(bitmapNode.bitmap, replace(bitmapNode.slots, index, newChild));
+        }
+        if (node instanceof CollisionNode<K, V> collisionNode) {
+            int index = collisionNode.indexOf(key, hash);
+            if (index < 0) {
+                return collisionNode;
+            }
+            Leaf<K, V>[] leaves = delete(collisionNode.leaves, index);
+            return leaves.length == 1 ? leaves[0] : new CollisionNode<>(hash, leaves);
+        }
+
+        Leaf<K, V> leaf = (Leaf<K, V>) node;
+        return leaf.hash == hash && leaf.getKey().equals(key) ? null : leaf;
+    }
+
+    private static int hash(Object key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> Short.SIZE);
+    }
+
+    static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static <T> T[] insert(T[] array, int index, T value) {
+        T[] result = Arrays.copyOf(array, array.length + 1);
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        result[index] = value;
+        return result;
+    }
+
+    private static <T> T[] replace(T[] array, int index, T value) {
+        T[] result = array.clone();
+        result[index] = value;
+        return result;
+    }
+
+    private static <T> T[] delete(T[] array, int index) {
+        T[] result = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+        return result;
+    }
+
+    static final class Leaf<K, V> extends AbstractMap.SimpleImmutableEntry<K, V> implements TrieNode<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        final int hash;
+
+        Leaf(K key, V value, int hash) {
+            super(key, value);
+            this.hash = hash;
+        }
+
+        Leaf<K, V> withValue(V value) {
+            return new Leaf<>(getKey(), value, this.hash);
+        }
+    }
+
+    static final class BitmapNode<K, V> implements TrieNode<K, V> {
+        final int bitmap;
+        final TrieNode<K, V>[] slots;
+
+        BitmapNode(int bitmap, TrieNode<K, V>[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(this.bitmap & (bit - 1));
+        }
+    }
+
+    static final class CollisionNode<K, V> implements TrieNode<K, V> {
+        final int hash;
+        final Leaf<K, V>[] leaves;
+
+        CollisionNode(int hash, Leaf<K, V>[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        int indexOf(Object key, int keyHash) {
+            if (keyHash != this.hash) {
+                return -1;
+            }
+            for (int i = 0; i < this.leaves.length; i++) {
+                if (this.leaves[i].getKey().equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
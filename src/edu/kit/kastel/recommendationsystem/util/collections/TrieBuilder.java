@@ -0,0 +1,164 @@
+package edu.kit.kastel.recommendationsystem.util.collections;
+
+import java.util.Arrays;
+
+import edu.kit.kastel.recommendationsystem.util.collections.PersistentMap.BitmapNode;
+import edu.kit.kastel.recommendationsystem.util.collections.PersistentMap.CollisionNode;
+import edu.kit.kastel.recommendationsystem.util.collections.PersistentMap.Leaf;
+
+/**
+ * Builds the tries of {@link PersistentMap persistent maps} from many leaves at
+ * once. The leaves are sorted by their reversed hash first, which makes the
+ * leaves of every subtrie a contiguous range, so every node is created exactly
+ * once.
+ *
+ * @author urrwg
+ */
+final class TrieBuilder {
+
+    private TrieBuilder() {
+        // This is a utility class
+    }
+
+    /**
+     * Builds a trie holding the given leaves, whose keys have to be distinct.
+     *
+     * @param leaves the leaves, which are reordered
+     * @return the root of the trie
+     */
+    static <K, V> BitmapNode<K, V> build(Leaf<K, V>[] leaves) {
+        Leaf<K, V>[] sorted = sort(leaves);
+        return build(sorted, 0, sorted.length, 0);
+    }
+
+    /**
+     * Returns a trie holding the leaves of the given trie and the given leaves,
+     * whose keys have to be distinct. Only the nodes on the paths to the given
+     * leaves are copied, and each of them only once.
+     *
+     * @param root   the root of the trie, which is not modified
+     * @param leaves the leaves to add
+     * @return the root of the new trie
+     */
+    static <K, V> BitmapNode<K, V> merge(BitmapNode<K, V> root, Leaf<K, V>[] leaves) {
+        Leaf<K, V>[] sorted = sort(leaves);
+        return (BitmapNode<K, V>) merge(root, sorted, 0, sorted.length, 0);
+    }
+
+    /**
+     * Creates an array for the slots of a trie node.
+     *
+     * @param <K>    the type of the keys
+     * @param <V>    the type of the values
+     * @param length the number of slots
+     * @return the new array
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> TrieNode<K, V>[] slots(int length) {
+        // The array only ever holds nodes of one trie, which all have the types of that trie
+        return (TrieNode<K, V>[]) new TrieNode<?, ?>[length];
+    }
+
+    /**
+     * Creates an array for the leaves of a collision node or of a bulk update.
+     *
+     * @param <K>    the type of the keys
+     * @param <V>    the type of the values
+     * @param length the number of leaves
+     * @return the new array
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> Leaf<K, V>[] leaves(int length) {
+        // The array only ever holds leaves of one trie, which all have the types of that trie
+        return (Leaf<K, V>[]) new Leaf<?, ?>[length];
+    }
+
+    private static <K, V> Leaf<K, V>[] sort(Leaf<K, V>[] leaves) {
+        // The keys are packed with the leaf index so that a primitive sort suffices
+        long[] order = new long[leaves.length];
+        for (int i = 0; i < leaves.length; i++) {
+            order[i] = (Integer.toUnsignedLong(Integer.reverse(leaves[i].hash)) << Integer.SIZE) | i;
+        }
+        Arrays.sort(order);
+        Leaf<K, V>[] sorted = leaves.clone();
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = leaves[(int) order[i]];
+        }
+        return sorted;
+    }
+
+    private static <K, V> BitmapNode<K, V> build(Leaf<K, V>[] leaves, int from, int to, int shift) {
+        int bitmap = 0;
+        for (int i = from; i < to; i++) {
+            bitmap |= PersistentMap.bit(leaves[i].hash, shift);
+        }
+
+        TrieNode<K, V>[] slots = slots(Integer.bitCount(bitmap));
+        BitmapNode<K, V> node = new BitmapNode<>(bitmap, slots);
+        int groupStart = from;
+        while (groupStart < to) {
+            int bit = PersistentMap.bit(leaves[groupStart].hash, shift);
+            int groupEnd = groupEnd(leaves, groupStart, to, bit, shift);
+            slots[node.index(bit)] = buildChild(leaves, groupStart, groupEnd, shift + PersistentMap.BITS);
+            groupStart = groupEnd;
+        }
+        return node;
+    }
+
+    private static <K, V> TrieNode<K, V> buildChild(Leaf<K, V>[] leaves, int from, int to, int shift) {
+        if (to - from == 1) {
+            return leaves[from];
+        }
+        if (leaves[from].hash == leaves[to - 1].hash) {
+            return new CollisionNode<>(leaves[from].hash, Arrays.copyOfRange(leaves, from, to));
+        }
+        return build(leaves, from, to, shift);
+    }
+
+    private static <K, V> TrieNode<K, V> merge(TrieNode<K, V> node, Leaf<K, V>[] leaves, int from, int to, int shift) {
+        // Small subtries and leaves sharing one hash are updated one leaf at a time
+        if (to - from == 1 || node instanceof CollisionNode || leaves[from].hash == leaves[to - 1].hash) {
+            TrieNode<K, V> result = node;
+            for (int i = from; i < to; i++) {
+                result = PersistentMap.put(result, leaves[i], shift);
+            }
+            return result;
+        }
+        if (node instanceof Leaf<K, V> leaf) {
+            TrieNode<K, V>[] slots = slots(1);
+            slots[0] = leaf;
+            return merge(new BitmapNode<>(PersistentMap.bit(leaf.hash, shift), slots), leaves, from, to, shift);
+        }
+
+        BitmapNode<K, V> bitmapNode = (BitmapNode<K, V>) node;
+        int bitmap = bitmapNode.bitmap;
+        for (int i = from; i < to; i++) {
+            bitmap |= PersistentMap.bit(leaves[i].hash, shift);
+        }
+        TrieNode<K, V>[] slots = slots(Integer.bitCount(bitmap));
+        BitmapNode<K, V> result = new BitmapNode<>(bitmap, slots);
+        for (int remaining = bitmapNode.bitmap; remaining != 0; remaining &= remaining - 1) {
+            int bit = Integer.lowestOneBit(remaining);
+            slots[result.index(bit)] = bitmapNode.slots[bitmapNode.index(bit)];
+        }
+
+        int groupStart = from;
+        while (groupStart < to) {
+            int bit = PersistentMap.bit(leaves[groupStart].hash, shift);
+            int groupEnd = groupEnd(leaves, groupStart, to, bit, shift);
+            int index = result.index(bit);
+            slots[index] = (bitmapNode.bitmap & bit) == 0 ? buildChild(leaves, groupStart, groupEnd, shift + PersistentMap.BITS)
+                    : merge(slots[index], leaves, groupStart, groupEnd, shift + PersistentMap.BITS);
+            groupStart = groupEnd;
+        }
+        return result;
+    }
+
+    private static int groupEnd(Leaf<?, ?>[] leaves, int groupStart, int to, int bit, int shift) {
+        int groupEnd = groupStart + 1;
+        while (groupEnd < to && PersistentMap.bit(leaves[groupEnd].hash, shift) == bit) {
+            groupEnd++;
+        }
+        return groupEnd;
+    }
+}
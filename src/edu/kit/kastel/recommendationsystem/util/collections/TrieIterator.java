@@ -0,0 +1,63 @@
+package edu.kit.kastel.recommendationsystem.util.collections;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the entries of a {@link PersistentMap} in trie order, using an
+ * explicit stack of the visited trie nodes.
+ * 
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * 
+ * @author urrwg
+ */
+final class TrieIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+
+    private final TrieNode<K, V>[] nodes = TrieBuilder.slots(PersistentMap.MAX_DEPTH);
+    private final int[] indexes = new int[PersistentMap.MAX_DEPTH];
+    private int depth;
+    private PersistentMap.Leaf<K, V> next;
+
+    TrieIterator(PersistentMap.BitmapNode<K, V> root) {
+        this.nodes[0] = root;
+        advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.next != null;
+    }
+
+    @Override
+    public Map.Entry<K, V> next() {
+        if (this.next == null) {
+            throw new NoSuchElementException();
+        }
+        PersistentMap.Leaf<K, V> current = this.next;
+        advance();
+        return current;
+    }
+
+    private void advance() {
+        while (this.depth >= 0) {
+            TrieNode<K, V> node = this.nodes[this.depth];
+            TrieNode<K, V>[] children = node instanceof PersistentMap.BitmapNode<K, V> bitmapNode ? bitmapNode.slots
+                    : ((PersistentMap.CollisionNode<K, V>) node).leaves;
+            if (this.indexes[this.depth] == children.length) {
+                this.depth--;
+                continue;
+            }
+            TrieNode<K, V> slot = children[this.indexes[this.depth]++];
+            if (slot instanceof PersistentMap.Leaf<K, V> leaf) {
+                this.next = leaf;
+                return;
+            }
+            this.depth++;
+            this.nodes[this.depth] = slot;
+            this.indexes[this.depth] = 0;
+        }
+        this.next = null;
+    }
+}
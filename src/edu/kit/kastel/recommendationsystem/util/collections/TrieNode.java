@@ -0,0 +1,13 @@
+package edu.kit.kastel.recommendationsystem.util.collections;
+
+/**
+ * A node of the trie of a {@link PersistentMap}, i.e. either a leaf holding an
+ * entry or an inner node holding further nodes.
+ * 
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * 
+ * @author urrwg
+ */
+interface TrieNode<K, V> {
+}
@@ -0,0 +1,19 @@
+package edu.kit.kastel.recommendationsystem.util.journal;
+
+/**
+ * Signals that writing, replaying or checkpointing a mutation journal failed.
+ * 
+ * @author urrwg
+ */
+public class JournalException extends Exception {
+
+    /**
+     * Constructs a new exception with the specified detail message.
+     * 
+     * @param message the detailed message. The detail message is saved for later
+     *                retrieval by the {@link Throwable#getMessage()} method.
+     */
+    public JournalException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,152 @@
+package edu.kit.kastel.recommendationsystem.util.journal;
+
+import java.util.zip.CRC32;
+import java.nio.ByteBuffer;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import edu.kit.kastel.recommendationsystem.model.Category;
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.model.NodeType;
+import edu.kit.kastel.recommendationsystem.model.Product;
+import edu.kit.kastel.recommendationsystem.model.RelationshipDTO;
+import edu.kit.kastel.recommendationsystem.model.RelationshipType;
+import edu.kit.kastel.recommendationsystem.model.SymbolTable;
+
+/**
+ * Represents a single mutation stored in the journal, together with its binary
+ * encoding.
+ * 
+ * <pre>
+ * {@code
+ * record   ::= length checksum payload       (int, int CRC32 of the payload)
+ * payload  ::= operation node predicate node
+ * node     ::= type nameLength name productId  (byte, int, UTF-8, int)
+ * }
+ * </pre>
+ * 
+ * @param operation    the kind of mutation
+ * @param relationship the mutated relationship
+ * @author urrwg
+ */
+record JournalRecord(Operation operation, RelationshipDTO relationship) {
+
+    /**
+     * The size of the record header (length and checksum) in bytes.
+     */
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private static final int NO_PRODUCT_ID = -1;
+    private static final int INVALID_ORDINAL = -1;
+    private static final int NODE_FIXED_SIZE = Byte.BYTES + 2 * Integer.BYTES;
+    private static final int PAYLOAD_FIXED_SIZE = 2 * Byte.BYTES + 2 * NODE_FIXED_SIZE;
+
+    /**
+     * The kinds of mutations stored in the journal.
+     */
+    enum Operation {
+        /**
+         * A relationship was added.
+         */
+        ADD,
+        /**
+         * A relationship was removed.
+         */
+        REMOVE
+    }
+
+    /**
+     * Appends the encoded record to the given buffer.
+     * 
+     * @param output the buffer to append to
+     */
+    void writeTo(ByteArrayOutputStream output) {
+        byte[] subjectName = this.relationship.subject().getName().getBytes(StandardCharsets.UTF_8);
+        byte[] objectName = this.relationship.object().getName().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_FIXED_SIZE + subjectName.length + objectName.length);
+
+        payload.put((byte) this.operation.ordinal());
+        writeNode(this.relationship.subject(), subjectName, payload);
+        payload.put((byte) this.relationship.predicate().ordinal());
+        writeNode(this.relationship.object(), objectName, payload);
+
+        CRC32 checksum = new CRC32();
+        checksum.update(payload.array());
+        output.writeBytes(ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(payload.capacity())
+                .putInt((int) checksum.getValue())
+                .array());
+        output.writeBytes(payload.array());
+    }
+
+    /**
+     * Reads the next record at the position of the given buffer and advances the
+     * position behind it.
+     * 
+     * @param buffer  the buffer holding the journal
+     * @param symbols the table to intern the names of the nodes in
+     * @return the record, or {@code null} if the buffer holds no further complete
+     *         and intact record
+     */
+    static JournalRecord readFrom(ByteBuffer buffer, SymbolTable symbols) {
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int length = buffer.getInt(buffer.position());
+        int expectedChecksum = buffer.getInt(buffer.position() + Integer.BYTES);
+        if (length < PAYLOAD_FIXED_SIZE || length > buffer.remaining() - HEADER_SIZE) {
+            return null;
+        }
+
+        ByteBuffer payload = buffer.slice(buffer.position() + HEADER_SIZE, length);
+        CRC32 checksum = new CRC32();
+        checksum.update(payload.duplicate());
+        if ((int) checksum.getValue() != expectedChecksum) {
+            return null;
+        }
+
+        int operation = payload.get();
+        Node subject = readNode(payload, symbols);
+        int predicate = payload.hasRemaining() ? payload.get() : INVALID_ORDINAL;
+        Node object = readNode(payload, symbols);
+        if (subject == null || object == null || !isValidOrdinal(operation, Operation.values().length)
+                || !isValidOrdinal(predicate, RelationshipType.values().length)) {
+            return null;
+        }
+
+        buffer.position(buffer.position() + HEADER_SIZE + length);
+        return new JournalRecord(Operation.values()[operation],
+                new RelationshipDTO(subject, RelationshipType.values()[predicate], object));
+    }
+
+    private static void writeNode(Node node, byte[] name, ByteBuffer payload) {
+        boolean isProduct = node.isOfType(NodeType.PRODUCT);
+        payload.put((byte) (isProduct ? NodeType.PRODUCT : NodeType.CATEGORY).ordinal());
+        payload.putInt(name.length);
+        payload.put(name);
+        payload.putInt(isProduct ? ((Product) node).getId() : NO_PRODUCT_ID);
+    }
+
+    private static Node readNode(ByteBuffer payload, SymbolTable symbols) {
+        if (payload.remaining() < NODE_FIXED_SIZE) {
+            return null;
+        }
+        int type = payload.get();
+        int nameLength = payload.getInt();
+        if (nameLength < 0 || nameLength > payload.remaining() - Integer.BYTES) {
+            return null;
+        }
+        byte[] name = new byte[nameLength];
+        payload.get(name);
+        int productId = payload.getInt();
+
+        if (type == NodeType.PRODUCT.ordinal()) {
+            return new Product(symbols, new String(name, StandardCharsets.UTF_8), productId);
+        }
+        return type == NodeType.CATEGORY.ordinal() ? new Category(symbols, new String(name, StandardCharsets.UTF_8)) : null;
+    }
+
+    private static boolean isValidOrdinal(int ordinal, int count) {
+        return ordinal >= 0 && ordinal < count;
+    }
+}
@@ -0,0 +1,390 @@
+package edu.kit.kastel.recommendationsystem.util.journal;
+
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.io.IOException;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.model.GraphVersion;
+import edu.kit.kastel.recommendationsystem.model.MutationListener;
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.model.RelationshipDTO;
+import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+import edu.kit.kastel.recommendationsystem.util.snapshot.SnapshotReader;
+import edu.kit.kastel.recommendationsystem.util.snapshot.SnapshotWriter;
+
+/**
+ * An append-only write-ahead journal of the mutations of a {@link Graph}.
+ * 
+ * <p>
+ * The journal directory holds a checkpoint snapshot of the graph and the
+ * journal of all mutations applied since that checkpoint. Mutations are only
+ * appended to an in-memory buffer and acknowledged before they are synced
+ * (asynchronous commit): a background thread writes and syncs all buffered
+ * mutations together every {@value #FLUSH_INTERVAL_MILLIS} milliseconds. A
+ * crash therefore loses the acknowledged mutations of up to that interval,
+ * while a single mutation never waits for a sync. Every
+ * {@value #CHECKPOINT_INTERVAL} mutations the background thread writes the
+ * graph to a new checkpoint and truncates the journal, so neither a sync nor a
+ * checkpoint ever runs on a mutating thread.
+ * </p>
+ * 
+ * <p>
+ * If a batch can not be written, the journal stops recording mutations, since
+ * a journal continuing after a lost batch would replay to an inconsistent
+ * graph. {@link #checkWritable()} then fails until the next successful
+ * checkpoint, which covers all mutations since the failure.
+ * </p>
+ * 
+ * <p>
+ * The journal may overlap its checkpoint, e.g. if the process crashed between
+ * writing the checkpoint and truncating the journal. Records are therefore
+ * replayed with the checks of the commands: an addition conflicting with a
+ * contained node and a removal whose nodes are not contained are skipped, so
+ * replaying never adds a node without edges or a second product with the same
+ * id.
+ * </p>
+ * 
+ * @author urrwg
+ */
+public final class MutationJournal implements MutationListener, AutoCloseable {
+
+    private static final String JOURNAL_FILE_NAME = "mutations.journal";
+    private static final String CHECKPOINT_FILE_NAME = "graph.snapshot";
+    private static final long FLUSH_INTERVAL_MILLIS = 20;
+    private static final int CHECKPOINT_INTERVAL = 100_000;
+    private static final int REPLAY_CHUNK_SIZE = 1 << 20;
+
+    private static final String ERROR_OPENING_JOURNAL = "could not open journal in: %s";
+    private static final String ERROR_WRITING_JOURNAL = "could not write journal";
+    private static final String ERROR_WRITING_CHECKPOINT = "could not write checkpoint";
+    private static final String ERROR_JOURNAL_FAILED = "could not write journal, mutations are rejected until a graph is loaded";
+    private static final String ERROR_READING_JOURNAL = "could not read journal";
+
+    private final Path checkpointPath;
+    private final Path journalPath;
+    private final FileChannel channel;
+    private final ScheduledExecutorService flusher;
+    private final Object flushLock = new Object();
+
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private int mutationsSinceCheckpoint;
+    private boolean checkpointDue;
+    private Graph graph;
+    private JournalException failure;
+
+    private MutationJournal(Path directory, FileChannel channel) {
+        this.checkpointPath = directory.resolve(CHECKPOINT_FILE_NAME);
+        this.journalPath = directory.resolve(JOURNAL_FILE_NAME);
+        this.channel = channel;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, getClass().getSimpleName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushInBackground, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens the journal in the given directory. The directory is created if it
+     * does not exist yet.
+     * 
+     * @param directory the directory of the journal
+     * @return the opened journal
+     * @throws JournalException if the journal could not be opened
+     */
+    public static MutationJournal open(Path directory) throws JournalException {
+        try {
+            Files.createDirectories(directory);
+            FileChannel channel = FileChannel.open(directory.resolve(JOURNAL_FILE_NAME),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new MutationJournal(directory, channel);
+        } catch (IOException | SecurityException exception) {
+            throw new JournalException(String.format(ERROR_OPENING_JOURNAL, directory));
+        }
+    }
+
+    /**
+     * Restores the graph from the last checkpoint and replays all journaled
+     * mutations onto it. A torn record at the end of the journal, left by a crash,
+     * is discarded.
+     * 
+     * @return the restored graph, or {@code null} if there is no checkpoint
+     * @throws JournalException if the checkpoint or journal could not be read
+     */
+    public Graph recover() throws JournalException {
+        if (!Files.isRegularFile(this.checkpointPath)) {
+            return null;
+        }
+
+        Graph restoredGraph;
+        try {
+            restoredGraph = SnapshotReader.read(this.checkpointPath);
+        } catch (DataParsException exception) {
+            throw new JournalException(exception.getMessage());
+        }
+
+        synchronized (this.flushLock) {
+            try {
+                long end = replay(this.channel, restoredGraph);
+                this.channel.truncate(end);
+                this.channel.position(end);
+            } catch (IOException exception) {
+                throw new JournalException(ERROR_READING_JOURNAL);
+            }
+        }
+        return restoredGraph;
+    }
+
+    private static long replay(FileChannel journal, Graph graph) throws IOException {
+        // The journal is read in chunks, the incomplete record at the end of a chunk is kept for the next one
+        long size = journal.size();
+        ByteBuffer buffer = ByteBuffer.allocate(REPLAY_CHUNK_SIZE).limit(0);
+        long bufferStart = 0;
+        boolean hasMore = true;
+        while (hasMore) {
+            JournalRecord record = JournalRecord.readFrom(buffer, graph.getSymbols());
+            while (record != null) {
+                apply(record, graph);
+                record = JournalRecord.readFrom(buffer, graph.getSymbols());
+            }
+
+            long recordStart = bufferStart + buffer.position();
+            long needed = JournalRecord.HEADER_SIZE
+                    + (buffer.remaining() < JournalRecord.HEADER_SIZE ? 0 : buffer.getInt(buffer.position()));
+            // The journal ends, or its last record is corrupted or was torn by a crash
+            hasMore = needed > buffer.remaining() && needed >= JournalRecord.HEADER_SIZE && needed <= Integer.MAX_VALUE
+                    && recordStart + needed <= size;
+            if (hasMore) {
+                bufferStart = recordStart;
+                buffer = readChunk(journal, buffer, bufferStart, (int) needed);
+            }
+        }
+        return bufferStart + buffer.position();
+    }
+
+    private static ByteBuffer readChunk(FileChannel journal, ByteBuffer buffer, long bufferStart, int needed)
+            throws IOException {
+        ByteBuffer chunk = buffer.compact();
+        if (needed > chunk.capacity()) {
+            chunk = ByteBuffer.allocate(needed).put(chunk.flip());
+        }
+        int read = 0;
+        while (chunk.hasRemaining() && read >= 0) {
+            read = journal.read(chunk, bufferStart + chunk.position());
+        }
+        return chunk.flip();
+    }
+
+    private static void apply(JournalRecord record, Graph graph) {
+        RelationshipDTO relationship = record.relationship();
+        GraphVersion version = graph.getVersion();
+        if (record.operation() == JournalRecord.Operation.ADD) {
+            // An addition conflicting with a contained node is skipped like the command would reject it
+            if (version.canAddRelationship(relationship)) {
+                graph.addRelationship(new RelationshipDTO(version.resolveNode(relationship.subject()),
+                        relationship.predicate(), version.resolveNode(relationship.object())));
+            }
+            return;
+        }
+        Node subject = version.resolveNode(relationship.subject());
+        Node object = version.resolveNode(relationship.object());
+        // A removal whose nodes are gone already is covered by the checkpoint
+        if (subject != null && object != null && version.containsNode(subject) && version.containsNode(object)) {
+            graph.removeEdge(new RelationshipDTO(subject, relationship.predicate(), object));
+        }
+    }
+
+    /**
+     * Starts journaling the mutations of the given graph. The graph is written to
+     * a new checkpoint right away, since the journal only holds the mutations
+     * since the last checkpoint. A previously attached graph is detached.
+     * 
+     * @param newGraph the graph whose mutations are journaled
+     * @throws JournalException if the checkpoint could not be written
+     */
+    public void attach(Graph newGraph) throws JournalException {
+        if (this.graph != null) {
+            this.graph.removeMutationListener(this);
+        }
+        this.graph = newGraph;
+        checkpoint();
+        newGraph.addMutationListener(this);
+    }
+
+    @Override
+    public void relationshipAdded(RelationshipDTO relationship) {
+        append(new JournalRecord(JournalRecord.Operation.ADD, relationship));
+    }
+
+    @Override
+    public void relationshipRemoved(RelationshipDTO relationship) {
+        append(new JournalRecord(JournalRecord.Operation.REMOVE, relationship));
+    }
+
+    private synchronized void append(JournalRecord record) {
+        if (this.failure != null) {
+            // Nothing is appended past a lost batch, the next checkpoint covers this mutation
+            return;
+        }
+        record.writeTo(this.pending);
+        if (++this.mutationsSinceCheckpoint >= CHECKPOINT_INTERVAL) {
+            // The checkpoint is taken by the flusher, the mutating thread holds node locks
+            this.checkpointDue = true;
+        }
+    }
+
+    /**
+     * Checks whether the journal still records mutations. Mutating commands should
+     * check this before they run, so no mutation is acknowledged which the journal
+     * is known to lose.
+     * 
+     * @throws JournalException if a batch of mutations could not be written and no
+     *                          checkpoint succeeded since
+     */
+    public synchronized void checkWritable() throws JournalException {
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    /**
+     * Writes the attached graph to a new checkpoint and truncates the journal.
+     * If the checkpoint can not be written, the journal is kept. A successful
+     * checkpoint also recovers the journal from a failed write.
+     * 
+     * @throws JournalException if the checkpoint or the journal could not be
+     *                          written
+     */
+    public void checkpoint() throws JournalException {
+        synchronized (this.flushLock) {
+            boolean recovering = resume();
+            if (!recovering) {
+                try {
+                    flush();
+                } catch (JournalException exception) {
+                    recovering = resume();
+                }
+            }
+
+            try {
+                // The checkpoint is durable before the journal it replaces is truncated
+                SnapshotWriter.write(this.graph, this.checkpointPath);
+            } catch (DataParsException exception) {
+                if (recovering) {
+                    throw fail();
+                }
+                // The journal is complete, so the checkpoint is retried after further mutations
+                synchronized (this) {
+                    this.mutationsSinceCheckpoint = 0;
+                    this.checkpointDue = false;
+                }
+                throw new JournalException(ERROR_WRITING_CHECKPOINT);
+            }
+            try {
+                this.channel.truncate(0);
+                this.channel.force(true);
+            } catch (IOException exception) {
+                throw fail();
+            }
+            synchronized (this) {
+                this.mutationsSinceCheckpoint = 0;
+                this.checkpointDue = false;
+            }
+        }
+    }
+
+    /**
+     * Writes all buffered mutations to the journal and syncs it to the storage
+     * device.
+     * 
+     * @throws JournalException if the journal could not be written, now or by an
+     *                          earlier flush since the last checkpoint
+     */
+    public void flush() throws JournalException {
+        synchronized (this.flushLock) {
+            ByteArrayOutputStream batch;
+            synchronized (this) {
+                checkWritable();
+                if (this.pending.size() == 0) {
+                    return;
+                }
+                batch = this.pending;
+                this.pending = new ByteArrayOutputStream();
+            }
+
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+                while (buffer.hasRemaining()) {
+                    this.channel.write(buffer);
+                }
+                this.channel.force(false);
+            } catch (IOException exception) {
+                throw fail();
+            }
+        }
+    }
+
+    private synchronized JournalException fail() {
+        this.failure = new JournalException(ERROR_JOURNAL_FAILED);
+        this.pending = new ByteArrayOutputStream();
+        return this.failure;
+    }
+
+    private synchronized boolean resume() {
+        // Mutations from now on are recorded again, the checkpoint covers the earlier ones
+        boolean failed = this.failure != null;
+        this.failure = null;
+        return failed;
+    }
+
+    private void flushInBackground() {
+        boolean due;
+        synchronized (this) {
+            due = this.checkpointDue;
+        }
+        try {
+            if (due) {
+                checkpoint();
+            } else {
+                flush();
+            }
+        } catch (JournalException exception) {
+            // A lost batch is reported by checkWritable(), a failed checkpoint keeps the journal
+        }
+    }
+
+    /**
+     * Stops the background flushing, writes all buffered mutations and closes the
+     * journal.
+     * 
+     * @throws JournalException if the journal could not be written, now or by an
+     *                          earlier flush since the last checkpoint
+     */
+    @Override
+    public void close() throws JournalException {
+        this.flusher.shutdown();
+        JournalException flushFailure = null;
+        try {
+            flush();
+        } catch (JournalException exception) {
+            flushFailure = exception;
+        }
+        try {
+            this.channel.close();
+        } catch (IOException exception) {
+            throw new JournalException(ERROR_WRITING_JOURNAL);
+        }
+        if (flushFailure != null) {
+            throw flushFailure;
+        }
+    }
+}
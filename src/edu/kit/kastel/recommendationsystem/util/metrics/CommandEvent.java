@@ -0,0 +1,46 @@
+package edu.kit.kastel.recommendationsystem.util.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for the execution of a single command. As all events of
+ * this package, it only has to be committed after
+ * {@link #shouldCommit()} returned {@code true}, so it costs nothing while no
+ * recording is enabled.
+ * 
+ * @author urrwg
+ */
+@Name("edu.kit.kastel.recommendationsystem.Command")
+@Label("Command")
+@Category({"Recommendation System", "Commands"})
+@Description("Execution of a command, including printing its result")
+public final class CommandEvent extends Event {
+
+    @Label("Command")
+    private String command;
+
+    @Label("Failed")
+    private boolean failed;
+
+    @Label("Result Size")
+    @Description("Number of characters of the result")
+    private int resultSize;
+
+    /**
+     * Sets the fields of this event and commits it.
+     * 
+     * @param command    the name of the command
+     * @param failed     whether the command failed
+     * @param resultSize the number of characters of the result
+     */
+    public void commit(String command, boolean failed, int resultSize) {
+        this.command = command;
+        this.failed = failed;
+        this.resultSize = resultSize;
+        commit();
+    }
+}
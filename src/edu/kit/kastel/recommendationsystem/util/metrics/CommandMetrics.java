@@ -0,0 +1,114 @@
+package edu.kit.kastel.recommendationsystem.util.metrics;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects latency histograms, error counters and result sizes for a fixed set
+ * of commands. The commands are registered once, afterwards recording an
+ * execution does not allocate.
+ * 
+ * @author urrwg
+ */
+public final class CommandMetrics {
+
+    private static final double NANOS_PER_MICROSECOND = 1e3;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double MEDIAN = 0.5;
+    private static final double P99 = 0.99;
+    private static final double P999 = 0.999;
+
+    private static final String HEADER_FORMAT = "stats for %.3f s%n"
+            + "command       count   errors     p50 us     p99 us    p999 us     max us      ops/s result chars";
+    private static final String ROW_FORMAT = "%n%-10s %8d %8d %10.1f %10.1f %10.1f %10.1f %10.1f %12d";
+    private static final String NOTHING_RECORDED = "no commands recorded";
+
+    private final Map<String, CommandStatistics> statistics = new LinkedHashMap<>();
+    private final AtomicLong startNanos = new AtomicLong(System.nanoTime());
+
+    /**
+     * Constructs a new instance for the given commands.
+     * 
+     * @param commands the names of the commands to collect metrics for
+     */
+    public CommandMetrics(Collection<String> commands) {
+        for (String command : commands) {
+            this.statistics.put(command, new CommandStatistics());
+        }
+    }
+
+    /**
+     * Records an execution of the given command. Executions of unknown commands are
+     * ignored.
+     * 
+     * @param command    the name of the command
+     * @param nanos      the latency of the execution in nanoseconds
+     * @param failed     whether the execution failed
+     * @param resultSize the number of characters of the result
+     */
+    public void record(String command, long nanos, boolean failed, int resultSize) {
+        CommandStatistics commandStatistics = this.statistics.get(command);
+        if (commandStatistics == null) {
+            return;
+        }
+        commandStatistics.latencies.record(nanos);
+        commandStatistics.resultChars.addAndGet(resultSize);
+        if (failed) {
+            commandStatistics.errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Discards all recorded executions and restarts measuring the throughput.
+     */
+    public void reset() {
+        for (CommandStatistics commandStatistics : this.statistics.values()) {
+            commandStatistics.latencies.reset();
+            commandStatistics.errors.set(0);
+            commandStatistics.resultChars.set(0);
+        }
+        this.startNanos.set(System.nanoTime());
+    }
+
+    /**
+     * Formats a table with the count, errors, latency quantiles, throughput and
+     * result size of every command executed since the last reset.
+     * 
+     * @return the formatted table
+     */
+    public String format() {
+        double seconds = (System.nanoTime() - this.startNanos.get()) / NANOS_PER_SECOND;
+        StringBuilder builder = new StringBuilder();
+
+        for (Map.Entry<String, CommandStatistics> entry : this.statistics.entrySet()) {
+            LatencyHistogram latencies = entry.getValue().latencies;
+            long count = latencies.getCount();
+            if (count == 0) {
+                continue;
+            }
+            builder.append(String.format(Locale.ROOT, ROW_FORMAT, entry.getKey().toLowerCase(Locale.ROOT), count,
+                    entry.getValue().errors.get(),
+                    toMicros(latencies.getQuantileNanos(MEDIAN)), toMicros(latencies.getQuantileNanos(P99)),
+                    toMicros(latencies.getQuantileNanos(P999)), toMicros(latencies.getMaxNanos()),
+                    count / seconds, entry.getValue().resultChars.get()));
+        }
+
+        if (builder.isEmpty()) {
+            return NOTHING_RECORDED;
+        }
+        return String.format(Locale.ROOT, HEADER_FORMAT, seconds) + builder;
+    }
+
+    private static double toMicros(long nanos) {
+        return nanos / NANOS_PER_MICROSECOND;
+    }
+
+    private static final class CommandStatistics {
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong resultChars = new AtomicLong();
+    }
+}
@@ -0,0 +1,124 @@
+package edu.kit.kastel.recommendationsystem.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds with logarithmic buckets. Every power
+ * of two is divided into {@value #SUB_BUCKET_COUNT} linear sub-buckets, so the
+ * reported quantiles are at most about six percent above the recorded values,
+ * while the histogram has a fixed size. Recording a value does not allocate and
+ * is safe to be called concurrently.
+ * 
+ * @author urrwg
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+    private static final int MAX_EXPONENT = Long.SIZE - 2;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records the given latency. Negative latencies are recorded as zero.
+     * 
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        this.buckets.incrementAndGet(bucketIndex(value));
+        this.count.incrementAndGet();
+        this.totalNanos.addAndGet(value);
+        this.maxNanos.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     * 
+     * @return the number of recorded latencies
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * Returns the sum of all recorded latencies.
+     * 
+     * @return the sum of all recorded latencies in nanoseconds
+     */
+    public long getTotalNanos() {
+        return this.totalNanos.get();
+    }
+
+    /**
+     * Returns the largest recorded latency.
+     * 
+     * @return the largest recorded latency in nanoseconds, {@code 0} if nothing
+     *         was recorded
+     */
+    public long getMaxNanos() {
+        return this.maxNanos.get();
+    }
+
+    /**
+     * Returns the latency below or at which the given fraction of all recorded
+     * latencies lie. The upper bound of the matching bucket is returned, but never
+     * more than the largest recorded latency.
+     * 
+     * @param quantile the fraction, between {@code 0} and {@code 1}
+     * @return the latency in nanoseconds, {@code 0} if nothing was recorded
+     */
+    public long getQuantileNanos(double quantile) {
+        long recorded = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            recorded += this.buckets.get(i);
+        }
+        long target = Math.max(1, (long) Math.ceil(quantile * recorded));
+
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += this.buckets.get(i);
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), getMaxNanos());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Discards all recorded latencies.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.buckets.set(i, 0);
+        }
+        this.count.set(0);
+        this.totalNanos.set(0);
+        this.maxNanos.set(0);
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & SUB_BUCKET_MASK;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
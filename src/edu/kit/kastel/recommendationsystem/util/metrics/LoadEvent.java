@@ -0,0 +1,50 @@
+package edu.kit.kastel.recommendationsystem.util.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for loading a graph, from reading the file until the
+ * graph is built.
+ * 
+ * @author urrwg
+ */
+@Name("edu.kit.kastel.recommendationsystem.Load")
+@Label("Load")
+@Category({"Recommendation System", "Load"})
+@Description("Loading a graph from a file")
+public final class LoadEvent extends Event {
+
+    @Label("Lines")
+    private long lines;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    @Label("Nodes")
+    private int nodes;
+
+    @Label("Edges")
+    private int edges;
+
+    /**
+     * Sets the fields of this event and commits it.
+     * 
+     * @param lines the number of processed lines
+     * @param bytes the number of processed bytes
+     * @param nodes the number of nodes of the loaded graph
+     * @param edges the number of edges of the loaded graph
+     */
+    public void commit(long lines, long bytes, int nodes, int edges) {
+        this.lines = lines;
+        this.bytes = bytes;
+        this.nodes = nodes;
+        this.edges = edges;
+        commit();
+    }
+}
@@ -0,0 +1,177 @@
+package edu.kit.kastel.recommendationsystem.util.metrics;
+
+import java.util.Locale;
+import java.util.function.Consumer;
+
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.model.NodeType;
+
+/**
+ * Collects timing and throughput metrics while a graph is loaded.
+ * The time spent in every {@link LoadPhase} is accumulated separately, and the
+ * number of processed lines and bytes is counted. As soon as a load takes longer
+ * than {@value #PROGRESS_INTERVAL_NANOS} nanoseconds, the progress is reported
+ * periodically and a summary is reported when the load is finished. Short loads
+ * are not reported at all.
+ * 
+ * @author urrwg
+ */
+public final class LoadMetrics {
+
+    private static final long PROGRESS_INTERVAL_NANOS = 1_000_000_000L;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double BYTES_PER_MEGABYTE = 1024 * 1024;
+    private static final double PERCENT = 100;
+
+    private static final String PROGRESS_FORMAT = "load: %d/%d lines (%.1f%%), %.0f lines/s, %.1f MB/s";
+    private static final String SUMMARY_FORMAT = "load finished in %.3f s (%s), %d lines (%.0f lines/s, %.1f MB/s), "
+            + "%d nodes (%d products, %d categories), %d edges, heap used %.1f MB";
+    private static final String PHASE_FORMAT = "%s %.3f s";
+    private static final String PHASE_SEPARATOR = ", ";
+
+    private final Consumer<String> reporter;
+    private final long[] phaseNanos = new long[LoadPhase.values().length];
+    private final long startNanos;
+    private final LoadEvent event = new LoadEvent();
+
+    private long lastReportNanos;
+    private long linesAtLastReport;
+    private long bytesAtLastReport;
+    private boolean hasReported;
+    private long totalLines;
+    private long lines;
+    private long bytes;
+
+    /**
+     * Constructs a new instance, which starts measuring right away.
+     * 
+     * @param reporter the consumer receiving progress reports and the summary
+     */
+    public LoadMetrics(Consumer<String> reporter) {
+        this.reporter = reporter;
+        this.startNanos = System.nanoTime();
+        this.lastReportNanos = this.startNanos;
+        this.event.begin();
+    }
+
+    /**
+     * Returns metrics which never report anything.
+     * 
+     * @return the silent metrics
+     */
+    public static LoadMetrics silent() {
+        return new LoadMetrics(output -> { });
+    }
+
+    /**
+     * Returns the current point in time, to start timing a phase.
+     * 
+     * @return the current point in time in nanoseconds
+     */
+    public long startPhase() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Adds the time since the given start to the given phase. The returned point
+     * in time can be used as start of the following phase.
+     * 
+     * @param phase      the phase which ended
+     * @param phaseStart the start of the phase, see {@link #startPhase()}
+     * @return the current point in time in nanoseconds
+     */
+    public long endPhase(LoadPhase phase, long phaseStart) {
+        long now = System.nanoTime();
+        this.phaseNanos[phase.ordinal()] += now - phaseStart;
+        return now;
+    }
+
+    /**
+     * Sets the total number of lines which are going to be processed.
+     * 
+     * @param totalLines the total number of lines
+     */
+    public void setTotalLines(long totalLines) {
+        this.totalLines = totalLines;
+    }
+
+    /**
+     * Counts a processed line and reports the progress, if the last report is
+     * long enough ago. The reported throughput is the one since the last report.
+     * 
+     * @param lineBytes the number of bytes of the processed line
+     */
+    public void lineProcessed(int lineBytes) {
+        this.lines++;
+        this.bytes += lineBytes;
+
+        long now = System.nanoTime();
+        if (now - this.lastReportNanos < PROGRESS_INTERVAL_NANOS) {
+            return;
+        }
+
+        double seconds = (now - this.lastReportNanos) / NANOS_PER_SECOND;
+        this.reporter.accept(String.format(Locale.ROOT, PROGRESS_FORMAT, this.lines, this.totalLines,
+                PERCENT * this.lines / Math.max(1, this.totalLines), (this.lines - this.linesAtLastReport) / seconds,
+                (this.bytes - this.bytesAtLastReport) / BYTES_PER_MEGABYTE / seconds));
+
+        this.lastReportNanos = now;
+        this.linesAtLastReport = this.lines;
+        this.bytesAtLastReport = this.bytes;
+        this.hasReported = true;
+    }
+
+    /**
+     * Finishes the measurement and reports a summary of the loaded graph, if the
+     * load took long enough to report its progress. The load and its phases are
+     * committed as flight recorder events, if they are enabled.
+     * 
+     * @param graph the loaded graph
+     */
+    public void finish(Graph graph) {
+        commitEvents(graph);
+        long elapsedNanos = System.nanoTime() - this.startNanos;
+        if (!this.hasReported && elapsedNanos < PROGRESS_INTERVAL_NANOS) {
+            return;
+        }
+
+        int products = 0;
+        for (Node node : graph.getNodes()) {
+            if (node.isOfType(NodeType.PRODUCT)) {
+                products++;
+            }
+        }
+        int nodes = graph.getNodes().size();
+        Runtime runtime = Runtime.getRuntime();
+        double seconds = elapsedNanos / NANOS_PER_SECOND;
+
+        this.reporter.accept(String.format(Locale.ROOT, SUMMARY_FORMAT, seconds, formatPhases(), this.lines,
+                this.lines / seconds, this.bytes / BYTES_PER_MEGABYTE / seconds, nodes, products, nodes - products,
+                graph.getEdges().size(), (runtime.totalMemory() - runtime.freeMemory()) / BYTES_PER_MEGABYTE));
+    }
+
+    private void commitEvents(Graph graph) {
+        if (this.event.shouldCommit()) {
+            this.event.commit(this.lines, this.bytes, graph.getNodes().size(), graph.getEdges().size());
+        }
+        for (LoadPhase phase : LoadPhase.values()) {
+            LoadPhaseEvent phaseEvent = new LoadPhaseEvent();
+            if (phaseEvent.shouldCommit()) {
+                phaseEvent.commit(phase, this.phaseNanos[phase.ordinal()]);
+            }
+        }
+    }
+
+    private String formatPhases() {
+        StringBuilder phases = new StringBuilder();
+        for (LoadPhase phase : LoadPhase.values()) {
+            if (!phases.isEmpty()) {
+                phases.append(PHASE_SEPARATOR);
+            }
+            phases.append(String.format(Locale.ROOT, PHASE_FORMAT, phase, this.phaseNanos[phase.ordinal()]
+                    / NANOS_PER_SECOND));
+        }
+        return phases.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package edu.kit.kastel.recommendationsystem.util.metrics;
+
+/**
+ * Represents the phases of loading a graph, which are timed separately by the
+ * {@link LoadMetrics}.
+ * 
+ * @author urrwg
+ */
+public enum LoadPhase {
+    /**
+     * Reading the file from the storage device.
+     */
+    READ("read"),
+
+    /**
+     * Parsing the lines with the {@code LineParser}.
+     */
+    PARSE("parse"),
+
+    /**
+     * Validating the parsed relationships.
+     */
+    VALIDATE("validate"),
+
+    /**
+     * Constructing the nodes, edges and the graph.
+     */
+    BUILD("build");
+
+    private final String representation;
+
+    LoadPhase(String representation) {
+        this.representation = representation;
+    }
+
+    @Override
+    public String toString() {
+        return this.representation;
+    }
+}
@@ -0,0 +1,41 @@
+package edu.kit.kastel.recommendationsystem.util.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for the time spent in a {@link LoadPhase}. The phases
+ * interleave line by line, so one event per phase is committed when the load is
+ * finished, holding the accumulated time of the phase.
+ * 
+ * @author urrwg
+ */
+@Name("edu.kit.kastel.recommendationsystem.LoadPhase")
+@Label("Load Phase")
+@Category({"Recommendation System", "Load"})
+@Description("Accumulated time spent in a phase of loading a graph")
+public final class LoadPhaseEvent extends Event {
+
+    @Label("Phase")
+    private String phase;
+
+    @Label("Time")
+    @Timespan(Timespan.NANOSECONDS)
+    private long phaseNanos;
+
+    /**
+     * Sets the fields of this event and commits it.
+     * 
+     * @param phase      the phase
+     * @param phaseNanos the accumulated time spent in the phase in nanoseconds
+     */
+    public void commit(LoadPhase phase, long phaseNanos) {
+        this.phase = phase.name();
+        this.phaseNanos = phaseNanos;
+        commit();
+    }
+}
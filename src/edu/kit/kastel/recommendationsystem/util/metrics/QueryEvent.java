@@ -0,0 +1,37 @@
+package edu.kit.kastel.recommendationsystem.util.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for parsing and evaluating a recommendation query.
+ * 
+ * @author urrwg
+ */
+@Name("edu.kit.kastel.recommendationsystem.Query")
+@Label("Query")
+@Category({"Recommendation System", "Recommendations"})
+@Description("Parsing and evaluation of a recommendation query")
+public final class QueryEvent extends Event {
+
+    @Label("Query")
+    private String query;
+
+    @Label("Result Size")
+    private int resultSize;
+
+    /**
+     * Sets the fields of this event and commits it.
+     * 
+     * @param query      the query
+     * @param resultSize the number of recommended products
+     */
+    public void commit(String query, int resultSize) {
+        this.query = query;
+        this.resultSize = resultSize;
+        commit();
+    }
+}
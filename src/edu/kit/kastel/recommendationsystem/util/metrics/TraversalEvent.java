@@ -0,0 +1,48 @@
+package edu.kit.kastel.recommendationsystem.util.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a single traversal of a recommendation strategy.
+ * 
+ * @author urrwg
+ */
+@Name("edu.kit.kastel.recommendationsystem.Traversal")
+@Label("Traversal")
+@Category({"Recommendation System", "Recommendations"})
+@Description("Traversal of the graph by a recommendation strategy")
+public final class TraversalEvent extends Event {
+
+    @Label("Strategy")
+    private String strategy;
+
+    @Label("Seed Id")
+    @Description("Id of the reference product, -1 if it is no product")
+    private int seedId;
+
+    @Label("Nodes Visited")
+    private int nodesVisited;
+
+    @Label("Result Size")
+    private int resultSize;
+
+    /**
+     * Sets the fields of this event and commits it.
+     * 
+     * @param strategy     the name of the strategy
+     * @param seedId       the id of the reference product
+     * @param nodesVisited the number of visited nodes
+     * @param resultSize   the number of recommended products
+     */
+    public void commit(String strategy, int seedId, int nodesVisited, int resultSize) {
+        this.strategy = strategy;
+        this.seedId = seedId;
+        this.nodesVisited = nodesVisited;
+        this.resultSize = resultSize;
+        commit();
+    }
+}
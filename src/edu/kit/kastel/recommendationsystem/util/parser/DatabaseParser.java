@@ -1,16 +1,27 @@
 package edu.kit.kastel.recommendationsystem.util.parser;
 
+import java.io.IOException;
+import java.io.BufferedReader;
+import java.util.Map;
 import java.util.Set;
 import java.util.List;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.ArrayList;
 
+import edu.kit.kastel.recommendationsystem.model.Category;
 import edu.kit.kastel.recommendationsystem.model.Edge;
 import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.model.GraphVersion;
 import edu.kit.kastel.recommendationsystem.model.Node;
 import edu.kit.kastel.recommendationsystem.model.NodeType;
 import edu.kit.kastel.recommendationsystem.model.Product;
 import edu.kit.kastel.recommendationsystem.model.RelationshipDTO;
 import edu.kit.kastel.recommendationsystem.model.RelationshipType;
+import edu.kit.kastel.recommendationsystem.model.SymbolTable;
+import edu.kit.kastel.recommendationsystem.util.metrics.LoadMetrics;
+import edu.kit.kastel.recommendationsystem.util.metrics.LoadPhase;
 
 /**
  * Utility class for parsing database input and constructing a graph
@@ -22,10 +33,14 @@
  */
 public final class DatabaseParser {
 
+    private static final int LINE_SEPARATOR_LENGTH = 1;
+    private static final int INITIAL_SYMBOL_CAPACITY = 1024;
+
     private static final String ERROR_SELF_REFERENCE = "self-reference not allowed";
     private static final String ERROR_DUPLICATE_EDGE = "duplicate edge detected";
     private static final String ERROR_DUPLICATE_PRODUCT_ID = "duplicate product ID detected: %d";
     private static final String ERROR_DUPLICATE_NODE_NAME = "duplicate node name detected: %s";
+    private static final String ERROR_READING_LINES = "could not read the lines to import";
     private static final String ERROR_INVALID_RELATIONSHIP = "the relationship: %s, is not aplicable for the given node types";
 
     private DatabaseParser() {
@@ -40,65 +55,162 @@ private DatabaseParser() {
      * @throws DataParsException if parsing or validation fails
      */
     public static Graph parse(List<String> lines) throws DataParsException {
-        Set<Node> nodes = new HashSet<>();
-        Set<Edge> edges = new HashSet<>();
+        return parse(lines, LoadMetrics.silent());
+    }
+
+    /**
+     * Parses a list of input lines and constructs a graph representation, while
+     * recording the time spent parsing, validating and building the graph.
+     * 
+     * @param lines   the list of input lines representing relationships
+     * @param metrics the metrics to record the load in
+     * @return the constructed graph
+     * @throws DataParsException if parsing or validation fails
+     */
+    public static Graph parse(List<String> lines, LoadMetrics metrics) throws DataParsException {
+        IndexedValidator validator = new IndexedValidator(GraphVersion.of(new SymbolTable(), Set.of(), Set.of()));
+        metrics.setTotalLines(lines.size());
 
         for (String line : lines) {
-            RelationshipDTO relationship = LineParser.parse(line);
+            long phaseStart = metrics.startPhase();
+            RelationshipDTO relationship = LineParser.parse(line, validator.getSymbols(), validator);
+            phaseStart = metrics.endPhase(LoadPhase.PARSE, phaseStart);
+
+            validator.validateRelationship(relationship);
+            phaseStart = metrics.endPhase(LoadPhase.VALIDATE, phaseStart);
 
-            ValidationUtils.validateRelationship(relationship, nodes, edges);
-            processRelationship(relationship, nodes, edges);
+            validator.register(relationship);
+            metrics.endPhase(LoadPhase.BUILD, phaseStart);
+            metrics.lineProcessed(line.length() + LINE_SEPARATOR_LENGTH);
         }
 
-        return new Graph(nodes, edges);
+        long phaseStart = metrics.startPhase();
+        Graph graph = new Graph(validator.getSymbols(), validator.getNodes(), validator.getEdges());
+        metrics.endPhase(LoadPhase.BUILD, phaseStart);
+        return graph;
     }
 
-    private static void processRelationship(RelationshipDTO relationship, Set<Node> nodes, Set<Edge> edges) {
-        Node subject = getOrRegisterNode(relationship.subject(), nodes);
-        Node object = getOrRegisterNode(relationship.object(), nodes);
-        createEdgeIfAbsent(subject, object, relationship.predicate(), edges);
+    /**
+     * Parses lines in database syntax into relationships which can be added to a
+     * graph with the given version at once. The lines are streamed from the given
+     * reader and validated against the nodes and edges of the version as well as
+     * the previous lines, with the same rules as a database file. Relationships
+     * which are already contained in the version are skipped.
+     * 
+     * @param reader the reader to read the lines from
+     * @param base   the version of the graph the relationships are added to
+     * @return the relationships to add, referencing the nodes of the version where
+     *         they already exist
+     * @throws DataParsException if a line could not be read, parsed or validated
+     */
+    public static List<RelationshipDTO> parseBatch(BufferedReader reader, GraphVersion base) throws DataParsException {
+        IndexedValidator validator = new IndexedValidator(base);
+        List<RelationshipDTO> batch = new ArrayList<>();
+        try {
+            String line = reader.readLine();
+            while (line != null) {
+                RelationshipDTO relationship = LineParser.parse(line, validator.getSymbols(), validator);
+                validator.validateRelationship(relationship);
+                RelationshipDTO registered = validator.register(relationship);
+                if (registered != null) {
+                    batch.add(registered);
+                }
+                line = reader.readLine();
+            }
+        } catch (IOException exception) {
+            throw new DataParsException(ERROR_READING_LINES);
+        }
+        return batch;
     }
 
-    private static Node getOrRegisterNode(Node node, Set<Node> nodes) {
-        for (Node existingNode : nodes) {
-            if (existingNode.equals(node)) {
-                return existingNode;
+    /**
+     * Indexed validator, used to validate the Input retrieved from the
+     * {@link LineParser} to prevent semantic errors. All lookups are backed by
+     * indexes (symbol of the name to node, id to product and the set of edges),
+     * so validating a single line does not depend on the size of the database.
+     * Nodes and edges of the base version count as if they were registered
+     * before, without being copied into the indexes. The validator resolves the
+     * nodes of the parsed lines, so a node is only created on its first line.
+     */
+    private static final class IndexedValidator implements LineParser.NodeResolver {
+
+        private final GraphVersion base;
+        private final List<Node> nodes = new ArrayList<>();
+        private Node[] nodesBySymbol = new Node[INITIAL_SYMBOL_CAPACITY];
+        private final Map<Integer, Product> productsById = new HashMap<>();
+        private final Set<Edge> edges = new HashSet<>();
+
+        private IndexedValidator(GraphVersion base) {
+            this.base = base;
+        }
+
+        @Override
+        public Node resolve(int symbol, int productId) {
+            Node node = findNodeBySymbol(symbol);
+            if (productId == LineParser.NO_PRODUCT_ID) {
+                return node != null && node.isOfType(NodeType.CATEGORY) ? node : new Category(getSymbols(), symbol);
             }
+            // Conflicting nodes are created anyway, so the validation reports them
+            return node instanceof Product product && product.getId() == productId ? node : new Product(getSymbols(), symbol, productId);
         }
-        nodes.add(node);
-        return node;
-    }
 
-    private static void createEdgeIfAbsent(Node from, Node to, RelationshipType type, Set<Edge> edges) {
-        Edge edge = new Edge(from, to, type);
-        if (!edges.contains(edge)) {
-            edges.add(edge);
-            from.addEdge(edge);
+        private SymbolTable getSymbols() {
+            return this.base.getSymbols();
         }
 
-        Edge reverseEdge = new Edge(to, from, type.getReverse());
-        if (!edges.contains(reverseEdge)) {
-            edges.add(reverseEdge);
-            to.addEdge(reverseEdge);
+        private Set<Node> getNodes() {
+            return new HashSet<>(this.nodes);
         }
-    }
 
-    /**
-     * Validation util class, solely used to validate the Input retrieved from the
-     * {@link LineParser} to prevent semantic errors.
-     */
-    private final class ValidationUtils {
+        private Set<Edge> getEdges() {
+            return this.edges;
+        }
 
-        private static void validateRelationship(RelationshipDTO relationship, Set<Node> existingNodes,
-                Set<Edge> existingEdges)
-                throws DataParsException {
-            validateRelationship(relationship);
+        private void validateRelationship(RelationshipDTO relationship) throws DataParsException {
+            validateAllowedRelationship(relationship);
             validateNoSelfReference(relationship);
-            validateUniqueIdentifiers(relationship, existingNodes);
-            validateEdgeUniqueness(relationship, existingEdges);
+            validateUniqueIdentifiers(relationship);
+            validateEdgeUniqueness(relationship);
+        }
+
+        private RelationshipDTO register(RelationshipDTO relationship) {
+            Node subject = getOrRegisterNode(relationship.subject());
+            Node object = getOrRegisterNode(relationship.object());
+            RelationshipDTO registered = new RelationshipDTO(subject, relationship.predicate(), object);
+            if (this.base.containsEdge(registered.edge())) {
+                return null;
+            }
+            createEdgeIfAbsent(subject, object, relationship.predicate());
+            return registered;
+        }
+
+        private Node findNodeBySymbol(int symbol) {
+            Node node = symbol < this.nodesBySymbol.length ? this.nodesBySymbol[symbol] : null;
+            return node != null ? node : this.base.findNodeBySymbol(symbol);
+        }
+
+        private Node getOrRegisterNode(Node node) {
+            Node existingNode = findNodeBySymbol(node.getSymbol());
+            if (existingNode != null) {
+                return existingNode;
+            }
+            if (node.getSymbol() >= this.nodesBySymbol.length) {
+                this.nodesBySymbol = Arrays.copyOf(this.nodesBySymbol, Math.max(this.nodesBySymbol.length * 2, node.getSymbol() + 1));
+            }
+            this.nodesBySymbol[node.getSymbol()] = node;
+            this.nodes.add(node);
+            if (node.isOfType(NodeType.PRODUCT)) {
+                this.productsById.put(((Product) node).getId(), (Product) node);
+            }
+            return node;
         }
 
-        private static void validateRelationship(RelationshipDTO relationship) throws DataParsException {
+        private void createEdgeIfAbsent(Node from, Node to, RelationshipType type) {
+            this.edges.add(new Edge(from, to, type));
+            this.edges.add(new Edge(to, from, type.getReverse()));
+        }
+
+        private static void validateAllowedRelationship(RelationshipDTO relationship) throws DataParsException {
             if (!RelationshipType.isAllowedRelationship(relationship)) {
                 throw new DataParsException(String.format(ERROR_INVALID_RELATIONSHIP, relationship.predicate()));
             }
@@ -110,18 +222,29 @@ private static void validateNoSelfReference(RelationshipDTO relationship) throws
             }
         }
 
-        private static void validateUniqueIdentifiers(RelationshipDTO relationship, Set<Node> nodes)
-                throws DataParsException {
-            for (Node existingNode : nodes) {
-                checkProductIdUniqueness(relationship.subject(), existingNode);
-                checkProductIdUniqueness(relationship.object(), existingNode);
-                checkNodeNameUniqueness(relationship.subject(), existingNode);
-                checkNodeNameUniqueness(relationship.object(), existingNode);
+        private void validateUniqueIdentifiers(RelationshipDTO relationship) throws DataParsException {
+            Node subject = relationship.subject();
+            Node object = relationship.object();
+
+            checkProductIdUniqueness(subject, findProductWithSameId(subject));
+            checkProductIdUniqueness(object, findProductWithSameId(object));
+            checkProductIdUniqueness(object, subject);
+            checkNodeNameUniqueness(subject, findNodeBySymbol(subject.getSymbol()));
+            checkNodeNameUniqueness(object, findNodeBySymbol(object.getSymbol()));
+            checkNodeNameUniqueness(object, subject);
+        }
+
+        private Node findProductWithSameId(Node node) {
+            if (!node.isOfType(NodeType.PRODUCT)) {
+                return null;
             }
+            Product product = this.productsById.get(((Product) node).getId());
+            return product != null ? product : this.base.findProductById(((Product) node).getId());
         }
 
         private static void checkProductIdUniqueness(Node currentNode, Node existingNode) throws DataParsException {
-            if (currentNode.isOfType(NodeType.PRODUCT) && existingNode.isOfType(NodeType.PRODUCT)) {
+            if (existingNode != null
+                    && currentNode.isOfType(NodeType.PRODUCT) && existingNode.isOfType(NodeType.PRODUCT)) {
                 Product currentProduct = (Product) currentNode;
                 Product existingProduct = (Product) existingNode;
 
@@ -132,19 +255,16 @@ private static void checkProductIdUniqueness(Node currentNode, Node existingNode
         }
 
         private static void checkNodeNameUniqueness(Node currentNode, Node existingNode) throws DataParsException {
-            if (currentNode.getName().equalsIgnoreCase(existingNode.getName())
+            if (existingNode != null
+                    && currentNode.getSymbol() == existingNode.getSymbol()
                     && !currentNode.equals(existingNode)) {
                 throw new DataParsException(String.format(ERROR_DUPLICATE_NODE_NAME, existingNode.getName()));
             }
         }
 
-        private static void validateEdgeUniqueness(RelationshipDTO relationship, Set<Edge> existingEdges)
-                throws DataParsException {
-            for (Edge existingEdge : existingEdges) {
-                if (existingEdge
-                        .equals(new Edge(relationship.subject(), relationship.object(), relationship.predicate()))) {
-                    throw new DataParsException(ERROR_DUPLICATE_EDGE);
-                }
+        private void validateEdgeUniqueness(RelationshipDTO relationship) throws DataParsException {
+            if (this.edges.contains(relationship.edge())) {
+                throw new DataParsException(ERROR_DUPLICATE_EDGE);
             }
         }
     }
@@ -0,0 +1,70 @@
+package edu.kit.kastel.recommendationsystem.util.parser;
+
+import java.util.Set;
+
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.model.NodeType;
+import edu.kit.kastel.recommendationsystem.model.RecommendationStrategy;
+import edu.kit.kastel.recommendationsystem.model.TraversalBounds;
+
+/**
+ * Evaluates the leaf terms of queries with the {@link RecommendationStrategy
+ * recommendation strategies} on a local graph.
+ * 
+ * @author urrwg
+ */
+final class GraphQueryBackend implements QueryBackend {
+
+    private static final String ERROR_PRODUCT_NOT_FOUND = "product not found: %s";
+    private static final String ERROR_INVALID_STRATEGY = "invalid strategy: %s";
+    private static final String ERROR_CATEGORY_NOT_FOUND = "category not found: %s";
+
+    private final Graph graph;
+
+    /**
+     * Constructs a new backend evaluating queries on the given graph.
+     * 
+     * @param graph the graph to evaluate the queries on
+     */
+    GraphQueryBackend(Graph graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public Set<Node> findProducts(String strategy, TraversalBounds bounds, int productId) throws DataParsException {
+        Node productNode = this.graph.findProductById(productId);
+        if (productNode == null) {
+            throw new DataParsException(String.format(ERROR_PRODUCT_NOT_FOUND, productId));
+        }
+
+        return switch (strategy) {
+            case SIBLING_STRATEGY -> RecommendationStrategy.findSiblingProducts(productNode, this.graph, bounds);
+            case SUCCESSOR_STRATEGY -> RecommendationStrategy.findSuccessorProducts(productNode, this.graph, bounds);
+            case PREDECESSOR_STRATEGY -> RecommendationStrategy.findPredecessorProducts(productNode, this.graph, bounds);
+            case COMPONENT_STRATEGY -> RecommendationStrategy.findComponentProducts(productNode, this.graph, bounds);
+            case ASSEMBLY_STRATEGY -> RecommendationStrategy.findAssemblyProducts(productNode, this.graph, bounds);
+            default -> throw new DataParsException(String.format(ERROR_INVALID_STRATEGY, strategy));
+        };
+    }
+
+    @Override
+    public Set<Node> findCategoryProducts(String category) throws DataParsException {
+        return RecommendationStrategy.findCategoryProducts(resolveCategory(category), this.graph);
+    }
+
+    @Override
+    public Set<Node> retainCategoryProducts(Set<Node> nodes, String category) throws DataParsException {
+        // The nodes are checked by membership instead of enumerating the subtree
+        return RecommendationStrategy.retainCategoryProducts(nodes, resolveCategory(category), this.graph);
+    }
+
+    private Node resolveCategory(String name) throws DataParsException {
+        // Names are looked up instead of interned, so queries can not grow the symbol table
+        Node category = this.graph.findNodeByName(name);
+        if (category == null || !category.isOfType(NodeType.CATEGORY) || this.graph.getEdges(category).isEmpty()) {
+            throw new DataParsException(String.format(ERROR_CATEGORY_NOT_FOUND, name.toLowerCase()));
+        }
+        return category;
+    }
+}
@@ -8,6 +8,7 @@
 import edu.kit.kastel.recommendationsystem.model.Product;
 import edu.kit.kastel.recommendationsystem.model.RelationshipDTO;
 import edu.kit.kastel.recommendationsystem.model.RelationshipType;
+import edu.kit.kastel.recommendationsystem.model.SymbolTable;
 
 /**
  * Parses lines from a database file into {@link RelationshipDTO} objects.
@@ -46,12 +47,23 @@
  * </li>
  * <li>Case-insensitive for relationship types</li>
  * </ul>
+ * <p>
+ * Names are resolved to their symbols in the {@link SymbolTable} of the graph
+ * straight from the line, so no name is copied out of the line unless it has
+ * to be lowercased.
+ * </p>
  *
  * 
  * @author urrwg
  */
 public final class LineParser {
 
+    /**
+     * The product id passed to a {@link NodeResolver} and returned by
+     * {@link #parseProductIds(String)} for categories.
+     */
+    public static final int NO_PRODUCT_ID = -1;
+
     private static final String REGEX_GROUP_SUBJECT_PRODUCT = "subjectProduct";
     private static final String REGEX_GROUP_SUBJECT_ID = "subjectId";
     private static final String REGEX_GROUP_SUBJECT_CATEGORY = "subjectCategory";
@@ -74,6 +86,7 @@ public final class LineParser {
 
     private static final String ERROR_INVALID_STRING_PATTERN = "the given string does not match the provided pattern. line: %s";
     private static final String ERROR_INVALID_PREDICATE = "the given predicate is incorrect: %s";
+    private static final int DECIMAL_RADIX = 10;
     private static final String ERROR_INVALID_ID_NUMBER = "please provide a valid number instead of: %s";
 
     private LineParser() {
@@ -85,39 +98,85 @@ private LineParser() {
      * The line must conform to the expected format for relationships between nodes,
      * which is stated in the BNF-grammar.
      * 
-     * @param line the input line to parse
+     * @param line    the input line to parse
+     * @param symbols the table of the names of the graph the line refers to
      * @return a {@link RelationshipDTO} representing the parsed relationship
      * @throws DataParsException if the line does not match the expected format or
      *                           contains invalid data
      */
-    public static RelationshipDTO parse(String line) throws DataParsException {
-        Matcher matcher = REGEX_LINE_PATTERN.matcher(line);
+    public static RelationshipDTO parse(String line, SymbolTable symbols) throws DataParsException {
+        return parse(line, symbols, (symbol, productId) -> createNode(symbols, symbol, productId));
+    }
 
-        if (!matcher.matches()) {
-            throw new DataParsException(String.format(ERROR_INVALID_STRING_PATTERN, line));
-        }
+    /**
+     * Parses a line like {@link #parse(String, SymbolTable)}, but lets the given
+     * resolver provide the nodes, so nodes which already exist are not created
+     * again.
+     * 
+     * @param line     the input line to parse
+     * @param symbols  the table to intern the names of the line in
+     * @param resolver the resolver providing the nodes of the line
+     * @return a {@link RelationshipDTO} representing the parsed relationship
+     * @throws DataParsException if the line does not match the expected format or
+     *                           contains invalid data
+     */
+    static RelationshipDTO parse(String line, SymbolTable symbols, NodeResolver resolver) throws DataParsException {
+        Matcher matcher = match(line);
 
-        Node subject = parseNode(
-                matcher.group(REGEX_GROUP_SUBJECT_PRODUCT),
-                matcher.group(REGEX_GROUP_SUBJECT_ID),
-                matcher.group(REGEX_GROUP_SUBJECT_CATEGORY));
+        Node subject = parseNode(line, matcher, REGEX_GROUP_SUBJECT_PRODUCT, REGEX_GROUP_SUBJECT_ID,
+                REGEX_GROUP_SUBJECT_CATEGORY, symbols, resolver);
 
         RelationshipType predicate = parsePredicate(
                 matcher.group(REGEX_GROUP_PREDICATE));
 
-        Node object = parseNode(
-                matcher.group(REGEX_GROUP_OBJECT_PRODUCT),
-                matcher.group(REGEX_GROUP_OBJECT_ID),
-                matcher.group(REGEX_GROUP_OBJECT_CATEGORY));
+        Node object = parseNode(line, matcher, REGEX_GROUP_OBJECT_PRODUCT, REGEX_GROUP_OBJECT_ID,
+                REGEX_GROUP_OBJECT_CATEGORY, symbols, resolver);
 
         return new RelationshipDTO(subject, predicate, object);
     }
 
-    private static Node parseNode(String productName, String productId, String categoryName) throws DataParsException {
-        if (productName == null) {
-            return new Category(categoryName);
+    /**
+     * Parses only the product ids of the subject and the object of a line, which is
+     * validated like by {@link #parse(String, SymbolTable)}. No name is interned, so
+     * callers which only route lines, e.g. to the shards of a graph, do not hold the
+     * names.
+     * 
+     * @param line the input line to parse
+     * @return the product ids of the subject and the object, {@link #NO_PRODUCT_ID}
+     *         for a category
+     * @throws DataParsException if the line does not match the expected format or
+     *                           contains invalid data
+     */
+    public static int[] parseProductIds(String line) throws DataParsException {
+        Matcher matcher = match(line);
+        parsePredicate(matcher.group(REGEX_GROUP_PREDICATE));
+        return new int[] {parseProductId(line, matcher, REGEX_GROUP_SUBJECT_ID), parseProductId(line, matcher, REGEX_GROUP_OBJECT_ID)};
+    }
+
+    private static Matcher match(String line) throws DataParsException {
+        Matcher matcher = REGEX_LINE_PATTERN.matcher(line);
+        if (!matcher.matches()) {
+            throw new DataParsException(String.format(ERROR_INVALID_STRING_PATTERN, line));
         }
-        return new Product(productName, parseInt(productId));
+        return matcher;
+    }
+
+    private static int parseProductId(String line, Matcher matcher, String idGroup) throws DataParsException {
+        return matcher.start(idGroup) < 0 ? NO_PRODUCT_ID : parseInt(line, matcher.start(idGroup), matcher.end(idGroup));
+    }
+
+    private static Node parseNode(String line, Matcher matcher, String productGroup, String idGroup, String categoryGroup,
+            SymbolTable symbols, NodeResolver resolver) throws DataParsException {
+        if (matcher.start(productGroup) < 0) {
+            return resolver.resolve(symbols.intern(line, matcher.start(categoryGroup), matcher.end(categoryGroup)),
+                    NO_PRODUCT_ID);
+        }
+        int symbol = symbols.intern(line, matcher.start(productGroup), matcher.end(productGroup));
+        return resolver.resolve(symbol, parseInt(line, matcher.start(idGroup), matcher.end(idGroup)));
+    }
+
+    private static Node createNode(SymbolTable symbols, int symbol, int productId) {
+        return productId == NO_PRODUCT_ID ? new Category(symbols, symbol) : new Product(symbols, symbol, productId);
     }
 
     private static RelationshipType parsePredicate(String type) throws DataParsException {
@@ -127,11 +186,29 @@ private static RelationshipType parsePredicate(String type) throws DataParsExcep
         return RelationshipType.fromString(type);
     }
 
-    private static int parseInt(String numberString) throws DataParsException {
+    private static int parseInt(String line, int start, int end) throws DataParsException {
         try {
-            return Integer.parseInt(numberString);
+            return Integer.parseInt(line, start, end, DECIMAL_RADIX);
         } catch (NumberFormatException exception) {
-            throw new DataParsException(String.format(ERROR_INVALID_ID_NUMBER, numberString));
+            throw new DataParsException(String.format(ERROR_INVALID_ID_NUMBER, line.substring(start, end)));
         }
     }
+
+    /**
+     * Provides the node of a name and product id parsed from a line.
+     */
+    @FunctionalInterface
+    interface NodeResolver {
+
+        /**
+         * Returns the node with the name of the given symbol, in the table the line is
+         * parsed with, and the given product id.
+         * 
+         * @param symbol    the symbol of the name of the node
+         * @param productId the id of the product, or {@link LineParser#NO_PRODUCT_ID} for a
+         *                  category
+         * @return the node
+         */
+        Node resolve(int symbol, int productId);
+    }
 }
\ No newline at end of file
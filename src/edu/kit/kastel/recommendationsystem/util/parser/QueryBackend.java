@@ -0,0 +1,83 @@
+package edu.kit.kastel.recommendationsystem.util.parser;
+
+import java.util.Set;
+import java.util.HashSet;
+
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.model.TraversalBounds;
+
+/**
+ * Evaluates the leaf terms of the queries parsed by the
+ * {@link RecursiveDescentParser}: the recommendation strategies and the
+ * category subtrees. The set operations combining them are evaluated by the
+ * parser itself, so a backend only decides where the leaves run, e.g. on a
+ * local graph or scattered across the shards of a sharded graph.
+ * 
+ * @author urrwg
+ */
+public interface QueryBackend {
+
+    /**
+     * The name of the sibling strategy.
+     */
+    String SIBLING_STRATEGY = "S1";
+
+    /**
+     * The name of the successor strategy.
+     */
+    String SUCCESSOR_STRATEGY = "S2";
+
+    /**
+     * The name of the predecessor strategy.
+     */
+    String PREDECESSOR_STRATEGY = "S3";
+
+    /**
+     * The name of the component strategy.
+     */
+    String COMPONENT_STRATEGY = "S4";
+
+    /**
+     * The name of the assembly strategy.
+     */
+    String ASSEMBLY_STRATEGY = "S5";
+
+    /**
+     * Evaluates the given strategy for the product with the given id.
+     * 
+     * @param strategy  the name of the strategy, e.g. {@value #SIBLING_STRATEGY}
+     * @param bounds    the bounds of the search
+     * @param productId the id of the reference product
+     * @return the recommended products
+     * @throws DataParsException if the product does not exist or the strategy
+     *                           could not be evaluated
+     */
+    Set<Node> findProducts(String strategy, TraversalBounds bounds, int productId) throws DataParsException;
+
+    /**
+     * Returns all products in the subtree of the category with the given name.
+     * 
+     * @param category the name of the category
+     * @return the products in the subtree of the category
+     * @throws DataParsException if the category does not exist or could not be
+     *                           evaluated
+     */
+    Set<Node> findCategoryProducts(String category) throws DataParsException;
+
+    /**
+     * Returns the products of the given nodes which lie in the subtree of the
+     * category with the given name. By default the subtree is enumerated and
+     * intersected with the nodes.
+     * 
+     * @param nodes    the nodes to filter
+     * @param category the name of the category
+     * @return the products of the nodes in the subtree of the category
+     * @throws DataParsException if the category does not exist or could not be
+     *                           evaluated
+     */
+    default Set<Node> retainCategoryProducts(Set<Node> nodes, String category) throws DataParsException {
+        Set<Node> products = new HashSet<>(nodes);
+        products.retainAll(findCategoryProducts(category));
+        return products;
+    }
+}
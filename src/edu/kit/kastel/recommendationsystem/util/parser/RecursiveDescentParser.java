@@ -6,7 +6,8 @@
 
 import edu.kit.kastel.recommendationsystem.model.Graph;
 import edu.kit.kastel.recommendationsystem.model.Node;
-import edu.kit.kastel.recommendationsystem.model.RecommendationStrategy;
+import edu.kit.kastel.recommendationsystem.model.TraversalBounds;
+import edu.kit.kastel.recommendationsystem.util.metrics.QueryEvent;
 
 /**
  * A recursive descent parser for processing recommendation queries.
@@ -16,45 +17,59 @@
  * <p>
  * The parser supports the following operations:
  * <ul>
- * <li>Basic strategies: S1 (Siblings), S2 (Successors), S3 (Predecessors)</li>
+ * <li>Basic strategies: S1 (Siblings), S2 (Successors), S3 (Predecessors),
+ * S4 (Components), S5 (Assemblies)</li>
  * <li>Set operations: UNION and INTERSECTION</li>
+ * <li>Category subtrees: {@code CATEGORY(name)}, all products anywhere below it</li>
+ * <li>Bounds of a strategy: {@code depth} (the maximum number of generations)
+ * and {@code max} (the maximum number of results), e.g.
+ * {@code S2[depth=2] 105} or {@code S3[depth=3,max=50] 105}</li>
  * </ul>
  * 
  * <p>
- * Example query: {@code "UNION(INTERSECTION(S1 100, S2 200), S3 300)"}
+ * Example query: {@code "UNION(INTERSECTION(S1 100, CATEGORY(bikes)), S3 300)"}
  *
  * @author urrwg
  */
 
 public final class RecursiveDescentParser {
 
-    private static final String MULTIPLE_WHITESPACE_REGEX = "\\s+";
     private static final String STRATEGY_PREFIX = "S";
-    private static final String INPUT_SEPARATOR = " ";
     private static final String UNION_OPERATOR = "UNION";
     private static final String INTERSECTION_OPERATOR = "INTERSECTION";
+    private static final String CATEGORY_OPERATOR = "CATEGORY";
 
     private static final String ERROR_UNKNOWN_OPERATOR = "unknown operator: %s";
     private static final String ERROR_INVALID_STRATEGY_NUMBER = "invalid strategy number";
     private static final String ERROR_MISSING_PRODUCT_ID = "expected product ID";
-    private static final String ERROR_PRODUCT_NOT_FOUND = "product not found: %s";
-    private static final String ERROR_INVALID_STRATEGY = "invalid strategy: %s";
+    private static final String ERROR_MISSING_CATEGORY_NAME = "expected category name";
     private static final String ERROR_EXPECTED_CHARACTER = "expected: '%s'";
     private static final String ERROR_UNEXPECTED_END_OF_INPUT = "unexpected characters at end of input";
+    private static final String ERROR_UNKNOWN_BOUND = "unknown bound: %s";
+    private static final String ERROR_INVALID_BOUND_VALUE = "invalid value of bound: %s";
+    private static final String ERROR_DUPLICATE_BOUND = "duplicate bound: %s";
+    private static final String DEPTH_BOUND = "depth";
+    private static final String MAX_BOUND = "max";
 
     private static final int INITIAL_PARS_POSITION = 0;
     private static final char UNION_START_SYMBOL = 'U';
     private static final char INTERSECTION_START_SYMBOL = 'I';
+    private static final char CATEGORY_START_SYMBOL = 'C';
     private static final char PAREN_OPEN = '(';
     private static final char PAREN_CLOSE = ')';
     private static final char COMMA = ',';
+    private static final char BOUNDS_OPEN = '[';
+    private static final char BOUNDS_CLOSE = ']';
+    private static final char BOUND_ASSIGNMENT = '=';
     private static final char STRATEGY_ID_PREFIX = 'S';
     private static final char END_OF_INPUT_CHAR = 0;
     private static final char SIBLING_STRATEGY_NUMBER = '1';
     private static final char SUCCESSOR_STRATEGY_NUMBER = '2';
     private static final char PREDECESSOR_STRATEGY_NUMBER = '3';
+    private static final char COMPONENT_STRATEGY_NUMBER = '4';
+    private static final char ASSEMBLY_STRATEGY_NUMBER = '5';
     private static final List<Character> STRATEGY_RECOGNITION_NUMBERS = List.of(SIBLING_STRATEGY_NUMBER,
-            SUCCESSOR_STRATEGY_NUMBER, PREDECESSOR_STRATEGY_NUMBER);
+            SUCCESSOR_STRATEGY_NUMBER, PREDECESSOR_STRATEGY_NUMBER, COMPONENT_STRATEGY_NUMBER, ASSEMBLY_STRATEGY_NUMBER);
 
     private RecursiveDescentParser() {
         // This is a utility class
@@ -66,8 +81,9 @@ private RecursiveDescentParser() {
      * @param input The recommendation query string to parse. Expected format:
      *              {@code "[OPERATION(][STRATEGY ID, ]*)"} where:
      *              <ul>
-     *              <li>OPERATION: UNION | INTERSECTION</li>
-     *              <li>STRATEGY: S1 | S2 | S3</li>
+     *              <li>OPERATION: UNION | INTERSECTION | CATEGORY(NAME)</li>
+     *              <li>STRATEGY: (S1 | S2 | S3 | S4 | S5), optionally followed by bounds
+     *              {@code [depth=N,max=N]}</li>
      *              <li>ID: Numeric product identifier</li>
      *              </ul>
      * @param graph The graph data structure containing products and relationships
@@ -81,19 +97,43 @@ private RecursiveDescentParser() {
      *                           </ul>
      */
     public static Set<Node> parse(String input, Graph graph) throws DataParsException {
-        ParserState state = new ParserState(input, graph);
+        return parse(input, new GraphQueryBackend(graph));
+    }
+
+    /**
+     * Parses an input string and evaluates it with the given backend, see
+     * {@link #parse(String, Graph)}. The set operations are evaluated here, the
+     * strategies and category subtrees by the backend.
+     * 
+     * @param input   the recommendation query string to parse
+     * @param backend the backend evaluating the leaf terms of the query
+     * @return a set of recommended nodes matching the query criteria
+     * @throws DataParsException if the query is invalid or the backend failed to
+     *                           evaluate one of its terms
+     */
+    public static Set<Node> parse(String input, QueryBackend backend) throws DataParsException {
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        ParserState state = new ParserState(input, backend);
         Term term = parseTerm(state);
         validateEndOfInput(state);
-        return term.evaluate();
+        Set<Node> result = term.evaluate();
+
+        if (event.shouldCommit()) {
+            event.commit(input, result.size());
+        }
+        return result;
     }
 
     private static Term parseTerm(ParserState state) throws DataParsException {
         skipWhitespace(state);
-        if (peek(state) == UNION_START_SYMBOL || peek(state) == INTERSECTION_START_SYMBOL) {
+        char start = peek(state);
+        if (start == UNION_START_SYMBOL || start == INTERSECTION_START_SYMBOL || start == CATEGORY_START_SYMBOL) {
             String operator = parseIdentifier(state);
             return switch (operator.toUpperCase()) {
                 case UNION_OPERATOR -> parseUnion(state);
                 case INTERSECTION_OPERATOR -> parseIntersection(state);
+                case CATEGORY_OPERATOR -> parseCategory(state);
                 default -> throw new DataParsException(String.format(ERROR_UNKNOWN_OPERATOR, operator));
             };
         }
@@ -118,10 +158,75 @@ private static IntersectionTerm parseIntersection(ParserState state) throws Data
         return new IntersectionTerm(left, right);
     }
 
+    private static CategoryTerm parseCategory(ParserState state) throws DataParsException {
+        match(state, PAREN_OPEN);
+        skipWhitespace(state);
+        int start = state.position;
+        while (Character.isLetterOrDigit(peek(state))) {
+            state.position++;
+        }
+        if (start == state.position) {
+            throw new DataParsException(ERROR_MISSING_CATEGORY_NAME);
+        }
+        String name = state.input.substring(start, state.position);
+        match(state, PAREN_CLOSE);
+        return new CategoryTerm(name, state.backend);
+    }
+
     private static FinalTerm parseFinal(ParserState state) throws DataParsException {
         String strategy = parseStrategy(state);
+        TraversalBounds bounds = parseBounds(state);
         int productId = parseProductId(state);
-        return new FinalTerm(strategy, productId, state.graph);
+        return new FinalTerm(strategy, bounds, productId, state.backend);
+    }
+
+    private static TraversalBounds parseBounds(ParserState state) throws DataParsException {
+        skipWhitespace(state);
+        if (peek(state) != BOUNDS_OPEN) {
+            return TraversalBounds.UNBOUNDED;
+        }
+        state.position++;
+        TraversalBounds bounds = parseBound(state, TraversalBounds.UNBOUNDED);
+        skipWhitespace(state);
+        while (peek(state) == COMMA) {
+            state.position++;
+            bounds = parseBound(state, bounds);
+            skipWhitespace(state);
+        }
+        match(state, BOUNDS_CLOSE);
+        return bounds;
+    }
+
+    private static TraversalBounds parseBound(ParserState state, TraversalBounds bounds) throws DataParsException {
+        String name = parseIdentifier(state).toLowerCase();
+        boolean isDepth = name.equals(DEPTH_BOUND);
+        if (!isDepth && !name.equals(MAX_BOUND)) {
+            throw new DataParsException(String.format(ERROR_UNKNOWN_BOUND, name));
+        }
+        if ((isDepth ? bounds.maxDepth() : bounds.maxResults()) != Integer.MAX_VALUE) {
+            throw new DataParsException(String.format(ERROR_DUPLICATE_BOUND, name));
+        }
+        match(state, BOUND_ASSIGNMENT);
+        int value = parseBoundValue(state, name);
+        return isDepth ? bounds.withMaxDepth(value) : bounds.withMaxResults(value);
+    }
+
+    private static int parseBoundValue(ParserState state, String name) throws DataParsException {
+        skipWhitespace(state);
+        int start = state.position;
+        while (Character.isDigit(peek(state))) {
+            state.position++;
+        }
+        int value;
+        try {
+            value = Integer.parseInt(state.input.substring(start, state.position));
+        } catch (NumberFormatException exception) {
+            throw new DataParsException(String.format(ERROR_INVALID_BOUND_VALUE, name));
+        }
+        if (value <= 0) {
+            throw new DataParsException(String.format(ERROR_INVALID_BOUND_VALUE, name));
+        }
+        return value;
     }
 
     private static String parseStrategy(ParserState state) throws DataParsException {
@@ -186,33 +291,21 @@ private interface Term {
 
     private static class FinalTerm implements Term {
 
-        private static final String SIBLING_STRATEGY = "S1";
-        private static final String SUCCESSOR_STRATEGY = "S2";
-        private static final String PREDECESSOR_STRATEGY = "S3";
-
         private final String strategy;
+        private final TraversalBounds bounds;
         private final int productId;
-        private final Graph graph;
+        private final QueryBackend backend;
 
-        FinalTerm(String strategy, int productId, Graph graph) {
+        FinalTerm(String strategy, TraversalBounds bounds, int productId, QueryBackend backend) {
             this.strategy = strategy;
+            this.bounds = bounds;
             this.productId = productId;
-            this.graph = graph;
+            this.backend = backend;
         }
 
         @Override
         public Set<Node> evaluate() throws DataParsException {
-            Node productNode = graph.findProductById(productId);
-            if (productNode == null) {
-                throw new DataParsException(String.format(ERROR_PRODUCT_NOT_FOUND, productId));
-            }
-
-            return switch (strategy) {
-                case SIBLING_STRATEGY -> RecommendationStrategy.findSiblingProducts(productNode, graph);
-                case SUCCESSOR_STRATEGY -> RecommendationStrategy.findSuccessorProducts(productNode, graph);
-                case PREDECESSOR_STRATEGY -> RecommendationStrategy.findPredecessorProducts(productNode, graph);
-                default -> throw new DataParsException(String.format(ERROR_INVALID_STRATEGY, strategy));
-            };
+            return backend.findProducts(strategy, bounds, productId);
         }
     }
 
@@ -246,22 +339,47 @@ private static class IntersectionTerm implements Term {
 
         @Override
         public Set<Node> evaluate() throws DataParsException {
+            // A category is checked by membership instead of enumerating its subtree
+            if (left instanceof CategoryTerm || right instanceof CategoryTerm) {
+                return right instanceof CategoryTerm category ? category.filter(left.evaluate())
+                        : ((CategoryTerm) left).filter(right.evaluate());
+            }
             Set<Node> intersection = new HashSet<>(left.evaluate());
             intersection.retainAll(right.evaluate());
             return intersection;
         }
     }
 
+    private static class CategoryTerm implements Term {
+
+        private final String category;
+        private final QueryBackend backend;
+
+        CategoryTerm(String category, QueryBackend backend) {
+            this.category = category;
+            this.backend = backend;
+        }
+
+        @Override
+        public Set<Node> evaluate() throws DataParsException {
+            return backend.findCategoryProducts(category);
+        }
+
+        Set<Node> filter(Set<Node> nodes) throws DataParsException {
+            return backend.retainCategoryProducts(nodes, category);
+        }
+    }
+
     private static class ParserState {
 
         final String input;
-        final Graph graph;
+        final QueryBackend backend;
         int position;
 
-        ParserState(String input, Graph graph) {
-            this.input = input.trim()
-                    .replaceAll(MULTIPLE_WHITESPACE_REGEX, INPUT_SEPARATOR);
-            this.graph = graph;
+        ParserState(String input, QueryBackend backend) {
+            // Runs of whitespace need not be collapsed, they are skipped while parsing
+            this.input = input.trim();
+            this.backend = backend;
             this.position = INITIAL_PARS_POSITION;
         }
     }
@@ -0,0 +1,377 @@
+package edu.kit.kastel.recommendationsystem.util.snapshot;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.List;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.nio.file.Path;
+import java.nio.ByteBuffer;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.function.IntUnaryOperator;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.nio.charset.StandardCharsets;
+
+import edu.kit.kastel.recommendationsystem.model.Category;
+import edu.kit.kastel.recommendationsystem.model.Edge;
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.model.GraphVersion;
+import edu.kit.kastel.recommendationsystem.model.MemoryFootprint;
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.model.NodeOrdinals;
+import edu.kit.kastel.recommendationsystem.model.NodeType;
+import edu.kit.kastel.recommendationsystem.model.Product;
+import edu.kit.kastel.recommendationsystem.model.RelationshipDTO;
+import edu.kit.kastel.recommendationsystem.model.RelationshipType;
+import edu.kit.kastel.recommendationsystem.model.SymbolTable;
+import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+
+/**
+ * A read-only {@link Graph} which is backed by a memory-mapped snapshot file
+ * (see {@link SnapshotFormat}). Names, product ids and adjacency are read in
+ * place from the mapping, so no object graph is built when the snapshot is
+ * opened. {@link Node} objects are only created for the nodes a caller actually
+ * asks for, e.g. the neighbors visited by a recommendation strategy or the
+ * nodes of an output. Since the mapping is backed by the page cache, several
+ * processes mapping the same snapshot share one copy of it. The ordinals of the
+ * nodes for traversals are their positions in the file, so no ordinals have to
+ * be assigned and stored.
+ * 
+ * <p>
+ * Mutating the graph is not supported: relationships can neither be added nor
+ * removed, and the graph reports itself as {@link #isReadOnly() read-only} so
+ * mutating commands are rejected before they run. Its {@link GraphVersion} is
+ * only built when it is asked for, since that materializes every node and edge
+ * of the snapshot in the heap.
+ * </p>
+ * 
+ * @author urrwg
+ */
+public final class MappedGraph extends Graph {
+
+    private static final String ERROR_READING_SNAPSHOT = "could not read snapshot file";
+    private static final String ERROR_SNAPSHOT_TOO_LARGE = "the snapshot file is too large to be mapped";
+
+    private final SnapshotMapping mapping;
+    private final int nodeCount;
+    private final FileOrdinals ordinals = new FileOrdinals();
+    private GraphVersion version;
+
+    private MappedGraph(SnapshotMapping mapping) {
+        super(new SymbolTable(), Set.of(), Set.of());
+        this.mapping = mapping;
+        this.nodeCount = mapping.getNodeCount();
+    }
+
+    /**
+     * Maps the snapshot at the given path into memory. The header, the bounds of
+     * the sections and the adjacency lists are verified, which reads the edges
+     * once but creates no node. The checksum over the content is not verified,
+     * loading the snapshot into the heap verifies it instead, see
+     * {@link SnapshotReader#read(Path)}.
+     * 
+     * @param path the path of the snapshot file
+     * @return the graph backed by the mapped snapshot
+     * @throws DataParsException if the file could not be mapped, is no snapshot or
+     *                           is corrupted
+     */
+    public static MappedGraph open(Path path) throws DataParsException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new DataParsException(ERROR_SNAPSHOT_TOO_LARGE);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException | SecurityException exception) {
+            throw new DataParsException(ERROR_READING_SNAPSHOT);
+        }
+        return new MappedGraph(new SnapshotMapping(buffer));
+    }
+
+    @Override
+    public Set<Node> getNodes() {
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(materializeAll())));
+    }
+
+    @Override
+    public Set<Edge> getEdges() {
+        return Collections.unmodifiableSet(collectEdges(materializeAll()));
+    }
+
+    /**
+     * Returns a version holding every node and edge of the snapshot. It is built
+     * on the first call, which materializes the whole snapshot in the heap, so
+     * readers should prefer the methods of this graph, which read the mapping in
+     * place.
+     * 
+     * @return the version of the snapshot
+     */
+    @Override
+    public synchronized GraphVersion getVersion() {
+        if (this.version == null) {
+            Node[] nodes = materializeAll();
+            this.version = GraphVersion.of(getSymbols(), new HashSet<>(Arrays.asList(nodes)), collectEdges(nodes));
+        }
+        return this.version;
+    }
+
+    /**
+     * Returns {@code true}, since a mapped graph can not be modified.
+     * 
+     * @return {@code true}
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    /**
+     * Returns this graph, since a mapped graph can not be modified.
+     * 
+     * @return this graph
+     */
+    @Override
+    public Graph snapshot() {
+        return this;
+    }
+
+    /**
+     * Returns the ordinals of the nodes of this graph, which are their positions
+     * in the snapshot file.
+     * 
+     * @return the ordinals of the nodes
+     */
+    @Override
+    protected NodeOrdinals getNodeOrdinals() {
+        return this.ordinals;
+    }
+
+    /**
+     * Returns all categories of the snapshot, since the snapshot does not index
+     * which of them are linked to other categories. Only the product ids are read
+     * to find them, so no product is materialized.
+     * 
+     * @return an unmodifiable list of the categories
+     */
+    @Override
+    protected Collection<Node> getLinkedCategories() {
+        List<Node> categories = new ArrayList<>();
+        for (int ordinal = 0; ordinal < this.nodeCount; ordinal++) {
+            if (this.mapping.productIdAt(ordinal) == SnapshotFormat.NO_PRODUCT_ID) {
+                categories.add(materialize(ordinal));
+            }
+        }
+        return Collections.unmodifiableList(categories);
+    }
+
+    @Override
+    public List<Edge> getEdges(Node node) {
+        int ordinal = this.ordinals.fileOrdinalOf(node);
+        if (ordinal == SnapshotMapping.NOT_FOUND) {
+            return List.of();
+        }
+
+        Node startNode = materialize(ordinal);
+        List<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < SnapshotFormat.RELATIONSHIP_ORDER.length; i++) {
+            for (int neighbor : this.mapping.decodeNeighbors(i, ordinal)) {
+                edges.add(new Edge(startNode, materialize(neighbor), SnapshotFormat.RELATIONSHIP_ORDER[i]));
+            }
+        }
+        return Collections.unmodifiableList(edges);
+    }
+
+    @Override
+    protected Edge[] edgesOf(Node node) {
+        return getEdges(node).toArray(new Edge[0]);
+    }
+
+    @Override
+    public Node findProductById(int productId) {
+        int ordinal = this.mapping.findProduct(productId);
+        return ordinal == SnapshotMapping.NOT_FOUND ? null : materialize(ordinal);
+    }
+
+    @Override
+    public Node findNodeByName(String name) {
+        int ordinal = this.mapping.findName(name.toLowerCase().getBytes(StandardCharsets.UTF_8));
+        return ordinal == SnapshotMapping.NOT_FOUND ? null : materialize(ordinal);
+    }
+
+    /**
+     * Returns an estimate of the memory of this graph without materializing it,
+     * since its nodes and edges are only held by the mapped file, see
+     * {@link MemoryFootprint#ofMapping(Graph, int, int, IntUnaryOperator, long, long)}.
+     * 
+     * @return the estimate
+     */
+    @Override
+    public MemoryFootprint getMemoryFootprint() {
+        int edgeBytes = this.mapping.getEdgeBytes();
+        int products = this.mapping.getProductCount();
+        return MemoryFootprint.ofMapping(this, products, this.nodeCount - products, this.mapping::countNeighbors,
+                this.mapping.getCapacity() - edgeBytes, edgeBytes);
+    }
+
+    @Override
+    public Set<Node> getNeighbors(Node node, RelationshipType relationship) {
+        int ordinal = this.ordinals.fileOrdinalOf(node);
+        if (ordinal == SnapshotMapping.NOT_FOUND) {
+            return Set.of();
+        }
+
+        Set<Node> neighbors = new HashSet<>();
+        for (int neighbor : this.mapping.decodeNeighbors(relationship.ordinal(), ordinal)) {
+            neighbors.add(materialize(neighbor));
+        }
+        return neighbors;
+    }
+
+    /**
+     * Does nothing, since a mapped graph can not be modified.
+     * 
+     * @param newNode the node which is not added
+     */
+    @Override
+    public void addNode(Node newNode) {
+        // a mapped graph is read-only
+    }
+
+    /**
+     * Resolves the given node against the nodes of the snapshot without adding it,
+     * since a mapped graph can not be modified.
+     * 
+     * @param node the node to resolve
+     * @return the contained node which equals the given node, the given node if it
+     *         is placeable, or {@code null} if it conflicts with a contained node
+     */
+    @Override
+    public Node registerNode(Node node) {
+        int ordinal = this.mapping.findName(node.getName().getBytes(StandardCharsets.UTF_8));
+        if (ordinal != SnapshotMapping.NOT_FOUND) {
+            Node namesake = materialize(ordinal);
+            return namesake.equals(node) ? namesake : null;
+        }
+        boolean idTaken = node.isOfType(NodeType.PRODUCT)
+                && this.mapping.findProduct(((Product) node).getId()) != SnapshotMapping.NOT_FOUND;
+        return idTaken ? null : node;
+    }
+
+    /**
+     * Does nothing, since a mapped graph can not be modified.
+     * 
+     * @param relationship the relationship which is not removed
+     * @return {@code false}
+     */
+    @Override
+    public boolean removeEdge(RelationshipDTO relationship) {
+        return false;
+    }
+
+    /**
+     * Does nothing, since a mapped graph can not be modified.
+     * 
+     * @param node the node which is not removed
+     * @return {@code false}
+     */
+    @Override
+    public boolean removeNode(Node node) {
+        return false;
+    }
+
+    /**
+     * Does nothing, since a mapped graph can not be modified.
+     * 
+     * @param relationship the relationship which is not added
+     * @return {@code false}
+     */
+    @Override
+    public boolean addRelationship(RelationshipDTO relationship) {
+        return false;
+    }
+
+    /**
+     * Does nothing, since a mapped graph can not be modified.
+     * 
+     * @param relationships the relationships which are not added
+     * @return {@code false}
+     */
+    @Override
+    public boolean addRelationships(Collection<RelationshipDTO> relationships) {
+        return false;
+    }
+
+    private Node[] materializeAll() {
+        Node[] nodes = new Node[this.nodeCount];
+        for (int ordinal = 0; ordinal < this.nodeCount; ordinal++) {
+            nodes[ordinal] = materialize(ordinal);
+        }
+        return nodes;
+    }
+
+    private Set<Edge> collectEdges(Node[] nodes) {
+        Set<Edge> edges = new HashSet<>();
+        for (int i = 0; i < SnapshotFormat.RELATIONSHIP_ORDER.length; i++) {
+            for (int ordinal = 0; ordinal < this.nodeCount; ordinal++) {
+                for (int neighbor : this.mapping.decodeNeighbors(i, ordinal)) {
+                    edges.add(new Edge(nodes[ordinal], nodes[neighbor], SnapshotFormat.RELATIONSHIP_ORDER[i]));
+                }
+            }
+        }
+        return edges;
+    }
+
+    private Node materialize(int ordinal) {
+        return this.ordinals.nodeAt(ordinal);
+    }
+
+    private int searchOrdinal(Node node) {
+        int ordinal = this.mapping.findName(node.getName().getBytes(StandardCharsets.UTF_8));
+        if (ordinal == SnapshotMapping.NOT_FOUND) {
+            return ordinal;
+        }
+        int productId = this.mapping.productIdAt(ordinal);
+        boolean matches = node.isOfType(NodeType.CATEGORY) ? productId == SnapshotFormat.NO_PRODUCT_ID
+                : productId == ((Product) node).getId();
+        return matches ? ordinal : SnapshotMapping.NOT_FOUND;
+    }
+
+    /**
+     * The ordinals of the nodes of a mapped graph, which are their positions in
+     * the snapshot file. Materialized nodes carry their ordinal, so it is only
+     * searched for nodes created elsewhere.
+     */
+    private final class FileOrdinals extends NodeOrdinals {
+
+        @Override
+        protected int findOrdinal(Node node) {
+            return searchOrdinal(node);
+        }
+
+        @Override
+        protected Node nodeAt(int ordinal) {
+            int productId = MappedGraph.this.mapping.productIdAt(ordinal);
+            String name = new String(MappedGraph.this.mapping.readName(ordinal), StandardCharsets.UTF_8);
+            SymbolTable symbols = getSymbols();
+            return withOrdinal(productId == SnapshotFormat.NO_PRODUCT_ID ? new Category(symbols, name)
+                    : new Product(symbols, name, productId), ordinal);
+        }
+
+        /**
+         * Returns nothing, since the ordinals are not stored.
+         * 
+         * @return zero
+         */
+        @Override
+        protected long estimateBytes() {
+            return 0;
+        }
+
+        private int fileOrdinalOf(Node node) {
+            return ordinalOf(node);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package edu.kit.kastel.recommendationsystem.util.snapshot;
+
+import java.nio.ByteBuffer;
+import java.io.ByteArrayOutputStream;
+
+import edu.kit.kastel.recommendationsystem.model.RelationshipType;
+
+/**
+ * Describes the binary snapshot format of a graph and provides the varint
+ * helpers shared by the {@link SnapshotWriter} and the {@link SnapshotReader}.
+ * 
+ * <h2>Layout</h2>
+ * 
+ * <pre>
+ * {@code
+ * header        ::= MAGIC VERSION nodeCount edgeCount productCount (5 x int)
+ * productIds    ::= int[nodeCount]             (NO_PRODUCT_ID for categories)
+ * idIndex       ::= (int productId, int ordinal)[productCount]  (sorted by id)
+ * nameOffsets   ::= int[nodeCount + 1]
+ * names         ::= byte[nameOffsets[nodeCount]]                     (UTF-8)
+ * adjacency     ::= (int[nodeCount + 1] byte[])  once per RelationshipType
+ * checksum      ::= long                  (CRC32 of all the preceding bytes)
+ * }
+ * </pre>
+ * 
+ * Nodes are stored in the order of {@code SortUtils#sortNodes} and are
+ * referenced by their position (ordinal) in that order. The neighbours of a node
+ * for one relationship type are stored as ascending ordinals, the first one
+ * absolute and every further one as the difference to its predecessor, each
+ * encoded as an unsigned varint. All sections have a fixed position once the
+ * header and the offset tables are known, so a snapshot can also be read in
+ * place (see {@link MappedGraph}).
+ * 
+ * @author urrwg
+ */
+public final class SnapshotFormat {
+
+    /**
+     * The magic number every snapshot file starts with ("RSNP").
+     */
+    public static final int MAGIC = 0x52534E50;
+
+    /**
+     * The version of the snapshot format.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * The product id stored for nodes which are categories.
+     */
+    public static final int NO_PRODUCT_ID = -1;
+
+    /**
+     * The size of the header in bytes.
+     */
+    static final int HEADER_SIZE = 5 * Integer.BYTES;
+
+    /**
+     * The size of an entry of the id index in bytes.
+     */
+    static final int ID_INDEX_ENTRY_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * The relationship types in the order their adjacency sections are stored.
+     */
+    static final RelationshipType[] RELATIONSHIP_ORDER = RelationshipType.values();
+
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD_MASK = 0x7F;
+    private static final int VARINT_CONTINUATION_BIT = 0x80;
+    private static final int MAX_VARINT_SHIFT = 28;
+
+    private SnapshotFormat() {
+        // This is a utility class
+    }
+
+    /**
+     * Writes the given non-negative value as unsigned varint.
+     * 
+     * @param value  the value to write
+     * @param output the buffer to write to
+     */
+    static void writeVarint(int value, ByteArrayOutputStream output) {
+        int remaining = value;
+        while ((remaining & ~VARINT_PAYLOAD_MASK) != 0) {
+            output.write((remaining & VARINT_PAYLOAD_MASK) | VARINT_CONTINUATION_BIT);
+            remaining >>>= VARINT_PAYLOAD_BITS;
+        }
+        output.write(remaining);
+    }
+
+    /**
+     * Reads an unsigned varint at the current position of the given buffer and
+     * advances the position behind it. A varint which is cut off by the limit of
+     * the buffer is decoded as far as it is available.
+     * 
+     * @param buffer the buffer to read from
+     * @return the decoded value
+     */
+    static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift <= MAX_VARINT_SHIFT && buffer.hasRemaining(); shift += VARINT_PAYLOAD_BITS) {
+            int current = Byte.toUnsignedInt(buffer.get());
+            value |= (current & VARINT_PAYLOAD_MASK) << shift;
+            if ((current & VARINT_CONTINUATION_BIT) == 0) {
+                break;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Counts the varints stored between the given positions of the given buffer
+     * without decoding them, since every varint ends with the only byte of it
+     * whose continuation bit is not set.
+     * 
+     * @param buffer the buffer to read from
+     * @param start  the position of the first varint
+     * @param end    the position after the last varint
+     * @return the number of varints
+     */
+    static int countVarints(ByteBuffer buffer, int start, int end) {
+        int count = 0;
+        for (int position = start; position < end; position++) {
+            if ((buffer.get(position) & VARINT_CONTINUATION_BIT) == 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,310 @@
+package edu.kit.kastel.recommendationsystem.util.snapshot;
+
+import java.util.Arrays;
+import java.nio.ByteBuffer;
+
+import edu.kit.kastel.recommendationsystem.model.RelationshipType;
+import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+
+/**
+ * The sections of a snapshot file (see {@link SnapshotFormat}) mapped into
+ * memory, which are read in place by {@link MappedGraph}. Nodes are addressed
+ * by their ordinal in the file. The positions of all sections are computed once
+ * from the header and the offset tables, so every read only touches the pages
+ * it needs.
+ *
+ * @author urrwg
+ */
+final class SnapshotMapping {
+
+    /**
+     * The ordinal returned for nodes which are not contained.
+     */
+    static final int NOT_FOUND = -1;
+
+    private static final String ERROR_NO_SNAPSHOT = "the provided file is not a snapshot";
+    private static final String ERROR_UNSUPPORTED_VERSION = "unsupported snapshot version: %d";
+    private static final String ERROR_CORRUPTED_SNAPSHOT = "the snapshot file is corrupted";
+
+    private final ByteBuffer buffer;
+    private final int nodeCount;
+    private final int productCount;
+    private final int productIdsStart;
+    private final int idIndexStart;
+    private final int nameOffsetsStart;
+    private final int namesStart;
+    private final int[] adjacencyOffsetsStarts;
+    private final int[] adjacencyStarts;
+
+    /**
+     * Constructs the sections of the given mapped snapshot. The header, the bounds
+     * of the sections, the offset tables and all stored ordinals are verified, so
+     * every read stays inside its section and every decoded ordinal belongs to a
+     * node. The checksum over the content is not verified.
+     *
+     * @param buffer the mapped snapshot file
+     * @throws DataParsException if the buffer holds no snapshot or is corrupted
+     */
+    SnapshotMapping(ByteBuffer buffer) throws DataParsException {
+        if (buffer.capacity() < SnapshotFormat.HEADER_SIZE + Long.BYTES || buffer.getInt(0) != SnapshotFormat.MAGIC) {
+            throw new DataParsException(ERROR_NO_SNAPSHOT);
+        }
+        int version = buffer.getInt(Integer.BYTES);
+        if (version != SnapshotFormat.VERSION) {
+            throw new DataParsException(String.format(ERROR_UNSUPPORTED_VERSION, version));
+        }
+
+        this.buffer = buffer;
+        this.nodeCount = readCount(Integer.BYTES * 2);
+        this.productCount = readCount(Integer.BYTES * 4);
+        this.productIdsStart = SnapshotFormat.HEADER_SIZE;
+        this.idIndexStart = checkPosition(this.productIdsStart + (long) this.nodeCount * Integer.BYTES);
+        this.nameOffsetsStart = checkPosition(
+                this.idIndexStart + (long) this.productCount * SnapshotFormat.ID_INDEX_ENTRY_SIZE);
+        this.namesStart = checkPosition(this.nameOffsetsStart + (long) (this.nodeCount + 1) * Integer.BYTES);
+
+        RelationshipType[] relationships = SnapshotFormat.RELATIONSHIP_ORDER;
+        this.adjacencyOffsetsStarts = new int[relationships.length];
+        this.adjacencyStarts = new int[relationships.length];
+        int sectionStart = checkPosition((long) this.namesStart + offsetAt(this.nameOffsetsStart, this.nodeCount));
+        for (int i = 0; i < relationships.length; i++) {
+            this.adjacencyOffsetsStarts[i] = sectionStart;
+            this.adjacencyStarts[i] = checkPosition(sectionStart + (long) (this.nodeCount + 1) * Integer.BYTES);
+            sectionStart = checkPosition((long) this.adjacencyStarts[i] + offsetAt(sectionStart, this.nodeCount));
+        }
+
+        if (sectionStart + Long.BYTES != buffer.capacity()) {
+            throw new DataParsException(ERROR_CORRUPTED_SNAPSHOT);
+        }
+        checkOffsets(this.nameOffsetsStart);
+        checkProductOrdinals();
+        for (int i = 0; i < relationships.length; i++) {
+            checkOffsets(this.adjacencyOffsetsStarts[i]);
+            checkNeighbors(i);
+        }
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return the number of nodes
+     */
+    int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * Returns the number of products.
+     *
+     * @return the number of products
+     */
+    int getProductCount() {
+        return this.productCount;
+    }
+
+    /**
+     * Returns the size of the sections holding the edges, which follow the
+     * sections holding the nodes.
+     *
+     * @return the size of the adjacency sections in bytes
+     */
+    int getEdgeBytes() {
+        return this.buffer.capacity() - Long.BYTES - this.adjacencyOffsetsStarts[0];
+    }
+
+    /**
+     * Returns the size of the mapped file.
+     *
+     * @return the size in bytes
+     */
+    int getCapacity() {
+        return this.buffer.capacity();
+    }
+
+    /**
+     * Returns the product id of the node with the given ordinal.
+     *
+     * @param ordinal the ordinal of the node
+     * @return the product id, or {@link SnapshotFormat#NO_PRODUCT_ID} for a
+     *         category
+     */
+    int productIdAt(int ordinal) {
+        return this.buffer.getInt(this.productIdsStart + ordinal * Integer.BYTES);
+    }
+
+    /**
+     * Finds the ordinal of the product with the given id.
+     *
+     * @param productId the id of the product
+     * @return the ordinal of the product, or {@link #NOT_FOUND}
+     */
+    int findProduct(int productId) {
+        int low = 0;
+        int high = this.productCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = this.idIndexStart + middle * SnapshotFormat.ID_INDEX_ENTRY_SIZE;
+            int currentId = this.buffer.getInt(entry);
+            if (currentId == productId) {
+                return this.buffer.getInt(entry + Integer.BYTES);
+            }
+            if (currentId < productId) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Reads the UTF-8 encoded name of the node with the given ordinal.
+     *
+     * @param ordinal the ordinal of the node
+     * @return the encoded name
+     */
+    byte[] readName(int ordinal) {
+        int start = offsetAt(this.nameOffsetsStart, ordinal);
+        byte[] name = new byte[offsetAt(this.nameOffsetsStart, ordinal + 1) - start];
+        this.buffer.get(this.namesStart + start, name);
+        return name;
+    }
+
+    /**
+     * Finds the ordinal of the node with the given name by a binary search over
+     * the names, which are stored in ascending order of their encoding.
+     *
+     * @param name the UTF-8 encoded name
+     * @return the ordinal of the node, or {@link #NOT_FOUND}
+     */
+    int findName(byte[] name) {
+        int low = 0;
+        int high = this.nodeCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareName(middle, name);
+            if (comparison == 0) {
+                return middle;
+            }
+            if (comparison < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Decodes the neighbors of the node with the given ordinal for one
+     * relationship type.
+     *
+     * @param relationshipIndex the index of the relationship type in
+     *                          {@link SnapshotFormat#RELATIONSHIP_ORDER}
+     * @param ordinal           the ordinal of the node
+     * @return the ascending ordinals of the neighbors, which were verified to be
+     *         ordinals of nodes when the snapshot was mapped
+     */
+    int[] decodeNeighbors(int relationshipIndex, int ordinal) {
+        int offsetsStart = this.adjacencyOffsetsStarts[relationshipIndex];
+        ByteBuffer adjacency = this.buffer.duplicate();
+        adjacency.limit(this.adjacencyStarts[relationshipIndex] + offsetAt(offsetsStart, ordinal + 1))
+                .position(this.adjacencyStarts[relationshipIndex] + offsetAt(offsetsStart, ordinal));
+
+        int[] neighbors = new int[adjacency.remaining()];
+        int count = 0;
+        int neighbor = 0;
+        while (adjacency.hasRemaining()) {
+            neighbor += SnapshotFormat.readVarint(adjacency);
+            neighbors[count++] = neighbor;
+        }
+        return Arrays.copyOf(neighbors, count);
+    }
+
+    /**
+     * Counts the neighbors of the node with the given ordinal over all
+     * relationship types without decoding them.
+     *
+     * @param ordinal the ordinal of the node
+     * @return the number of outgoing edges of the node
+     */
+    int countNeighbors(int ordinal) {
+        int count = 0;
+        for (int i = 0; i < SnapshotFormat.RELATIONSHIP_ORDER.length; i++) {
+            int offsetsStart = this.adjacencyOffsetsStarts[i];
+            count += SnapshotFormat.countVarints(this.buffer, this.adjacencyStarts[i] + offsetAt(offsetsStart, ordinal),
+                    this.adjacencyStarts[i] + offsetAt(offsetsStart, ordinal + 1));
+        }
+        return count;
+    }
+
+    private void checkNeighbors(int relationshipIndex) throws DataParsException {
+        int offsetsStart = this.adjacencyOffsetsStarts[relationshipIndex];
+        int adjacencyStart = this.adjacencyStarts[relationshipIndex];
+        ByteBuffer adjacency = this.buffer.duplicate();
+        for (int ordinal = 0; ordinal < this.nodeCount; ordinal++) {
+            adjacency.limit(adjacencyStart + offsetAt(offsetsStart, ordinal + 1))
+                    .position(adjacencyStart + offsetAt(offsetsStart, ordinal));
+            int neighbor = 0;
+            while (adjacency.hasRemaining()) {
+                neighbor += SnapshotFormat.readVarint(adjacency);
+                if (neighbor < 0 || neighbor >= this.nodeCount) {
+                    throw new DataParsException(ERROR_CORRUPTED_SNAPSHOT);
+                }
+            }
+        }
+    }
+
+    private void checkOffsets(int offsetsStart) throws DataParsException {
+        // The last offset bounds the section, so ascending offsets stay inside of it
+        int previous = 0;
+        for (int index = 0; index <= this.nodeCount; index++) {
+            int offset = offsetAt(offsetsStart, index);
+            if (offset < previous) {
+                throw new DataParsException(ERROR_CORRUPTED_SNAPSHOT);
+            }
+            previous = offset;
+        }
+    }
+
+    private void checkProductOrdinals() throws DataParsException {
+        for (int i = 0; i < this.productCount; i++) {
+            int ordinal = this.buffer.getInt(this.idIndexStart + i * SnapshotFormat.ID_INDEX_ENTRY_SIZE + Integer.BYTES);
+            if (ordinal < 0 || ordinal >= this.nodeCount) {
+                throw new DataParsException(ERROR_CORRUPTED_SNAPSHOT);
+            }
+        }
+    }
+
+    private int compareName(int ordinal, byte[] name) {
+        int start = this.namesStart + offsetAt(this.nameOffsetsStart, ordinal);
+        int length = offsetAt(this.nameOffsetsStart, ordinal + 1) - offsetAt(this.nameOffsetsStart, ordinal);
+        for (int i = 0; i < Math.min(length, name.length); i++) {
+            int comparison = Integer.compare(Byte.toUnsignedInt(this.buffer.get(start + i)),
+                    Byte.toUnsignedInt(name[i]));
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, name.length);
+    }
+
+    private int offsetAt(int offsetsStart, int index) {
+        return this.buffer.getInt(offsetsStart + index * Integer.BYTES);
+    }
+
+    private int readCount(int position) throws DataParsException {
+        int count = this.buffer.getInt(position);
+        if (count < 0 || count > this.buffer.capacity()) {
+            throw new DataParsException(ERROR_CORRUPTED_SNAPSHOT);
+        }
+        return count;
+    }
+
+    private int checkPosition(long position) throws DataParsException {
+        if (position < 0 || position > this.buffer.capacity() - Long.BYTES) {
+            throw new DataParsException(ERROR_CORRUPTED_SNAPSHOT);
+        }
+        return (int) position;
+    }
+}
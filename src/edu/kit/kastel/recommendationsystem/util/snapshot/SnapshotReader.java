@@ -0,0 +1,167 @@
+package edu.kit.kastel.recommendationsystem.util.snapshot;
+
+import java.util.Set;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.zip.CRC32;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.DataInputStream;
+import java.io.BufferedInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CheckedInputStream;
+
+import edu.kit.kastel.recommendationsystem.model.Category;
+import edu.kit.kastel.recommendationsystem.model.Edge;
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.model.Product;
+import edu.kit.kastel.recommendationsystem.model.RelationshipType;
+import edu.kit.kastel.recommendationsystem.model.SymbolTable;
+import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+
+/**
+ * Reads a {@link Graph} from the binary format described by
+ * {@link SnapshotFormat}. The graph is rebuilt directly from the stored
+ * adjacency, without parsing or validating any relationship again. Corrupted
+ * files are detected by the stored checksum.
+ * 
+ * @author urrwg
+ */
+public final class SnapshotReader {
+
+    private static final String ERROR_READING_SNAPSHOT = "could not read snapshot file";
+    private static final String ERROR_NO_SNAPSHOT = "the provided file is not a snapshot";
+    private static final String ERROR_UNSUPPORTED_VERSION = "unsupported snapshot version: %d";
+    private static final String ERROR_CORRUPTED_SNAPSHOT = "the snapshot file is corrupted";
+
+    private SnapshotReader() {
+        // This is a utility class
+    }
+
+    /**
+     * Reads the snapshot at the given path and rebuilds the stored graph.
+     * 
+     * @param path the path of the snapshot file
+     * @return the rebuilt graph
+     * @throws DataParsException if the file could not be read, is no snapshot or
+     *                           is corrupted
+     */
+    public static Graph read(Path path) throws DataParsException {
+        CRC32 checksum = new CRC32();
+        try (InputStream fileStream = new BufferedInputStream(Files.newInputStream(path));
+                DataInputStream input = new DataInputStream(new CheckedInputStream(fileStream, checksum))) {
+            long fileSize = Files.size(path);
+            validateHeader(input);
+            int nodeCount = readCount(input, fileSize);
+            int edgeCount = readCount(input, fileSize);
+            int productCount = readCount(input, fileSize);
+
+            SymbolTable symbols = new SymbolTable();
+            Node[] nodes = readNodes(input, nodeCount, productCount, fileSize, symbols);
+            ByteBuffer[] adjacency = new ByteBuffer[SnapshotFormat.RELATIONSHIP_ORDER.length];
+            int[][] adjacencyOffsets = new int[adjacency.length][];
+            for (int i = 0; i < adjacency.length; i++) {
+                adjacencyOffsets[i] = readOffsets(input, nodeCount, fileSize);
+                adjacency[i] = ByteBuffer.wrap(readBytes(input, adjacencyOffsets[i][nodeCount]));
+            }
+
+            if (new DataInputStream(fileStream).readLong() != checksum.getValue()) {
+                throw new DataParsException(ERROR_CORRUPTED_SNAPSHOT);
+            }
+            return buildGraph(symbols, nodes, adjacency, adjacencyOffsets, edgeCount);
+        } catch (IOException | SecurityException exception) {
+            throw new DataParsException(ERROR_READING_SNAPSHOT);
+        }
+    }
+
+    private static void validateHeader(DataInputStream input) throws IOException, DataParsException {
+        if (input.readInt() != SnapshotFormat.MAGIC) {
+            throw new DataParsException(ERROR_NO_SNAPSHOT);
+        }
+        int version = input.readInt();
+        if (version != SnapshotFormat.VERSION) {
+            throw new DataParsException(String.format(ERROR_UNSUPPORTED_VERSION, version));
+        }
+    }
+
+    private static Node[] readNodes(DataInputStream input, int nodeCount, int productCount, long fileSize,
+            SymbolTable symbols) throws IOException, DataParsException {
+        int[] productIds = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            productIds[i] = input.readInt();
+        }
+        // the id index is only needed to look up products in place
+        readBytes(input, productCount * SnapshotFormat.ID_INDEX_ENTRY_SIZE);
+
+        int[] nameOffsets = readOffsets(input, nodeCount, fileSize);
+        byte[] names = readBytes(input, nameOffsets[nodeCount]);
+
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            String name = new String(names, nameOffsets[i], nameOffsets[i + 1] - nameOffsets[i],
+                    StandardCharsets.UTF_8);
+            nodes[i] = productIds[i] == SnapshotFormat.NO_PRODUCT_ID ? new Category(symbols, name)
+                    : new Product(symbols, name, productIds[i]);
+        }
+        return nodes;
+    }
+
+    private static Graph buildGraph(SymbolTable symbols, Node[] nodes, ByteBuffer[] adjacency, int[][] adjacencyOffsets,
+            int edgeCount) throws DataParsException {
+        Set<Edge> edges = new HashSet<>();
+
+        for (int i = 0; i < adjacency.length; i++) {
+            RelationshipType relationship = SnapshotFormat.RELATIONSHIP_ORDER[i];
+            for (int ordinal = 0; ordinal < nodes.length; ordinal++) {
+                adjacency[i].limit(adjacencyOffsets[i][ordinal + 1]).position(adjacencyOffsets[i][ordinal]);
+                int neighbor = 0;
+                while (adjacency[i].hasRemaining()) {
+                    neighbor += SnapshotFormat.readVarint(adjacency[i]);
+                    edges.add(new Edge(nodes[ordinal], nodes[checkOrdinal(neighbor, nodes.length)], relationship));
+                }
+            }
+        }
+
+        if (edges.size() != 2 * (long) edgeCount) {
+            throw new DataParsException(ERROR_CORRUPTED_SNAPSHOT);
+        }
+        return new Graph(symbols, new HashSet<>(Arrays.asList(nodes)), edges);
+    }
+
+    private static int checkOrdinal(int ordinal, int nodeCount) throws DataParsException {
+        if (ordinal < 0 || ordinal >= nodeCount) {
+            throw new DataParsException(ERROR_CORRUPTED_SNAPSHOT);
+        }
+        return ordinal;
+    }
+
+    private static int readCount(DataInputStream input, long fileSize) throws IOException, DataParsException {
+        int count = input.readInt();
+        if (count < 0 || count > fileSize) {
+            throw new DataParsException(ERROR_CORRUPTED_SNAPSHOT);
+        }
+        return count;
+    }
+
+    private static int[] readOffsets(DataInputStream input, int nodeCount, long fileSize)
+            throws IOException, DataParsException {
+        int[] offsets = new int[nodeCount + 1];
+        for (int i = 0; i <= nodeCount; i++) {
+            offsets[i] = input.readInt();
+            if (offsets[i] < (i == 0 ? 0 : offsets[i - 1]) || offsets[i] > fileSize) {
+                throw new DataParsException(ERROR_CORRUPTED_SNAPSHOT);
+            }
+        }
+        return offsets;
+    }
+
+    private static byte[] readBytes(DataInputStream input, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,172 @@
+package edu.kit.kastel.recommendationsystem.util.snapshot;
+
+import java.util.Map;
+import java.util.List;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CheckedOutputStream;
+
+import edu.kit.kastel.recommendationsystem.model.Edge;
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.model.NodeType;
+import edu.kit.kastel.recommendationsystem.model.Product;
+import edu.kit.kastel.recommendationsystem.model.RelationshipType;
+import edu.kit.kastel.recommendationsystem.util.SortUtils;
+import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+
+/**
+ * Writes a {@link Graph} into the binary format described by
+ * {@link SnapshotFormat}.
+ * 
+ * @author urrwg
+ */
+public final class SnapshotWriter {
+
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final String ERROR_WRITING_SNAPSHOT = "could not write snapshot file";
+
+    private SnapshotWriter() {
+        // This is a utility class
+    }
+
+    /**
+     * Writes the given graph as snapshot to the given path. The current version of
+     * the graph is written, mutations during writing are not included. The snapshot
+     * is first written to a temporary file next to the target, which then replaces an
+     * existing file at once, so a failed write never leaves a truncated snapshot
+     * behind. The temporary file is synced before it is renamed and the directory
+     * after, so the snapshot is durable once this method returns.
+     * 
+     * @param graph the graph to write
+     * @param path  the path of the snapshot file
+     * @throws DataParsException if the file could not be written
+     */
+    public static void write(Graph graph, Path path) throws DataParsException {
+        Graph pinnedGraph = graph.snapshot();
+        List<Node> nodes = new ArrayList<>(pinnedGraph.getNodes());
+        SortUtils.sortNodes(nodes);
+
+        Map<Node, Integer> ordinals = new HashMap<>();
+        for (int ordinal = 0; ordinal < nodes.size(); ordinal++) {
+            ordinals.put(nodes.get(ordinal), ordinal);
+        }
+
+        Path temporaryPath = path.resolveSibling(path.getFileName() + TEMPORARY_FILE_SUFFIX);
+        CRC32 checksum = new CRC32();
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+                OutputStream fileStream = new BufferedOutputStream(Channels.newOutputStream(channel));
+                DataOutputStream output = new DataOutputStream(new CheckedOutputStream(fileStream, checksum))) {
+            output.writeInt(SnapshotFormat.MAGIC);
+            output.writeInt(SnapshotFormat.VERSION);
+            output.writeInt(nodes.size());
+            output.writeInt(pinnedGraph.getEdges().size() / 2);
+
+            int[][] idIndex = createIdIndex(nodes);
+            output.writeInt(idIndex.length);
+            writeProductIds(nodes, output);
+            for (int[] entry : idIndex) {
+                output.writeInt(entry[0]);
+                output.writeInt(entry[1]);
+            }
+            writeNames(nodes, output);
+            for (RelationshipType relationship : SnapshotFormat.RELATIONSHIP_ORDER) {
+                writeAdjacency(pinnedGraph, nodes, ordinals, relationship, output);
+            }
+
+            output.flush();
+            new DataOutputStream(fileStream).writeLong(checksum.getValue());
+            fileStream.flush();
+            channel.force(true);
+        } catch (IOException | SecurityException exception) {
+            throw new DataParsException(ERROR_WRITING_SNAPSHOT);
+        }
+        replace(temporaryPath, path);
+    }
+
+    private static void replace(Path temporaryPath, Path path) throws DataParsException {
+        try {
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // The rename itself is only durable once the directory entry is synced
+            try (FileChannel directory = FileChannel.open(path.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+                directory.force(true);
+            }
+        } catch (IOException | SecurityException exception) {
+            throw new DataParsException(ERROR_WRITING_SNAPSHOT);
+        }
+    }
+
+    private static void writeProductIds(List<Node> nodes, DataOutputStream output) throws IOException {
+        for (Node node : nodes) {
+            output.writeInt(node.isOfType(NodeType.PRODUCT) ? ((Product) node).getId() : SnapshotFormat.NO_PRODUCT_ID);
+        }
+    }
+
+    private static int[][] createIdIndex(List<Node> nodes) {
+        List<int[]> entries = new ArrayList<>();
+        for (int ordinal = 0; ordinal < nodes.size(); ordinal++) {
+            if (nodes.get(ordinal).isOfType(NodeType.PRODUCT)) {
+                entries.add(new int[] {((Product) nodes.get(ordinal)).getId(), ordinal});
+            }
+        }
+        entries.sort((first, second) -> Integer.compare(first[0], second[0]));
+        return entries.toArray(new int[0][]);
+    }
+
+    private static void writeNames(List<Node> nodes, DataOutputStream output) throws IOException {
+        ByteArrayOutputStream names = new ByteArrayOutputStream();
+
+        output.writeInt(names.size());
+        for (Node node : nodes) {
+            names.writeBytes(node.getName().getBytes(StandardCharsets.UTF_8));
+            output.writeInt(names.size());
+        }
+        names.writeTo(output);
+    }
+
+    private static void writeAdjacency(Graph graph, List<Node> nodes, Map<Node, Integer> ordinals,
+            RelationshipType relationship, DataOutputStream output) throws IOException {
+        ByteArrayOutputStream adjacency = new ByteArrayOutputStream();
+
+        output.writeInt(adjacency.size());
+        for (Node node : nodes) {
+            int[] neighbors = collectNeighbors(graph.getEdges(node), ordinals, relationship);
+            int previous = 0;
+            for (int neighbor : neighbors) {
+                SnapshotFormat.writeVarint(neighbor - previous, adjacency);
+                previous = neighbor;
+            }
+            output.writeInt(adjacency.size());
+        }
+        adjacency.writeTo(output);
+    }
+
+    private static int[] collectNeighbors(List<Edge> edges, Map<Node, Integer> ordinals,
+            RelationshipType relationship) {
+        int[] neighbors = new int[edges.size()];
+        int count = 0;
+        for (Edge edge : edges) {
+            if (edge.getRelationship() == relationship) {
+                neighbors[count++] = ordinals.get(edge.getEndNode());
+            }
+        }
+        int[] result = Arrays.copyOf(neighbors, count);
+        Arrays.sort(result);
+        return result;
+    }
+}
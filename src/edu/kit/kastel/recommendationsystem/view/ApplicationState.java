@@ -0,0 +1,145 @@
+package edu.kit.kastel.recommendationsystem.view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.util.journal.JournalException;
+import edu.kit.kastel.recommendationsystem.util.journal.MutationJournal;
+import edu.kit.kastel.recommendationsystem.util.metrics.CommandMetrics;
+
+/**
+ * The state shared by all {@link UserInterface user interfaces} of one
+ * application: the graph, the lock guarding its replacement, the journal
+ * recording its mutations and the command metrics. Commands reading the graph
+ * do not lock at all, they work on a {@link Graph#snapshot() snapshot} of the
+ * graph. Commands mutating the graph share the mutation lock and are
+ * coordinated by the node locks of the graph, while replacing the graph
+ * excludes all of them.
+ * 
+ * @author urrwg
+ */
+public final class ApplicationState {
+
+    private final ReadWriteLock graphLock = new ReentrantReadWriteLock();
+    private final CommandMetrics metrics = new CommandMetrics(commandNames());
+
+    private volatile Graph graph;
+    private volatile PinnedGraph pinnedGraph;
+    private volatile MutationJournal journal;
+
+    /**
+     * Returns the current graph. Callers reading the graph should use the
+     * {@link #getSnapshot() snapshot} of it, callers mutating the graph have to
+     * hold the mutation lock.
+     * 
+     * @return the current graph, {@code null} if no graph was loaded yet
+     */
+    public Graph getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * Returns a {@link Graph#snapshot() snapshot} of the current graph for commands
+     * reading it. The snapshot is shared by all readers until the graph is mutated
+     * or replaced, so it must not be mutated.
+     * 
+     * @return the snapshot of the current graph, {@code null} if no graph was
+     *         loaded yet
+     */
+    public Graph getSnapshot() {
+        Graph current = this.graph;
+        if (current == null || current.isReadOnly()) {
+            // A read-only graph never changes, so it is its own snapshot
+            return current;
+        }
+        PinnedGraph pinned = this.pinnedGraph;
+        if (pinned != null && pinned.graph() == current && pinned.snapshot().getVersion() == current.getVersion()) {
+            return pinned.snapshot();
+        }
+        Graph snapshot = current.snapshot();
+        this.pinnedGraph = new PinnedGraph(current, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Replaces the current graph once no command is mutating it anymore. If a
+     * journal is set, the graph is attached to it.
+     * 
+     * @param graph the new graph
+     * @throws JournalException if the graph could not be attached to the journal
+     */
+    public void setGraph(Graph graph) throws JournalException {
+        Lock lock = this.graphLock.writeLock();
+        lock.lock();
+        try {
+            this.graph = graph;
+            if (this.journal != null) {
+                this.journal.attach(graph);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the journal which records all mutations of the graphs set afterwards.
+     * 
+     * @param journal the journal to record mutations in
+     */
+    public void setJournal(MutationJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Checks whether the mutations of the graph are still recorded, if a journal is
+     * set.
+     * 
+     * @throws JournalException if the journal lost mutations and no graph was
+     *                          attached to it since
+     */
+    public void checkJournal() throws JournalException {
+        MutationJournal currentJournal = this.journal;
+        if (currentJournal != null) {
+            currentJournal.checkWritable();
+        }
+    }
+
+    /**
+     * Returns the lock which has to be held while executing a command mutating the
+     * graph. It is shared by all mutating commands and keeps the graph from being
+     * replaced while they run.
+     * 
+     * @return the mutation lock
+     */
+    public Lock getMutationLock() {
+        return this.graphLock.readLock();
+    }
+
+    /**
+     * Returns the latency histograms, error counters and result sizes collected for
+     * every command.
+     * 
+     * @return the command metrics
+     */
+    public CommandMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    private static List<String> commandNames() {
+        List<String> names = new ArrayList<>();
+        for (ViewKeyword keyword : ViewKeyword.values()) {
+            names.add(keyword.toString());
+        }
+        for (GraphKeyword keyword : GraphKeyword.values()) {
+            names.add(keyword.toString());
+        }
+        return names;
+    }
+
+    private record PinnedGraph(Graph graph, Graph snapshot) {
+    }
+}
@@ -1,14 +1,11 @@
 package edu.kit.kastel.recommendationsystem.view;
 
-import java.util.Set;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.Files;
 
 import edu.kit.kastel.recommendationsystem.model.Graph;
 import edu.kit.kastel.recommendationsystem.model.Node;
-import edu.kit.kastel.recommendationsystem.model.NodeType;
-import edu.kit.kastel.recommendationsystem.model.Product;
 import edu.kit.kastel.recommendationsystem.model.RelationshipDTO;
 import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
 import edu.kit.kastel.recommendationsystem.util.parser.LineParser;
@@ -22,33 +19,55 @@
  */
 public class Arguments {
 
-    private static final int FIRST_ARGUMENT_INDEX = 0;
+    private static final int FIRST_ARGUMENT_INDEX = 1;
     private static final String CONFIG_FILE_EXTENSION = ".txt";
-    private static final String DATABASE_FLAG = "database";
     private static final String INPUT_LINE_SEPARATOR = " ";
 
     private static final String ERROR_INVALID_PATH_TO_DATABASE_FILE = "the provided path is incorrect";
     private static final String ERROR_INVALID_NODE = "the node: %s can not be added";
     private static final String ERROR_TOO_FEW_ARGUMENTS = "too few provided arguments.";
-    private static final String ERROR_MISSING_DATABASE_FLAG = "the second is missing. Should be: 'database'";
+    private static final String ERROR_INVALID_STORAGE_FORMAT = "invalid format. Should be: 'database', 'snapshot' or 'mapped'";
+    private static final String ERROR_MISSING_SNAPSHOT_FLAG = "the second argument is missing. Should be: 'snapshot'";
+    private static final String ERROR_INVALID_RESET_FLAG = "the optional argument is incorrect. Should be: 'reset'";
+    private static final String ERROR_INVALID_NODE_SELECTION = "invalid node selection. Should be: 'node <name|id>'";
+    private static final String ERROR_INVALID_PARTS_FLAG = "the optional argument is incorrect. Should be: 'parts'";
+    private static final String ERROR_INVALID_PRODUCT_ID = "invalid product id: %s";
+    private static final String RESET_FLAG = "reset";
+    private static final String PARTS_FLAG = "parts";
+    private static final String NODE_SELECTOR = "node";
+    private static final int NODE_SELECTION_LENGTH = 2;
+    private static final String ERROR_INVALID_TARGET_PATH = "the provided path can not be written";
 
-    private final Graph graph;
-    private String[] arguments;
+    private Graph graph;
+    private CommandLine commandLine;
     private int argumentIndex;
 
     /**
-     * Constructs a new instance.
+     * Constructs a new instance parsing the tokens of the given command line which
+     * follow the command, without copying them.
      * 
-     * @param graph     the game to retrieve tokens from
-     * @param arguments the arguments to parse
+     * @param graph       the graph to register parsed nodes in
+     * @param commandLine the command line whose arguments are parsed
      */
-    public Arguments(Graph graph, String[] arguments) {
-        this.graph = graph;
-        this.arguments = arguments.clone();
+    Arguments(Graph graph, CommandLine commandLine) {
+        reset(graph, commandLine);
+    }
+
+    /**
+     * Starts parsing the arguments of the given command line, so an instance can
+     * be reused for several commands.
+     * 
+     * @param newGraph       the graph to register parsed nodes in
+     * @param newCommandLine the command line whose arguments are parsed
+     */
+    void reset(Graph newGraph, CommandLine newCommandLine) {
+        this.graph = newGraph;
+        this.commandLine = newCommandLine;
+        this.argumentIndex = FIRST_ARGUMENT_INDEX;
     }
 
     private String retrieveArgument() {
-        return this.arguments[this.argumentIndex++];
+        return this.commandLine.token(this.argumentIndex++);
     }
 
     /**
@@ -83,23 +102,124 @@ public Path parsePath() throws InvalidArgumentException {
     }
 
     /**
-     * Parses the database flag from the arguments.
+     * Parses a target path to write a file to from the arguments.
+     * <p>
+     * Validates that the path does not point to a directory and that its parent
+     * directory exists.
+     * </p>
+     *
+     * @return the validated target path
+     * @throws InvalidArgumentException if no path is provided or the path can not
+     *                                  be written
+     */
+    public Path parseTargetPath() throws InvalidArgumentException {
+        if (isExhausted()) {
+            throw new InvalidArgumentException(ERROR_TOO_FEW_ARGUMENTS);
+        }
+
+        Path targetPath = Paths.get(retrieveArgument()).toAbsolutePath();
+        Path parentDirectory = targetPath.getParent();
+
+        if (Files.isDirectory(targetPath) || parentDirectory == null || !Files.isDirectory(parentDirectory)) {
+            throw new InvalidArgumentException(ERROR_INVALID_TARGET_PATH);
+        }
+
+        return targetPath;
+    }
+
+    /**
+     * Parses the storage format flag from the arguments.
+     * 
+     * @return the validated storage format
+     * @throws InvalidArgumentException if the flag is missing or incorrect
+     */
+    public StorageFormat parseStorageFormat() throws InvalidArgumentException {
+        if (isExhausted()) {
+            throw new InvalidArgumentException(ERROR_TOO_FEW_ARGUMENTS);
+        }
+
+        StorageFormat format = StorageFormat.fromString(retrieveArgument());
+
+        if (format == null) {
+            throw new InvalidArgumentException(ERROR_INVALID_STORAGE_FORMAT);
+        }
+
+        return format;
+    }
+
+    /**
+     * Parses the snapshot flag from the arguments.
      * 
-     * @return the validated database flag
+     * @return the validated snapshot flag
      * @throws InvalidArgumentException if the flag is missing or incorrect
      */
-    public String parseDatabaseFlag() throws InvalidArgumentException {
+    public StorageFormat parseSnapshotFlag() throws InvalidArgumentException {
+        if (isExhausted()) {
+            throw new InvalidArgumentException(ERROR_TOO_FEW_ARGUMENTS);
+        }
+
+        if (StorageFormat.fromString(retrieveArgument()) != StorageFormat.SNAPSHOT) {
+            throw new InvalidArgumentException(ERROR_MISSING_SNAPSHOT_FLAG);
+        }
+
+        return StorageFormat.SNAPSHOT;
+    }
+
+    /**
+     * Parses the optional reset flag from the arguments.
+     * 
+     * @return {@code true} if the reset flag is given, {@code false} if no
+     *         argument is left
+     * @throws InvalidArgumentException if the given argument is not the reset flag
+     */
+    public boolean parseResetFlag() throws InvalidArgumentException {
+        return parseOptionalFlag(RESET_FLAG, ERROR_INVALID_RESET_FLAG);
+    }
+
+    /**
+     * Parses the optional parts flag from the arguments.
+     * 
+     * @return {@code true} if the parts flag is given, {@code false} if no
+     *         argument is left
+     * @throws InvalidArgumentException if the given argument is not the parts flag
+     */
+    public boolean parsePartsFlag() throws InvalidArgumentException {
+        return parseOptionalFlag(PARTS_FLAG, ERROR_INVALID_PARTS_FLAG);
+    }
+
+    /**
+     * Parses a product id from the arguments.
+     * 
+     * @return the product id
+     * @throws InvalidArgumentException if no argument is left or it is no valid
+     *                                  product id
+     */
+    public int parseProductId() throws InvalidArgumentException {
         if (isExhausted()) {
             throw new InvalidArgumentException(ERROR_TOO_FEW_ARGUMENTS);
         }
 
         String argument = retrieveArgument();
+        if (argument.isEmpty() || !argument.chars().allMatch(Character::isDigit)) {
+            throw new InvalidArgumentException(String.format(ERROR_INVALID_PRODUCT_ID, argument));
+        }
+        try {
+            return Integer.parseInt(argument);
+        } catch (NumberFormatException exception) {
+            throw new InvalidArgumentException(String.format(ERROR_INVALID_PRODUCT_ID, argument));
+        }
+    }
+
+    private boolean parseOptionalFlag(String flag, String error) throws InvalidArgumentException {
+        if (isExhausted()) {
+            return false;
+        }
 
-        if (!argument.equals(DATABASE_FLAG)) {
-            throw new InvalidArgumentException(ERROR_MISSING_DATABASE_FLAG);
+        if (!retrieveArgument().equals(flag)) {
+            throw new InvalidArgumentException(error);
         }
 
-        return DATABASE_FLAG;
+        return true;
     }
 
     /**
@@ -112,7 +232,7 @@ public RelationshipDTO parseLine() throws InvalidArgumentException {
         String line = retrieveLine();
 
         try {
-            RelationshipDTO relationship = LineParser.parse(line);
+            RelationshipDTO relationship = LineParser.parse(line, this.graph.getSymbols());
             return processDTO(relationship);
         } catch (DataParsException exception) {
             throw new InvalidArgumentException(exception.getMessage());
@@ -123,60 +243,76 @@ public RelationshipDTO parseLine() throws InvalidArgumentException {
      * Constructs a single input line from the provided arguments.
      * 
      * @return the combined input line
-     * @throws InvalidArgumentException
+     * @throws InvalidArgumentException if some of the arguments were already
+     *                                  retrieved
      */
     public String retrieveLine() throws InvalidArgumentException {
-        StringBuilder builder = new StringBuilder();
-
-        for (int i = FIRST_ARGUMENT_INDEX; i < arguments.length; i++) {
-            if (isExhausted()) {
-                throw new InvalidArgumentException(ERROR_TOO_FEW_ARGUMENTS);
-            }
+        String remainder = retrieveRemainder();
+        return remainder.isEmpty() ? remainder : remainder + INPUT_LINE_SEPARATOR;
+    }
 
-            String argumentString = retrieveArgument();
-            builder.append(argumentString)
-                    .append(INPUT_LINE_SEPARATOR);
+    /**
+     * Retrieves all remaining arguments at once as they were given, i.e. the rest
+     * of the input line without trailing spaces. Unlike {@link #retrieveLine()}
+     * this only copies the line once.
+     * 
+     * @return the rest of the input line
+     * @throws InvalidArgumentException if some of the arguments were already
+     *                                  retrieved
+     */
+    public String retrieveRemainder() throws InvalidArgumentException {
+        if (this.argumentIndex > FIRST_ARGUMENT_INDEX) {
+            throw new InvalidArgumentException(ERROR_TOO_FEW_ARGUMENTS);
         }
-
-        return builder.toString();
+        String remainder = this.commandLine.remainder(this.argumentIndex);
+        this.argumentIndex = Math.max(this.argumentIndex, this.commandLine.size());
+        return remainder;
     }
 
-    private RelationshipDTO processDTO(RelationshipDTO relationship) throws DataParsException {
-        Set<Node> nodes = graph.getNodes();
-
-        Node subject = getOrRegisterNode(relationship.subject(), nodes);
-        Node object = getOrRegisterNode(relationship.object(), nodes);
-
-        return new RelationshipDTO(subject, relationship.predicate(), object);
+    /**
+     * Returns whether the remaining arguments select a single node, i.e. they
+     * consist of the keyword {@code node} followed by at most one identifier.
+     * 
+     * @return {@code true} if the arguments are a node selection, {@code false}
+     *         otherwise
+     */
+    public boolean isNodeSelection() {
+        int remainingArguments = this.commandLine.size() - this.argumentIndex;
+        return remainingArguments > 0 && remainingArguments <= NODE_SELECTION_LENGTH
+                && this.commandLine.tokenEquals(this.argumentIndex, NODE_SELECTOR);
     }
 
-    private Node getOrRegisterNode(Node node, Set<Node> nodes) throws DataParsException {
-        for (Node existingNode : nodes) {
-            if (existingNode.equals(node)) {
-                return existingNode;
-            }
+    /**
+     * Parses a node selection, see {@link #isNodeSelection()}.
+     * 
+     * @return the identifier of the node, which is its name or its product id
+     * @throws InvalidArgumentException if the arguments are not a node selection
+     *                                  or the identifier is missing
+     */
+    public String parseNodeSelection() throws InvalidArgumentException {
+        if (!isNodeSelection()) {
+            throw new InvalidArgumentException(ERROR_INVALID_NODE_SELECTION);
         }
-
-        if (validateNodePlacement(node, nodes)) {
-            graph.addNode(node);
-            return node;
+        this.argumentIndex++;
+        if (isExhausted()) {
+            throw new InvalidArgumentException(ERROR_TOO_FEW_ARGUMENTS);
         }
-        throw new DataParsException(String.format(ERROR_INVALID_NODE, node));
+        return retrieveArgument();
     }
 
-    private boolean validateNodePlacement(Node node, Set<Node> nodes) {
-        for (Node existingNode : nodes) {
-            if (existingNode.getName().equals(node.getName())) {
-                return false;
-            }
-            if (existingNode.isOfType(NodeType.PRODUCT)
-                    && node.isOfType(NodeType.PRODUCT)) {
-                if (((Product) existingNode).getId() == ((Product) node).getId()) {
-                    return false;
-                }
-            }
+    private RelationshipDTO processDTO(RelationshipDTO relationship) throws DataParsException {
+        Node subject = registerNode(relationship.subject());
+        Node object = registerNode(relationship.object());
+
+        return new RelationshipDTO(subject, relationship.predicate(), object);
+    }
+
+    private Node registerNode(Node node) throws DataParsException {
+        Node registeredNode = graph.registerNode(node);
+        if (registeredNode == null) {
+            throw new DataParsException(String.format(ERROR_INVALID_NODE, node));
         }
-        return true;
+        return registeredNode;
     }
 
     /**
@@ -186,6 +322,6 @@ private boolean validateNodePlacement(Node node, Set<Node> nodes) {
      *         otherwise
      */
     public boolean isExhausted() {
-        return this.argumentIndex >= arguments.length;
+        return this.argumentIndex >= this.commandLine.size();
     }
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package edu.kit.kastel.recommendationsystem.view;
+
+import java.util.Arrays;
+
+/**
+ * A line of input split into tokens without copying it: only the bounds of the
+ * tokens are recorded, and a token is only copied into a string if it is
+ * requested as one. An instance can be {@link #reset(CharSequence) reset} to a
+ * new line and reuses its arrays, so tokenizing does not allocate once they are
+ * large enough.
+ * <p>
+ * The tokens are the same as the ones of {@code line.split(" ")}: they are
+ * separated by single spaces, so consecutive spaces yield empty tokens, and
+ * trailing empty tokens are dropped.
+ * </p>
+ *
+ * @author urrwg
+ */
+final class CommandLine {
+
+    private static final char SEPARATOR = ' ';
+    private static final int INITIAL_CAPACITY = 8;
+
+    private CharSequence line = "";
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Constructs a new command line holding the given line.
+     *
+     * @param line the line to tokenize
+     */
+    CommandLine(CharSequence line) {
+        reset(line);
+    }
+
+    /**
+     * Tokenizes the given line, replacing the previous one.
+     *
+     * @param newLine the line to tokenize
+     */
+    void reset(CharSequence newLine) {
+        this.line = newLine;
+        this.size = 0;
+        int length = newLine.length();
+        int start = 0;
+        int lastNonEmpty = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || newLine.charAt(i) == SEPARATOR) {
+                add(start, i);
+                if (i > start) {
+                    lastNonEmpty = this.size;
+                }
+                start = i + 1;
+            }
+        }
+        // Like String.split, an empty line is one empty token
+        this.size = length == 0 ? 1 : lastNonEmpty;
+    }
+
+    /**
+     * Returns the number of tokens.
+     *
+     * @return the number of tokens
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the token at the given index as a string.
+     *
+     * @param index the index of the token
+     * @return the token
+     */
+    String token(int index) {
+        return this.line.subSequence(this.starts[index], this.ends[index]).toString();
+    }
+
+    /**
+     * Returns whether the token at the given index consists of the same characters
+     * as the given string.
+     *
+     * @param index  the index of the token
+     * @param string the string to compare the token with
+     * @return {@code true} if the token equals the string, {@code false} otherwise
+     */
+    boolean tokenEquals(int index, String string) {
+        int start = this.starts[index];
+        if (this.ends[index] - start != string.length()) {
+            return false;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            if (this.line.charAt(start + i) != string.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code of the token at the given index, which equals the
+     * {@link String#hashCode() hash code} of the token as a string.
+     *
+     * @param index the index of the token
+     * @return the hash code of the token
+     */
+    int tokenHash(int index) {
+        int hash = 0;
+        for (int i = this.starts[index]; i < this.ends[index]; i++) {
+            hash = 31 * hash + this.line.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the part of the line from the token at the given index to the end of
+     * the last token, including the separators in between.
+     *
+     * @param index the index of the first token
+     * @return the remainder of the line, empty if there is no such token
+     */
+    String remainder(int index) {
+        if (index >= this.size) {
+            return "";
+        }
+        return this.line.subSequence(this.starts[index], this.ends[this.size - 1]).toString();
+    }
+
+    private void add(int start, int end) {
+        if (this.size == this.starts.length) {
+            this.starts = Arrays.copyOf(this.starts, this.size * 2);
+            this.ends = Arrays.copyOf(this.ends, this.size * 2);
+        }
+        this.starts[this.size] = start;
+        this.ends[this.size] = end;
+        this.size++;
+    }
+}
@@ -0,0 +1,173 @@
+package edu.kit.kastel.recommendationsystem.view;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Runs the commands read by a {@link UserInterface} as a pipeline of three
+ * stages connected by bounded queues: a reader thread reads and tokenizes the
+ * lines, the calling thread dispatches the commands, and an output thread
+ * prints the results in the order of the input.
+ * <p>
+ * Commands only reading the graph are executed by a pool of workers on a
+ * snapshot of the graph, so independent reading commands overlap. Every other
+ * command, in particular {@code add}, {@code remove}, {@code load} and
+ * {@code quit}, is a barrier: it is executed by the output thread once all
+ * previous commands are printed, and no later command is dispatched before it
+ * finished. The output is therefore the same as in the interactive mode.
+ * </p>
+ *
+ * @author urrwg
+ */
+public final class CommandPipeline {
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final CommandLine END_OF_INPUT = new CommandLine("");
+    private static final Runnable END_OF_OUTPUT = () -> { };
+    private static final String READER_THREAD_NAME = "pipeline-reader";
+    private static final String OUTPUT_THREAD_NAME = "pipeline-output";
+    private static final String WORKER_THREAD_NAME = "pipeline-worker";
+    private static final String ERROR_READING_INPUT = "could not read the input: %s";
+    private static final String ERROR_EXECUTING_COMMAND = "the command failed: %s";
+
+    private final UserInterface userInterface;
+    private final int workers;
+    private final BlockingQueue<CommandLine> lines = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final BlockingQueue<Runnable> outputs = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    /**
+     * Constructs a new pipeline for the given user interface.
+     *
+     * @param userInterface the user interface executing the commands
+     * @param workers       the number of threads executing reading commands
+     */
+    public CommandPipeline(UserInterface userInterface, int workers) {
+        this.userInterface = userInterface;
+        this.workers = workers;
+    }
+
+    /**
+     * Executes all lines of the given input. This method blocks until the input
+     * ended or the user interface was stopped, and all results were printed. The
+     * output streams are flushed every given number of commands and at the end.
+     *
+     * @param input         the input to read the commands from
+     * @param flushInterval the number of commands after which the output streams
+     *                      are flushed
+     */
+    public void run(InputStream input, int flushInterval) {
+        this.userInterface.start();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, Charset.defaultCharset()), BUFFER_SIZE);
+        startThread(() -> read(reader), READER_THREAD_NAME);
+        Thread output = startThread(() -> print(flushInterval), OUTPUT_THREAD_NAME);
+        ExecutorService executor = Executors.newFixedThreadPool(this.workers, runnable -> {
+            Thread thread = new Thread(runnable, WORKER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            dispatch(executor);
+            this.outputs.put(END_OF_OUTPUT);
+            output.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void dispatch(ExecutorService executor) throws InterruptedException {
+        CommandLine line = this.lines.take();
+        while (line != END_OF_INPUT && this.userInterface.isRunning()) {
+            CommandLine command = line;
+            if (UserInterface.isReadingCommand(command)) {
+                Future<ExecutedCommand> execution = executor.submit(() -> this.userInterface.executeReadingCommand(command));
+                this.outputs.put(() -> complete(execution));
+            } else {
+                FutureTask<Void> barrier = new FutureTask<>(() -> this.userInterface.handleCommandLine(command), null);
+                this.outputs.put(barrier);
+                awaitBarrier(barrier);
+            }
+            line = this.lines.take();
+        }
+    }
+
+    private void awaitBarrier(FutureTask<Void> barrier) throws InterruptedException {
+        try {
+            barrier.get();
+        } catch (ExecutionException exception) {
+            this.userInterface.printError(ERROR_EXECUTING_COMMAND.formatted(exception.getCause()));
+        }
+    }
+
+    private void complete(Future<ExecutedCommand> execution) {
+        try {
+            this.userInterface.complete(execution.get());
+        } catch (ExecutionException exception) {
+            this.userInterface.printError(ERROR_EXECUTING_COMMAND.formatted(exception.getCause()));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void read(BufferedReader reader) {
+        try (reader) {
+            String line = reader.readLine();
+            while (line != null) {
+                this.lines.put(new CommandLine(line));
+                line = reader.readLine();
+            }
+        } catch (IOException exception) {
+            this.userInterface.printError(ERROR_READING_INPUT.formatted(exception.getMessage()));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        putEndOfInput();
+    }
+
+    private void putEndOfInput() {
+        try {
+            this.lines.put(END_OF_INPUT);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void print(int flushInterval) {
+        int commandsSinceFlush = 0;
+        try {
+            Runnable output = this.outputs.take();
+            while (output != END_OF_OUTPUT) {
+                output.run();
+                if (++commandsSinceFlush >= flushInterval) {
+                    this.userInterface.flush();
+                    commandsSinceFlush = 0;
+                }
+                output = this.outputs.take();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        this.userInterface.flush();
+    }
+
+    private static Thread startThread(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,16 @@
+package edu.kit.kastel.recommendationsystem.view;
+
+import edu.kit.kastel.recommendationsystem.util.metrics.CommandEvent;
+
+/**
+ * A command which was executed but whose result was not printed yet.
+ * 
+ * @param command the name of the command
+ * @param result  the result of the command, may be {@code null}
+ * @param nanos   the time the execution took in nanoseconds
+ * @param event   the event recording the command, which began with its
+ *                execution, {@code null} if the event is not recorded
+ * @author urrwg
+ */
+record ExecutedCommand(String command, Result result, long nanos, CommandEvent event) {
+}
@@ -5,10 +5,15 @@
 import edu.kit.kastel.recommendationsystem.view.commands.CommandAdd;
 import edu.kit.kastel.recommendationsystem.view.commands.CommandEdges;
 import edu.kit.kastel.recommendationsystem.view.commands.CommandExport;
+import edu.kit.kastel.recommendationsystem.view.commands.CommandImport;
+import edu.kit.kastel.recommendationsystem.view.commands.CommandMemory;
 import edu.kit.kastel.recommendationsystem.view.commands.CommandNodes;
+import edu.kit.kastel.recommendationsystem.view.commands.CommandPath;
 import edu.kit.kastel.recommendationsystem.view.commands.CommandProvider;
 import edu.kit.kastel.recommendationsystem.view.commands.CommandRecommend;
 import edu.kit.kastel.recommendationsystem.view.commands.CommandRemove;
+import edu.kit.kastel.recommendationsystem.view.commands.CommandRemoveNode;
+import edu.kit.kastel.recommendationsystem.view.commands.CommandSave;
 
 /**
  * This enum represents all keywords for commands handling a
@@ -22,7 +27,7 @@ public enum GraphKeyword implements Keyword<Graph> {
     /**
      * The keyword for the {@link CommandAdd add} command.
      */
-    ADD(arguments -> new CommandAdd(arguments.parseLine())),
+    ADD(arguments -> new CommandAdd(arguments.parseLine()), true),
     /**
      * The keyword for the {@link CommandEdges edges} command.
      */
@@ -31,32 +36,62 @@ public enum GraphKeyword implements Keyword<Graph> {
      * The keyword for the {@link CommandExport export} command.
      */
     EXPORT(arguments -> new CommandExport()),
+    /**
+     * The keyword for the {@link CommandImport import} command.
+     */
+    IMPORT(arguments -> new CommandImport(arguments.parsePath()), true),
+    /**
+     * The keyword for the {@link CommandMemory memory} command.
+     */
+    MEMORY(arguments -> new CommandMemory()),
     /**
      * The keyword for the {@link CommandNodes nodes} command.
      */
     NODES(arguments -> new CommandNodes()),
+    /**
+     * The keyword for the {@link CommandPath path} command.
+     */
+    PATH(arguments -> new CommandPath(arguments.parseProductId(), arguments.parseProductId(), arguments.parsePartsFlag())),
     /**
      * The keyword for the {@link CommandRecommend recommend} command.
      */
-    RECOMMEND(arguments -> new CommandRecommend(arguments.retrieveLine())),
+    RECOMMEND(arguments -> new CommandRecommend(arguments.retrieveRemainder())),
+    /**
+     * The keyword for the {@link CommandRemove remove} command, or the
+     * {@link CommandRemoveNode remove node} command if a node is selected.
+     */
+    REMOVE(arguments -> arguments.isNodeSelection() ? new CommandRemoveNode(arguments.parseNodeSelection())
+            : new CommandRemove(arguments.parseLine()), true),
     /**
-     * The keyword for the {@link CommandRemove remove} command.
+     * The keyword for the {@link CommandSave save} command.
      */
-    REMOVE(arguments -> new CommandRemove(arguments.parseLine()));
+    SAVE(arguments -> new CommandSave(arguments.parseSnapshotFlag(), arguments.parseTargetPath()));
 
     private final CommandProvider<Graph> provider;
+    private final boolean mutating;
 
     GraphKeyword(CommandProvider<Graph> provider) {
+        this(provider, false);
+    }
+
+    GraphKeyword(CommandProvider<Graph> provider, boolean mutating) {
         this.provider = provider;
+        this.mutating = mutating;
     }
 
-    @Override
-    public Command<Graph> provide(Arguments arguments) throws InvalidArgumentException {
-        return provider.provide(arguments);
+    /**
+     * Returns whether the command of this keyword mutates the graph, so it has to
+     * be executed exclusively.
+     * 
+     * @return {@code true} if the command mutates the graph, {@code false}
+     *         otherwise
+     */
+    public boolean isMutating() {
+        return this.mutating;
     }
 
     @Override
-    public boolean matches(String command) {
-        return name().toLowerCase().equals(command);
+    public Command<Graph> provide(Arguments arguments) throws InvalidArgumentException {
+        return provider.provide(arguments);
     }
 }
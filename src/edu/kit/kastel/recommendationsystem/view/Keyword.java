@@ -10,11 +10,4 @@
  * @author urrwg
  */
 public interface Keyword<T> extends CommandProvider<T> {
-
-    /**
-     * Returns whether the keyword matches the given command.
-     * @param command the command to be checked
-     * @return whether the keyword matches the command
-     */
-    boolean matches(String command);
 }
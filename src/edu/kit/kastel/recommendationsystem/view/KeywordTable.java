@@ -0,0 +1,58 @@
+package edu.kit.kastel.recommendationsystem.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An open addressing hash table of all {@link GraphKeyword graph} and
+ * {@link ViewKeyword view} keywords by their command name. It is built once,
+ * so looking up the keyword of a command neither scans the keywords nor
+ * creates any string.
+ *
+ * @author urrwg
+ */
+final class KeywordTable {
+
+    private static final String[] NAMES;
+    private static final Keyword<?>[] KEYWORDS;
+
+    static {
+        List<Keyword<?>> keywords = new ArrayList<>(List.of(ViewKeyword.values()));
+        keywords.addAll(List.of(GraphKeyword.values()));
+
+        int capacity = Integer.highestOneBit(keywords.size() * 4);
+        NAMES = new String[capacity];
+        KEYWORDS = new Keyword<?>[capacity];
+        for (Keyword<?> keyword : keywords) {
+            String name = keyword.toString().toLowerCase();
+            int slot = name.hashCode() & (capacity - 1);
+            while (NAMES[slot] != null) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            NAMES[slot] = name;
+            KEYWORDS[slot] = keyword;
+        }
+    }
+
+    private KeywordTable() {
+        // This is a utility class
+    }
+
+    /**
+     * Returns the keyword matching the given token of the given command line.
+     *
+     * @param commandLine the command line
+     * @param index       the index of the token naming the command
+     * @return the keyword, or {@code null} if no keyword matches the token
+     */
+    static Keyword<?> lookup(CommandLine commandLine, int index) {
+        int slot = commandLine.tokenHash(index) & (NAMES.length - 1);
+        while (NAMES[slot] != null) {
+            if (commandLine.tokenEquals(index, NAMES[slot])) {
+                return KEYWORDS[slot];
+            }
+            slot = (slot + 1) & (NAMES.length - 1);
+        }
+        return null;
+    }
+}
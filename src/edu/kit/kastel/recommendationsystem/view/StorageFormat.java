@@ -0,0 +1,56 @@
+package edu.kit.kastel.recommendationsystem.view;
+
+import java.util.Map;
+import java.util.HashMap;
+
+/**
+ * Represents the formats a graph can be loaded from or saved to.
+ * 
+ * @author urrwg
+ */
+public enum StorageFormat {
+    /**
+     * The text database format, one relationship per line.
+     */
+    DATABASE("database"),
+
+    /**
+     * The binary snapshot format.
+     */
+    SNAPSHOT("snapshot"),
+
+    /**
+     * The binary snapshot format, mapped into memory and read in place.
+     */
+    MAPPED("mapped");
+
+    private static final Map<String, StorageFormat> ENUM_REPRESENTATIONS = new HashMap<>();
+    static {
+        for (StorageFormat enumValue : values()) {
+            ENUM_REPRESENTATIONS.put(enumValue.representation, enumValue);
+        }
+    }
+
+    private final String representation;
+
+    StorageFormat(String representation) {
+        this.representation = representation;
+    }
+
+    /**
+     * Converts a string representation of a storage format to the corresponding
+     * enum value.
+     *
+     * @param representationString the string representation of the format
+     * @return the corresponding {@link StorageFormat}, or {@code null} if there is
+     *         none
+     */
+    public static StorageFormat fromString(String representationString) {
+        return ENUM_REPRESENTATIONS.get(representationString);
+    }
+
+    @Override
+    public String toString() {
+        return this.representation;
+    }
+}
@@ -1,20 +1,28 @@
 package edu.kit.kastel.recommendationsystem.view;
 
-import java.util.Set;
-import java.util.Arrays;
-import java.util.EnumSet;
 import java.util.Scanner;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.io.InputStream;
-import java.util.Collection;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.concurrent.locks.Lock;
+
+import jdk.jfr.EventType;
 
 import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.util.journal.JournalException;
+import edu.kit.kastel.recommendationsystem.util.journal.MutationJournal;
+import edu.kit.kastel.recommendationsystem.util.metrics.CommandEvent;
+import edu.kit.kastel.recommendationsystem.util.metrics.CommandMetrics;
 import edu.kit.kastel.recommendationsystem.view.commands.Command;
 
 /**
  * Handles user input and command execution for the recommendation system.
  * This class reads input from a provided source, processes commands, and
- * executes them on the managed graph instance.
+ * executes them on the managed graph instance. Several instances can share one
+ * {@link ApplicationState}, e.g. one per client connection.
  * 
  * @author Programmieren-Team
  * @author urrwg
@@ -22,21 +30,24 @@
 public class UserInterface {
 
     private static final int COMMAND_ARGUMENT_INDEX = 0;
-    private static final int SECOND_ARGUMENT_INDEX = 1;
-    private static final String COMMAND_SEPARATOR = " ";
     private static final String ERROR_PREFIX = "Error, ";
     private static final String ERROR_UNKNOWN_COMMAND_FORMAT = ERROR_PREFIX + " unknown command: %s";
-    private static final String ERROR_TOO_MANY_ARGUMENTS = ERROR_PREFIX + "too many arguments provided.";
-    private static final String ERROR_INVALID_PRECONDITION = ERROR_PREFIX + "command cannot be used right now.";
+    private static final String ERROR_INVALID_PRECONDITION = "command cannot be used right now.";
+    private static final String ERROR_TOO_MANY_ARGUMENTS = "too many arguments provided.";
+    private static final String ERROR_READING_INPUT = "could not read the input: %s";
+    private static final int BATCH_BUFFER_SIZE = 1 << 16;
+    private static final EventType COMMAND_EVENT_TYPE = EventType.getEventType(CommandEvent.class);
 
-    private final Set<GraphKeyword> graphKeywords = EnumSet.allOf(GraphKeyword.class);
-    private final Set<ViewKeyword> viewKeywords = EnumSet.allOf(ViewKeyword.class);
+    private final CommandLine commandLine = new CommandLine("");
+    private final Arguments arguments = new Arguments(null, this.commandLine);
+    private final ThreadLocal<Arguments> readingArguments = ThreadLocal
+            .withInitial(() -> new Arguments(null, this.commandLine));
     private final InputStream inputSource;
     private final PrintStream defaultStream;
     private final PrintStream errorStream;
+    private final ApplicationState state;
 
-    private Graph graph;
-    private boolean isRunning;
+    private volatile boolean isRunning;
 
     /**
      * Constructs a new user interface instance.
@@ -46,9 +57,24 @@ public class UserInterface {
      * @param errorStream   the output stream used for error messages
      */
     public UserInterface(InputStream inputSource, PrintStream defaultStream, PrintStream errorStream) {
+        this(inputSource, defaultStream, errorStream, new ApplicationState());
+    }
+
+    /**
+     * Constructs a new user interface instance sharing the given state with other
+     * instances.
+     *
+     * @param inputSource   the input stream used to read user commands
+     * @param defaultStream the output stream used for standard messages
+     * @param errorStream   the output stream used for error messages
+     * @param state         the state shared with other instances
+     */
+    public UserInterface(InputStream inputSource, PrintStream defaultStream, PrintStream errorStream,
+            ApplicationState state) {
         this.inputSource = inputSource;
         this.defaultStream = defaultStream;
         this.errorStream = errorStream;
+        this.state = state;
     }
 
     /**
@@ -58,7 +84,32 @@ public UserInterface(InputStream inputSource, PrintStream defaultStream, PrintSt
      * @param graph the graph instance to be provided to the commands
      */
     public void setGraph(Graph graph) {
-        this.graph = graph;
+        try {
+            this.state.setGraph(graph);
+        } catch (JournalException exception) {
+            this.errorStream.println(ERROR_PREFIX + exception.getMessage());
+        }
+    }
+
+    /**
+     * Sets the journal which records all mutations of the graphs provided by this
+     * class {@link UserInterface}. Graphs set afterwards are attached to the
+     * journal.
+     * 
+     * @param journal the journal to record mutations in
+     */
+    public void setJournal(MutationJournal journal) {
+        this.state.setJournal(journal);
+    }
+
+    /**
+     * Returns the latency histograms, error counters and result sizes collected for
+     * every command handled by this instance and all instances sharing its state.
+     * 
+     * @return the command metrics
+     */
+    public CommandMetrics getMetrics() {
+        return this.state.getMetrics();
     }
 
     /**
@@ -79,6 +130,19 @@ public void print(String output) {
         }
     }
 
+    /**
+     * Prints the given diagnostic output, e.g. progress information, to the error
+     * stream, if the Communication is listening. Diagnostic output is no error and
+     * therefore not prefixed.
+     * 
+     * @param output the output to print
+     */
+    public void printDiagnostic(String output) {
+        if (this.isRunning) {
+            this.errorStream.println(output);
+        }
+    }
+
     /**
      * Starts the interaction with the user. This method will block while
      * interacting.
@@ -92,7 +156,7 @@ public void print(String output) {
      * @see #UserInterface(InputStream, PrintStream, PrintStream)
      */
     public void handleUserInput() {
-        this.isRunning = true;
+        start();
         try (Scanner scanner = new Scanner(this.inputSource)) {
             while (this.isRunning && scanner.hasNextLine()) {
                 handleLine(scanner.nextLine());
@@ -100,53 +164,209 @@ public void handleUserInput() {
         }
     }
 
-    private void handleLine(String line) {
-        String[] split = line.split(COMMAND_SEPARATOR);
-        String command = split[COMMAND_ARGUMENT_INDEX];
-        String[] arguments = Arrays.copyOfRange(split, SECOND_ARGUMENT_INDEX, split.length);
+    /**
+     * Executes all lines of the input source as a script. Unlike
+     * {@link #handleUserInput()} the source is read through a large buffer and
+     * the output streams are only flushed every given number of commands and at
+     * the end, so they should not flush automatically. The output is the same as
+     * in the interactive mode. The provided input source is closed afterwards.
+     * 
+     * @param flushInterval the number of commands after which the output streams
+     *                      are flushed
+     */
+    public void handleBatchInput(int flushInterval) {
+        start();
+        int commandsSinceFlush = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(this.inputSource, Charset.defaultCharset()), BATCH_BUFFER_SIZE)) {
+            String line = reader.readLine();
+            while (this.isRunning && line != null) {
+                handleLine(line);
+                if (++commandsSinceFlush >= flushInterval) {
+                    flush();
+                    commandsSinceFlush = 0;
+                }
+                line = this.isRunning ? reader.readLine() : null;
+            }
+        } catch (IOException exception) {
+            this.errorStream.println(ERROR_PREFIX + ERROR_READING_INPUT.formatted(exception.getMessage()));
+        }
+        flush();
+    }
+
+    /**
+     * Starts the interaction without reading from the input source, the lines are
+     * passed to {@link #handleLine(String)} by the caller instead.
+     */
+    public void start() {
+        this.isRunning = true;
+    }
+
+    /**
+     * Returns whether the interaction is running, i.e. it was started and not
+     * stopped yet.
+     * 
+     * @return {@code true} if the interaction is running, {@code false} otherwise
+     */
+    public boolean isRunning() {
+        return this.isRunning;
+    }
+
+    /**
+     * Handles a single line of input. Commands reading the graph are executed on a
+     * snapshot of the graph, commands mutating it while holding the mutation lock of
+     * the shared state. Mutating commands are rejected on a read-only graph.
+     * 
+     * @param line the line to handle
+     */
+    public void handleLine(String line) {
+        this.commandLine.reset(line);
+        handleCommandLine(this.commandLine);
+    }
+
+    /**
+     * Handles a tokenized line of input like {@link #handleLine(String)}. Only one
+     * thread at a time may handle lines.
+     * 
+     * @param line the tokenized line
+     */
+    void handleCommandLine(CommandLine line) {
+        if (line.size() == 0) {
+            this.errorStream.println(ERROR_UNKNOWN_COMMAND_FORMAT.formatted(""));
+            return;
+        }
+
+        Keyword<?> keyword = KeywordTable.lookup(line, COMMAND_ARGUMENT_INDEX);
+        if (keyword instanceof ViewKeyword viewKeyword) {
+            handleCommand(this, line, viewKeyword);
+        } else if (keyword instanceof GraphKeyword graphKeyword) {
+            handleGraphCommand(line, graphKeyword);
+        } else {
+            this.errorStream.println(ERROR_UNKNOWN_COMMAND_FORMAT.formatted(line.token(COMMAND_ARGUMENT_INDEX)));
+        }
+    }
+
+    /**
+     * Prints the given error message to the error stream.
+     * 
+     * @param message the error message without prefix
+     */
+    void printError(String message) {
+        this.errorStream.println(ERROR_PREFIX + message);
+    }
+
+    /**
+     * Flushes the output streams.
+     */
+    void flush() {
+        this.defaultStream.flush();
+        this.errorStream.flush();
+    }
+
+    private void handleGraphCommand(CommandLine line, GraphKeyword keyword) {
+        if (!keyword.isMutating()) {
+            handleCommand(this.state.getSnapshot(), line, keyword);
+            return;
+        }
+
+        Lock lock = this.state.getMutationLock();
+        lock.lock();
+        try {
+            this.state.checkJournal();
+            Graph graph = this.state.getGraph();
+            handleCommand(graph == null || graph.isReadOnly() ? null : graph, line, keyword);
+        } catch (JournalException exception) {
+            this.errorStream.println(ERROR_PREFIX + exception.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns whether the given tokenized line is a command which only reads the
+     * graph and can therefore run concurrently with other such commands.
+     * 
+     * @param line the tokenized line
+     * @return {@code true} if the line is a reading graph command
+     */
+    static boolean isReadingCommand(CommandLine line) {
+        return line.size() > 0 && KeywordTable.lookup(line, COMMAND_ARGUMENT_INDEX) instanceof GraphKeyword keyword
+                && !keyword.isMutating();
+    }
+
+    /**
+     * Executes the given reading graph command on a snapshot of the graph without
+     * printing its result, see {@link #complete(ExecutedCommand)}. Unlike
+     * {@link #handleCommandLine(CommandLine)} this may be called concurrently, every
+     * calling thread reuses its own arguments.
+     * 
+     * @param line the tokenized line, see {@link #isReadingCommand(CommandLine)}
+     * @return the executed command
+     */
+    ExecutedCommand executeReadingCommand(CommandLine line) {
+        GraphKeyword keyword = (GraphKeyword) KeywordTable.lookup(line, COMMAND_ARGUMENT_INDEX);
+        return execute(this.state.getSnapshot(), line, this.readingArguments.get(), keyword);
+    }
+
+    /**
+     * Prints the result of the given executed command and records its metrics.
+     * 
+     * @param executedCommand the executed command
+     */
+    void complete(ExecutedCommand executedCommand) {
+        long startNanos = System.nanoTime();
+        Result result = executedCommand.result();
+        int resultSize = handleResult(result);
 
-        if (!findAndHandleCommand(this.viewKeywords, this, command, arguments)
-                && !findAndHandleCommand(this.graphKeywords, graph, command, arguments)) {
-            this.errorStream.println(ERROR_UNKNOWN_COMMAND_FORMAT.formatted(command));
+        boolean failed = result != null && result.getType() == ResultType.FAILURE;
+        long nanos = executedCommand.nanos() + System.nanoTime() - startNanos;
+        this.state.getMetrics().record(executedCommand.command(), nanos, failed, resultSize);
+        CommandEvent event = executedCommand.event();
+        if (event != null && event.shouldCommit()) {
+            event.commit(executedCommand.command(), failed, resultSize);
         }
     }
 
-    private <S, T extends Keyword<S>> boolean findAndHandleCommand(Set<T> keywords, S value, String command,
-            String[] arguments) {
-        T keyword = retrieveKeyword(keywords, command);
-        if (keyword != null) {
-            handleCommand(value, arguments, keyword);
-            return true;
+    private <S, T extends Keyword<S>> void handleCommand(S value, CommandLine line, T keyword) {
+        complete(execute(value, line, this.arguments, keyword));
+    }
+
+    private <S, T extends Keyword<S>> ExecutedCommand execute(S value, CommandLine line, Arguments arguments,
+            T keyword) {
+        // The event is only created while it is recorded
+        CommandEvent event = COMMAND_EVENT_TYPE.isEnabled() ? new CommandEvent() : null;
+        if (event != null) {
+            event.begin();
         }
-        return false;
+        long startNanos = System.nanoTime();
+        Result result = executeCommand(value, line, arguments, keyword);
+        return new ExecutedCommand(keyword.toString(), result, System.nanoTime() - startNanos, event);
     }
 
-    private <S, T extends Keyword<S>> void handleCommand(S value, String[] arguments, T keyword) {
+    private <S, T extends Keyword<S>> Result executeCommand(S value, CommandLine line, Arguments argumentsHolder,
+            T keyword) {
         if (value == null) {
-            this.errorStream.println(ERROR_INVALID_PRECONDITION);
-            return;
+            return Result.error(ERROR_INVALID_PRECONDITION);
         }
 
-        Arguments argumentsHolder = new Arguments(this.graph, arguments);
+        argumentsHolder.reset(this.state.getGraph(), line);
         Command<S> providedCommand;
         try {
             providedCommand = keyword.provide(argumentsHolder);
         } catch (InvalidArgumentException exception) {
-            this.errorStream.println(ERROR_PREFIX + exception.getMessage());
-            return;
+            return Result.error(exception.getMessage());
         }
 
         if (!argumentsHolder.isExhausted()) {
-            this.errorStream.println(ERROR_TOO_MANY_ARGUMENTS);
-            return;
+            return Result.error(ERROR_TOO_MANY_ARGUMENTS);
         }
 
-        handleResult(providedCommand.execute(value));
+        return providedCommand.execute(value);
     }
 
-    private void handleResult(Result result) {
-        if (result == null) {
-            return;
+    private int handleResult(Result result) {
+        if (result == null || result.getMessage() == null) {
+            return 0;
         }
 
         PrintStream outputStream = switch (result.getType()) {
@@ -154,18 +374,8 @@ private void handleResult(Result result) {
             case FAILURE -> this.errorStream;
         };
 
-        if (result.getMessage() != null) {
-            outputStream.println((result.getType().equals(ResultType.FAILURE) ? ERROR_PREFIX : "")
-                    + result.getMessage());
-        }
-    }
-
-    private static <T extends Keyword<?>> T retrieveKeyword(Collection<T> keywords, String command) {
-        for (T keyword : keywords) {
-            if (keyword.matches(command)) {
-                return keyword;
-            }
-        }
-        return null;
+        outputStream.println((result.getType().equals(ResultType.FAILURE) ? ERROR_PREFIX : "")
+                + result.getMessage());
+        return result.getMessage().length();
     }
 }
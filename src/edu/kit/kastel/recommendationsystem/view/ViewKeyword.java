@@ -4,6 +4,7 @@
 import edu.kit.kastel.recommendationsystem.view.commands.CommandLoad;
 import edu.kit.kastel.recommendationsystem.view.commands.CommandProvider;
 import edu.kit.kastel.recommendationsystem.view.commands.CommandQuit;
+import edu.kit.kastel.recommendationsystem.view.commands.CommandStats;
 
 /**
  * This enum represents all keywords for commands handling an {@link UserInterface}.
@@ -16,11 +17,15 @@ public enum ViewKeyword implements Keyword<UserInterface> {
     /**
      * The keyword for the {@link CommandLoad load} command.
      */
-    LOAD(arguments -> new CommandLoad(arguments.parseDatabaseFlag(), arguments.parsePath())),
+    LOAD(arguments -> new CommandLoad(arguments.parseStorageFormat(), arguments.parsePath())),
      /**
      * The keyword for the {@link CommandQuit quit} command.
      */
-    QUIT(arguments -> new CommandQuit());
+    QUIT(arguments -> new CommandQuit()),
+    /**
+     * The keyword for the {@link CommandStats stats} command.
+     */
+    STATS(arguments -> new CommandStats(arguments.parseResetFlag()));
     
     private final CommandProvider<UserInterface> provider;
 
@@ -32,9 +37,4 @@ public enum ViewKeyword implements Keyword<UserInterface> {
     public Command<UserInterface> provide(Arguments arguments) throws InvalidArgumentException {
         return provider.provide(arguments);
     }
-
-    @Override
-    public boolean matches(String command) {
-        return name().toLowerCase().equals(command);
-    }
 }
@@ -0,0 +1,53 @@
+package edu.kit.kastel.recommendationsystem.view.commands;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.model.RelationshipDTO;
+import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+import edu.kit.kastel.recommendationsystem.util.parser.DatabaseParser;
+import edu.kit.kastel.recommendationsystem.view.Result;
+
+/**
+ * Command for importing the relationships of a file in database syntax into
+ * the current graph. The file is streamed and validated against the graph as a
+ * whole before any relationship is added, and all relationships are then added
+ * at once, so the graph either contains all of them or none. Relationships the
+ * graph already contains are skipped.
+ * 
+ * @author urrwg
+ */
+public class CommandImport implements Command<Graph> {
+
+    private static final String ERROR_READING_FILE = "could not read import file";
+    private static final String ERROR_RELATIONSHIPS_NOT_ADDABLE = "relationships could not be added to the graph";
+
+    private final Path importPath;
+
+    /**
+     * Constructs a new CommandImport instance.
+     * 
+     * @param importPath the path to the file whose relationships should be imported
+     */
+    public CommandImport(Path importPath) {
+        this.importPath = importPath;
+    }
+
+    @Override
+    public Result execute(Graph handle) {
+        List<RelationshipDTO> relationships;
+        try (BufferedReader reader = Files.newBufferedReader(this.importPath, Charset.defaultCharset())) {
+            relationships = DatabaseParser.parseBatch(reader, handle.getVersion());
+        } catch (DataParsException exception) {
+            return Result.error(exception.getMessage());
+        } catch (IOException | SecurityException exception) {
+            return Result.error(ERROR_READING_FILE);
+        }
+        return handle.addRelationships(relationships) ? Result.success() : Result.error(ERROR_RELATIONSHIPS_NOT_ADDABLE);
+    }
+}
@@ -8,13 +8,20 @@
 import edu.kit.kastel.recommendationsystem.view.Result;
 import edu.kit.kastel.recommendationsystem.model.Graph;
 import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+import edu.kit.kastel.recommendationsystem.util.metrics.LoadMetrics;
+import edu.kit.kastel.recommendationsystem.util.metrics.LoadPhase;
 import edu.kit.kastel.recommendationsystem.util.parser.DatabaseParser;
+import edu.kit.kastel.recommendationsystem.util.snapshot.MappedGraph;
+import edu.kit.kastel.recommendationsystem.util.snapshot.SnapshotReader;
+import edu.kit.kastel.recommendationsystem.view.StorageFormat;
 import edu.kit.kastel.recommendationsystem.view.UserInterface;
 
 /**
  * Command for loading a database file and initializing the graph structure.
  * Validates file existence and readability before parsing operations, then
  * updates the current Graph, only if the parsing was successful.
+ * Binary snapshots are loaded without parsing and are not printed, mapped
+ * snapshots are not loaded at all but read in place.
  * 
  * @author urrwg
  */
@@ -22,24 +29,29 @@ public class CommandLoad implements Command<UserInterface> {
 
     private static final String ERROR_READING_FILE = "could not read database file";
 
+    private final StorageFormat format;
     private final Path databasePath;
 
     /**
      * Constructs a new CommandLoad instance.
      * 
-     * @param databaseFlag a flag indicating database-related operations (not used
-     *                     internally)
+     * @param format       the format of the file that should be loaded
      * @param databasePath the path to the database file that should be loaded
      */
-    public CommandLoad(String databaseFlag, Path databasePath) {
+    public CommandLoad(StorageFormat format, Path databasePath) {
+        this.format = format;
         this.databasePath = databasePath;
     }
 
     @Override
     public Result execute(UserInterface handle) {
+        LoadMetrics metrics = new LoadMetrics(handle::printDiagnostic);
         try {
-            handle.print(createOutputString());
-            Graph graph = DatabaseParser.parse(parseFileToStringArray());
+            Graph graph = switch (this.format) {
+                case DATABASE -> loadDatabase(handle, metrics);
+                case SNAPSHOT -> loadSnapshot(metrics);
+                case MAPPED -> MappedGraph.open(this.databasePath);
+            };
             handle.setGraph(graph);
 
             return Result.success();
@@ -48,12 +60,24 @@ public Result execute(UserInterface handle) {
         }
     }
 
-    private List<String> parseFileToStringArray() throws DataParsException {
-        try {
-            return Files.readAllLines(this.databasePath);
-        } catch (IOException | SecurityException exception) {
-            throw new DataParsException(ERROR_READING_FILE);
-        }
+    private Graph loadDatabase(UserInterface handle, LoadMetrics metrics) throws DataParsException {
+        long phaseStart = metrics.startPhase();
+        String content = createOutputString();
+        List<String> lines = content.lines().toList();
+        metrics.endPhase(LoadPhase.READ, phaseStart);
+
+        handle.print(content);
+        Graph graph = DatabaseParser.parse(lines, metrics);
+        metrics.finish(graph);
+        return graph;
+    }
+
+    private Graph loadSnapshot(LoadMetrics metrics) throws DataParsException {
+        long phaseStart = metrics.startPhase();
+        Graph graph = SnapshotReader.read(this.databasePath);
+        metrics.endPhase(LoadPhase.BUILD, phaseStart);
+        metrics.finish(graph);
+        return graph;
     }
 
     private String createOutputString() throws DataParsException {
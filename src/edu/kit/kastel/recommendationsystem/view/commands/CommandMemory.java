@@ -0,0 +1,25 @@
+package edu.kit.kastel.recommendationsystem.view.commands;
+
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.view.Result;
+
+/**
+ * This class represents a command that prints the estimated bytes retained by
+ * the graph per data structure, the bytes per node and per edge, and the
+ * distribution of the outgoing edges of the nodes.
+ * 
+ * @author urrwg
+ */
+public class CommandMemory implements Command<Graph> {
+
+    /**
+     * Estimates the memory retained by the provided graph.
+     * 
+     * @param handle the graph whose memory is estimated
+     * @return the result holding the formatted estimate
+     */
+    @Override
+    public Result execute(Graph handle) {
+        return Result.success(handle.getMemoryFootprint().format());
+    }
+}
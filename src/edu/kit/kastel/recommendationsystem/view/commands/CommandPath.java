@@ -0,0 +1,69 @@
+package edu.kit.kastel.recommendationsystem.view.commands;
+
+import java.util.List;
+
+import edu.kit.kastel.recommendationsystem.model.Edge;
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.model.PathSearch;
+import edu.kit.kastel.recommendationsystem.model.RelationshipType;
+import edu.kit.kastel.recommendationsystem.view.Result;
+
+/**
+ * Command for finding the shortest chain of successor or of predecessor
+ * relationships between two products, and optionally of part-of or of has-part
+ * relationships as well. All relationships of a chain have the same type. The
+ * chain is printed as its relationships from the first to the second product,
+ * so it shows whether one product is an eventual successor of the other.
+ * Nothing is printed if there is no such chain.
+ * 
+ * @author urrwg
+ */
+public class CommandPath implements Command<Graph> {
+
+    private static final List<RelationshipType> LINEAGE_RELATIONSHIPS = List.of(RelationshipType.SUCCESSOR_OF,
+            RelationshipType.PREDECESSOR_OF);
+    private static final List<RelationshipType> LINEAGE_AND_PART_RELATIONSHIPS = List.of(RelationshipType.SUCCESSOR_OF,
+            RelationshipType.PREDECESSOR_OF, RelationshipType.PART_OF, RelationshipType.HAS_PART);
+    private static final String ERROR_PRODUCT_NOT_FOUND = "product not found: %s";
+    private static final String RELATIONSHIP_OUTPUT_FORMAT = "-[%s]->%s";
+    private static final String EMPTY_OUTPUT = "";
+
+    private final int startId;
+    private final int targetId;
+    private final boolean includeParts;
+
+    /**
+     * Constructs a new CommandPath instance.
+     * 
+     * @param startId      the id of the product the chain starts at
+     * @param targetId     the id of the product the chain ends at
+     * @param includeParts whether the chain may contain part relationships
+     */
+    public CommandPath(int startId, int targetId, boolean includeParts) {
+        this.startId = startId;
+        this.targetId = targetId;
+        this.includeParts = includeParts;
+    }
+
+    @Override
+    public Result execute(Graph handle) {
+        Node start = handle.findProductById(this.startId);
+        Node target = handle.findProductById(this.targetId);
+        if (start == null || target == null) {
+            return Result.error(String.format(ERROR_PRODUCT_NOT_FOUND, start == null ? this.startId : this.targetId));
+        }
+
+        List<RelationshipType> relationships = this.includeParts ? LINEAGE_AND_PART_RELATIONSHIPS : LINEAGE_RELATIONSHIPS;
+        List<Edge> path = PathSearch.findShortestPath(start, target, handle, relationships);
+        return Result.success(path == null ? EMPTY_OUTPUT : formatOutput(start, path));
+    }
+
+    private static String formatOutput(Node start, List<Edge> path) {
+        StringBuilder output = new StringBuilder(start.toString());
+        for (Edge edge : path) {
+            output.append(String.format(RELATIONSHIP_OUTPUT_FORMAT, edge.getRelationship(), edge.getEndNode()));
+        }
+        return output.toString();
+    }
+}
@@ -9,6 +9,7 @@
 import edu.kit.kastel.recommendationsystem.model.Node;
 import edu.kit.kastel.recommendationsystem.util.SortUtils;
 import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+import edu.kit.kastel.recommendationsystem.util.parser.QueryBackend;
 import edu.kit.kastel.recommendationsystem.util.parser.RecursiveDescentParser;
 import edu.kit.kastel.recommendationsystem.view.Result;
 
@@ -46,6 +47,22 @@ public Result execute(Graph handle) {
         }
     }
 
+    /**
+     * Executes the query with the given backend instead of a local graph, e.g. on
+     * the shards of a sharded graph. The output is the same as for a graph.
+     * 
+     * @param backend the backend evaluating the strategies of the query
+     * @return the result of the query
+     */
+    public Result execute(QueryBackend backend) {
+        try {
+            Set<Node> recommendations = RecursiveDescentParser.parse(input, backend);
+            return Result.success(formatOutput(recommendations));
+        } catch (DataParsException exception) {
+            return Result.error(exception.getMessage());
+        }
+    }
+
     private String formatOutput(Set<Node> nodes) {
         if (nodes.isEmpty()) {
             return EMPTY_OUTPUT;
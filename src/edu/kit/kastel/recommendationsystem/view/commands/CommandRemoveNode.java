@@ -0,0 +1,49 @@
+package edu.kit.kastel.recommendationsystem.view.commands;
+
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.model.GraphVersion;
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.view.Result;
+
+/**
+ * Command implementation for removing a node from the graph together with all
+ * of its relationships. The node is selected by its name, or by its id if it is
+ * a product and no node has the given name. Neighbors left without any
+ * relationship are removed as well, like with the {@link CommandRemove remove}
+ * command.
+ * 
+ * @author urrwg
+ */
+public class CommandRemoveNode implements Command<Graph> {
+
+    private static final String ERROR_NODE_NOT_REMOVABLE = "node can not be removed";
+
+    private final String identifier;
+
+    /**
+     * Constructs a new CommandRemoveNode instance.
+     * 
+     * @param identifier the name of the node or the id of the product to be removed
+     */
+    public CommandRemoveNode(String identifier) {
+        this.identifier = identifier;
+    }
+
+    @Override
+    public Result execute(Graph handle) {
+        Node node = findNode(handle.getVersion());
+        return node != null && handle.removeNode(node) ? Result.success() : Result.error(ERROR_NODE_NOT_REMOVABLE);
+    }
+
+    private Node findNode(GraphVersion version) {
+        Node node = version.findNodeByName(this.identifier.toLowerCase());
+        if (node != null) {
+            return node;
+        }
+        try {
+            return version.findProductById(Integer.parseInt(this.identifier));
+        } catch (NumberFormatException exception) {
+            return null;
+        }
+    }
+}
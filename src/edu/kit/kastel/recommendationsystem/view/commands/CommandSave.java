@@ -0,0 +1,41 @@
+package edu.kit.kastel.recommendationsystem.view.commands;
+
+import java.nio.file.Path;
+
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+import edu.kit.kastel.recommendationsystem.util.snapshot.SnapshotWriter;
+import edu.kit.kastel.recommendationsystem.view.Result;
+import edu.kit.kastel.recommendationsystem.view.StorageFormat;
+
+/**
+ * Command for saving the current graph as binary snapshot, which can be loaded
+ * again without parsing the text database.
+ * 
+ * @author urrwg
+ */
+public class CommandSave implements Command<Graph> {
+
+    private final Path snapshotPath;
+
+    /**
+     * Constructs a new CommandSave instance.
+     * 
+     * @param format       the format to save the graph in (always
+     *                     {@link StorageFormat#SNAPSHOT}, not used internally)
+     * @param snapshotPath the path the snapshot should be written to
+     */
+    public CommandSave(StorageFormat format, Path snapshotPath) {
+        this.snapshotPath = snapshotPath;
+    }
+
+    @Override
+    public Result execute(Graph handle) {
+        try {
+            SnapshotWriter.write(handle, this.snapshotPath);
+            return Result.success();
+        } catch (DataParsException exception) {
+            return Result.error(exception.getMessage());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package edu.kit.kastel.recommendationsystem.view.commands;
+
+import edu.kit.kastel.recommendationsystem.view.Result;
+import edu.kit.kastel.recommendationsystem.view.UserInterface;
+
+/**
+ * This class represents a command that prints the latency quantiles, error
+ * counts, throughput and result sizes of all commands handled by an user
+ * interface. Optionally the argument {@code reset} can be given to discard
+ * the collected metrics afterwards.
+ * 
+ * @author urrwg
+ */
+public class CommandStats implements Command<UserInterface> {
+
+    private final boolean reset;
+
+    /**
+     * Constructs a new instance.
+     * 
+     * @param reset whether the collected metrics are discarded after printing them
+     */
+    public CommandStats(boolean reset) {
+        this.reset = reset;
+    }
+
+    /**
+     * Formats the metrics collected by the provided user interface and resets them
+     * if requested.
+     * 
+     * @param handle the user interface whose metrics are printed
+     * @return the result holding the formatted metrics
+     */
+    @Override
+    public Result execute(UserInterface handle) {
+        String statistics = handle.getMetrics().format();
+        if (this.reset) {
+            handle.getMetrics().reset();
+        }
+        return Result.success(statistics);
+    }
+}
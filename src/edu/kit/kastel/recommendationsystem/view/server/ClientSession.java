@@ -0,0 +1,87 @@
+package edu.kit.kastel.recommendationsystem.view.server;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import edu.kit.kastel.recommendationsystem.view.ApplicationState;
+import edu.kit.kastel.recommendationsystem.view.UserInterface;
+
+/**
+ * Serves the line protocol of the {@link UserInterface} to a single client
+ * connection. The output of a command is collected in a buffer of this session
+ * while the command runs, and written to the socket after the command finished
+ * and released the mutation lock of the shared state, if it held it. A slow client
+ * therefore only blocks its own session, while the socket applies backpressure
+ * on it by not reading further lines before the previous output was sent.
+ * 
+ * @author urrwg
+ */
+final class ClientSession implements Runnable {
+
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1 << 20;
+
+    private final Socket socket;
+    private final ApplicationState state;
+
+    private ByteArrayOutputStream buffer;
+    private PrintStream bufferStream;
+
+    /**
+     * Constructs a new session for the given client connection.
+     * 
+     * @param socket the connection to the client
+     * @param state  the state shared with all other sessions
+     */
+    ClientSession(Socket socket, ApplicationState state) {
+        this.socket = socket;
+        this.state = state;
+    }
+
+    @Override
+    public void run() {
+        try (Socket client = this.socket;
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                OutputStream output = new BufferedOutputStream(client.getOutputStream(), OUTPUT_BUFFER_SIZE)) {
+            UserInterface userInterface = createUserInterface();
+            userInterface.start();
+
+            String line = reader.readLine();
+            while (line != null && userInterface.isRunning()) {
+                userInterface.handleLine(line);
+                sendOutput(output);
+                if (this.buffer.size() > MAX_RETAINED_BUFFER_SIZE) {
+                    // Drop the grown buffer instead of retaining it for the rest of the session
+                    userInterface = createUserInterface();
+                    userInterface.start();
+                } else {
+                    this.buffer.reset();
+                }
+                line = userInterface.isRunning() ? reader.readLine() : null;
+            }
+        } catch (IOException exception) {
+            // The client closed the connection, nothing is left to clean up
+        }
+    }
+
+    private UserInterface createUserInterface() {
+        this.buffer = new ByteArrayOutputStream();
+        this.bufferStream = new PrintStream(this.buffer, false, StandardCharsets.UTF_8);
+        return new UserInterface(InputStream.nullInputStream(), this.bufferStream, this.bufferStream, this.state);
+    }
+
+    private void sendOutput(OutputStream output) throws IOException {
+        this.bufferStream.flush();
+        this.buffer.writeTo(output);
+        output.flush();
+    }
+}
@@ -0,0 +1,142 @@
+package edu.kit.kastel.recommendationsystem.view.server;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.kit.kastel.recommendationsystem.view.ApplicationState;
+import edu.kit.kastel.recommendationsystem.view.UserInterface;
+
+/**
+ * A server accepting client connections on a local port. Every connection is
+ * served by its own {@link ClientSession} speaking the line protocol of the
+ * {@link UserInterface}, and all sessions share one {@link ApplicationState}.
+ * Sessions run on virtual threads if the runtime provides them, otherwise on
+ * a cached pool of platform threads.
+ * 
+ * @author urrwg
+ */
+public final class GraphServer implements AutoCloseable {
+
+    private static final String VIRTUAL_THREAD_EXECUTOR_FACTORY = "newVirtualThreadPerTaskExecutor";
+    private static final String SESSION_THREAD_NAME = "client-session";
+    private static final String ERROR_ACCEPTING_CONNECTION = "Error, could not accept a connection: %s";
+    private static final long MIN_BACKOFF_MILLIS = 10;
+    private static final long MAX_BACKOFF_MILLIS = 1000;
+
+    private final ServerSocket serverSocket;
+    private final ApplicationState state;
+    private final ExecutorService executor;
+
+    private GraphServer(ServerSocket serverSocket, ApplicationState state) {
+        this.serverSocket = serverSocket;
+        this.state = state;
+        this.executor = createExecutor();
+    }
+
+    /**
+     * Binds a new server to the given port of the loopback address.
+     * 
+     * @param port  the port to bind to, {@code 0} to pick a free port
+     * @param state the state shared by all sessions
+     * @return the bound server
+     * @throws IOException if the port can not be bound
+     */
+    public static GraphServer bind(int port, ApplicationState state) throws IOException {
+        return new GraphServer(new ServerSocket(port, 0, InetAddress.getLoopbackAddress()), state);
+    }
+
+    /**
+     * Returns the port this server is bound to.
+     * 
+     * @return the local port
+     */
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts client connections until this server is closed. This method will
+     * block while serving. A failed accept, e.g. because the process ran out of
+     * file descriptors, is reported and retried after a delay which doubles with
+     * every further failure, so a persistent error does not spin.
+     * 
+     * @param errorStream the stream to report failed accepts to
+     */
+    public void serve(PrintStream errorStream) {
+        long backoffMillis = MIN_BACKOFF_MILLIS;
+        while (!this.serverSocket.isClosed()) {
+            Socket client;
+            try {
+                client = this.serverSocket.accept();
+            } catch (IOException exception) {
+                if (this.serverSocket.isClosed()) {
+                    return;
+                }
+                errorStream.println(ERROR_ACCEPTING_CONNECTION.formatted(exception.getMessage()));
+                if (!sleep(backoffMillis)) {
+                    return;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+                continue;
+            }
+            backoffMillis = MIN_BACKOFF_MILLIS;
+            serveClient(client);
+        }
+    }
+
+    /**
+     * Stops accepting connections. Running sessions are finished by their clients.
+     */
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+        this.executor.shutdown();
+    }
+
+    private void serveClient(Socket client) {
+        try {
+            client.setTcpNoDelay(true);
+            this.executor.execute(new ClientSession(client, this.state));
+        } catch (IOException exception) {
+            // The connection was reset before it was served
+            closeQuietly(client);
+        }
+    }
+
+    private static void closeQuietly(Socket client) {
+        try {
+            client.close();
+        } catch (IOException exception) {
+            // The connection is discarded anyway
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            Method factory = Executors.class.getMethod(VIRTUAL_THREAD_EXECUTOR_FACTORY);
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException exception) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, SESSION_THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package edu.kit.kastel.recommendationsystem.view.shard;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import edu.kit.kastel.recommendationsystem.Application;
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.model.Product;
+import edu.kit.kastel.recommendationsystem.model.SymbolTable;
+import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+
+/**
+ * The connection of a {@link ShardCoordinator} to one {@link ShardWorker}
+ * process. The process is started by this connection and destroyed when it is
+ * closed. Queries are pipelined: a chunk of requests is sent at once before
+ * their responses are read, which bounds the data in flight so neither side
+ * blocks on a full socket buffer.
+ * 
+ * @author urrwg
+ */
+final class ShardConnection implements AutoCloseable {
+
+    private static final int PIPELINE_DEPTH = 128;
+    private static final long EXIT_TIMEOUT_SECONDS = 5;
+    private static final String WORKER_OPTION = "--shard-worker";
+    private static final String FREE_PORT = "0";
+    private static final String JAVA_HOME_PROPERTY = "java.home";
+    private static final String CLASS_PATH_PROPERTY = "java.class.path";
+    private static final String CLASS_PATH_OPTION = "-cp";
+    private static final String PORT_SEPARATOR = " ";
+    private static final char ID_SEPARATOR = ':';
+    private static final String ERROR_NOT_STARTED = "shard %d did not start";
+    private static final String ERROR_CLOSED = "shard %d closed the connection";
+    private static final String ERROR_INVALID_RESPONSE = "invalid response of shard %d: %s";
+
+    private final int index;
+    private final Process process;
+    private final Socket socket;
+    private final BufferedReader reader;
+    private final Writer writer;
+
+    private ShardConnection(int index, Process process, Socket socket) throws IOException {
+        this.index = index;
+        this.process = process;
+        this.socket = socket;
+        this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Starts a new worker process with the class path of this process and
+     * connects to it.
+     * 
+     * @param index the index of the shard held by the worker
+     * @return the connection to the worker
+     * @throws IOException if the worker could not be started or connected to
+     */
+    static ShardConnection start(int index) throws IOException {
+        String java = Path.of(System.getProperty(JAVA_HOME_PROPERTY), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, CLASS_PATH_OPTION, System.getProperty(CLASS_PATH_PROPERTY),
+                Application.class.getName(), WORKER_OPTION, FREE_PORT)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        try {
+            // The worker announces its port on its first line
+            BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), Charset.defaultCharset()));
+            String line = output.readLine();
+            if (line == null) {
+                throw new IOException(ERROR_NOT_STARTED.formatted(index));
+            }
+            int port = Integer.parseInt(line.substring(line.lastIndexOf(PORT_SEPARATOR) + 1));
+            Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            return new ShardConnection(index, process, socket);
+        } catch (IOException | NumberFormatException exception) {
+            process.destroy();
+            throw new IOException(ERROR_NOT_STARTED.formatted(index), exception);
+        }
+    }
+
+    /**
+     * Returns the index of the shard held by the worker.
+     * 
+     * @return the index of the shard
+     */
+    int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Makes the worker replace its shard with the database file at the given path.
+     * 
+     * @param path the path to the database file of the shard
+     * @throws IOException       if the worker is not reachable
+     * @throws DataParsException if the worker could not load the file
+     */
+    void load(Path path) throws IOException, DataParsException {
+        send(ShardWorker.LOAD_REQUEST + path.toAbsolutePath());
+        this.writer.flush();
+        receive();
+    }
+
+    /**
+     * Evaluates the given queries on the shard and returns the union of their
+     * results. If a query fails, the remaining queries of its chunk are still
+     * answered, but no further chunk is sent.
+     * 
+     * @param queries the recommendation queries
+     * @return the products found by any of the queries
+     * @throws IOException       if the worker is not reachable
+     * @throws DataParsException if a query failed on the shard
+     */
+    Set<Node> query(List<String> queries) throws IOException, DataParsException {
+        Set<Node> products = new HashSet<>();
+        for (int chunkStart = 0; chunkStart < queries.size(); chunkStart += PIPELINE_DEPTH) {
+            int chunkEnd = Math.min(chunkStart + PIPELINE_DEPTH, queries.size());
+            for (String query : queries.subList(chunkStart, chunkEnd)) {
+                send(ShardWorker.QUERY_REQUEST + query);
+            }
+            this.writer.flush();
+
+            DataParsException failure = null;
+            for (int i = chunkStart; i < chunkEnd; i++) {
+                try {
+                    products.addAll(receive());
+                } catch (DataParsException exception) {
+                    failure = failure == null ? exception : failure;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Returns the names of the categories directly containing the product with the
+     * given id, which the shard has to own.
+     * 
+     * @param productId the id of the product
+     * @return the names of the categories of the product
+     * @throws IOException       if the worker is not reachable
+     * @throws DataParsException if the shard does not hold the product
+     */
+    List<String> findCategories(int productId) throws IOException, DataParsException {
+        send(ShardWorker.CATEGORIES_REQUEST + productId);
+        this.writer.flush();
+        String tokens = receiveTokens();
+        return tokens.isEmpty() ? List.of() : List.of(tokens.split(ShardWorker.SEPARATOR));
+    }
+
+    /**
+     * Returns the products of the shard which are directly contained in any of the
+     * given categories. Categories unknown to the shard are skipped.
+     * 
+     * @param categories the names of the categories
+     * @return the products of the shard in the categories
+     * @throws IOException       if the worker is not reachable
+     * @throws DataParsException if the shard could not answer
+     */
+    Set<Node> findMembers(List<String> categories) throws IOException, DataParsException {
+        send(ShardWorker.MEMBERS_REQUEST + String.join(ShardWorker.SEPARATOR, categories));
+        this.writer.flush();
+        return receive();
+    }
+
+    private void send(String request) throws IOException {
+        this.writer.write(request);
+        this.writer.write(System.lineSeparator());
+    }
+
+    private Set<Node> receive() throws IOException, DataParsException {
+        String tokens = receiveTokens();
+
+        // The products only live as long as the response, so their names get a table of their own
+        SymbolTable symbols = new SymbolTable();
+        Set<Node> products = new HashSet<>();
+        for (String token : tokens.split(ShardWorker.SEPARATOR)) {
+            int separator = token.lastIndexOf(ID_SEPARATOR);
+            if (separator >= 0) {
+                try {
+                    products.add(new Product(symbols, token.substring(0, separator),
+                            Integer.parseInt(token.substring(separator + 1))));
+                } catch (NumberFormatException exception) {
+                    throw new IOException(ERROR_INVALID_RESPONSE.formatted(this.index, tokens), exception);
+                }
+            }
+        }
+        return products;
+    }
+
+    private String receiveTokens() throws IOException, DataParsException {
+        String response = this.reader.readLine();
+        if (response == null) {
+            throw new IOException(ERROR_CLOSED.formatted(this.index));
+        }
+        if (response.startsWith(ShardWorker.ERROR_RESPONSE)) {
+            throw new DataParsException(response.substring(ShardWorker.ERROR_RESPONSE.length()));
+        }
+        if (!response.startsWith(ShardWorker.OK_RESPONSE)) {
+            throw new IOException(ERROR_INVALID_RESPONSE.formatted(this.index, response));
+        }
+        return response.substring(ShardWorker.OK_RESPONSE.length()).trim();
+    }
+
+    /**
+     * Asks the worker to quit and destroys its process if it does not exit in time.
+     */
+    @Override
+    public void close() {
+        try {
+            send(ShardWorker.QUIT_REQUEST);
+            this.writer.flush();
+        } catch (IOException exception) {
+            // The worker is destroyed below anyway
+        } finally {
+            closeSocket();
+        }
+        try {
+            if (!this.process.waitFor(EXIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                this.process.destroy();
+            }
+        } catch (InterruptedException exception) {
+            this.process.destroy();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void closeSocket() {
+        try {
+            this.socket.close();
+        } catch (IOException exception) {
+            // The worker is destroyed anyway
+        }
+    }
+}
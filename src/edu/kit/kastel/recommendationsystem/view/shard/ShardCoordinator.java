@@ -0,0 +1,275 @@
+package edu.kit.kastel.recommendationsystem.view.shard;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+import edu.kit.kastel.recommendationsystem.util.parser.LineParser;
+import edu.kit.kastel.recommendationsystem.view.Result;
+import edu.kit.kastel.recommendationsystem.view.ResultType;
+import edu.kit.kastel.recommendationsystem.view.commands.CommandRecommend;
+
+/**
+ * Splits a graph across local {@link ShardWorker} processes and answers
+ * recommendation queries on them. The products are split by the ranges of
+ * their ids, see {@link ShardPartition}, and every worker only parses and
+ * holds its own shard. The coordinator streams the database file and only
+ * parses the product ids of its lines to route them, so it holds no names.
+ * The set operations of a query are merged here, while its strategies are
+ * scattered to the shards owning their products by a
+ * {@link ShardedQueryBackend}.
+ * <p>
+ * The coordinator reads the commands of the {@link
+ * edu.kit.kastel.recommendationsystem.view.UserInterface user interface} from
+ * its input, but only supports {@code load database}, {@code recommend} and
+ * {@code quit}, with the same output. Products and names are only validated
+ * within each shard.
+ * </p>
+ * 
+ * @author urrwg
+ */
+public final class ShardCoordinator implements AutoCloseable {
+
+    private static final String LOAD_COMMAND = "load database ";
+    private static final String RECOMMEND_COMMAND = "recommend ";
+    private static final String QUIT_COMMAND = "quit";
+    private static final String SHARD_FILE_PREFIX = "shard";
+    private static final String SHARD_FILE_SUFFIX = ".txt";
+    private static final String WORKER_THREAD_NAME = "shard-coordinator";
+    private static final int INITIAL_LINES = 1 << 10;
+    private static final String ERROR_PREFIX = "Error, ";
+    private static final String ERROR_INVALID_PATH = "the provided path is incorrect";
+    private static final String ERROR_READING_FILE = "could not read database file";
+    private static final String ERROR_WRITING_SHARDS = "could not write the shards: %s";
+    private static final String ERROR_FILE_CHANGED = "the database file changed while it was split";
+    private static final String ERROR_UNREACHABLE = "shard %d is not reachable";
+    private static final String ERROR_INTERRUPTED = "the load was interrupted";
+    private static final String ERROR_INVALID_PRECONDITION = "command cannot be used right now.";
+    private static final String ERROR_UNSUPPORTED_COMMAND = "command is not supported with shards: %s";
+
+    private final List<ShardConnection> connections;
+    private final ExecutorService executor;
+    private ShardedQueryBackend backend;
+
+    private ShardCoordinator(List<ShardConnection> connections) {
+        this.connections = connections;
+        this.executor = Executors.newFixedThreadPool(connections.size(), runnable -> {
+            Thread thread = new Thread(runnable, WORKER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts the given number of worker processes and connects to them.
+     * 
+     * @param shards the number of shards
+     * @return the coordinator of the workers
+     * @throws IOException if a worker could not be started
+     */
+    public static ShardCoordinator start(int shards) throws IOException {
+        List<ShardConnection> connections = new ArrayList<>();
+        try {
+            for (int shard = 0; shard < shards; shard++) {
+                connections.add(ShardConnection.start(shard));
+            }
+        } catch (IOException exception) {
+            connections.forEach(ShardConnection::close);
+            throw exception;
+        }
+        return new ShardCoordinator(connections);
+    }
+
+    /**
+     * Executes the commands read from the given input until it ended or
+     * {@code quit} was read.
+     * 
+     * @param input  the input to read the commands from
+     * @param output the stream to print the results to
+     * @param error  the stream to print the errors to
+     */
+    public void run(InputStream input, PrintStream output, PrintStream error) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, Charset.defaultCharset()))) {
+            String line = reader.readLine();
+            while (line != null && !line.trim().equals(QUIT_COMMAND)) {
+                Result result = execute(line.trim(), output);
+                if (result.getType() == ResultType.FAILURE) {
+                    error.println(ERROR_PREFIX + result.getMessage());
+                } else if (result.getMessage() != null) {
+                    output.println(result.getMessage());
+                }
+                line = reader.readLine();
+            }
+        } catch (IOException exception) {
+            error.println(ERROR_PREFIX + exception.getMessage());
+        }
+    }
+
+    private Result execute(String line, PrintStream output) {
+        if (line.startsWith(LOAD_COMMAND)) {
+            return load(Path.of(line.substring(LOAD_COMMAND.length()).trim()), output);
+        }
+        if (!line.startsWith(RECOMMEND_COMMAND)) {
+            return Result.error(ERROR_UNSUPPORTED_COMMAND.formatted(line));
+        }
+        if (this.backend == null) {
+            return Result.error(ERROR_INVALID_PRECONDITION);
+        }
+        return new CommandRecommend(line.substring(RECOMMEND_COMMAND.length())).execute(this.backend);
+    }
+
+    private Result load(Path databasePath, PrintStream output) {
+        if (!Files.isRegularFile(databasePath) || !Files.isReadable(databasePath)) {
+            return Result.error(ERROR_INVALID_PATH);
+        }
+        try {
+            // The file is echoed as it is, like the user interface prints its content
+            Files.copy(databasePath, output);
+        } catch (IOException | SecurityException exception) {
+            return Result.error(ERROR_READING_FILE);
+        }
+        output.println();
+
+        List<Path> shardFiles = new ArrayList<>();
+        try {
+            int[] lineIds = parseProductIds(databasePath);
+            // The workers may have replaced their shards before one of them failed
+            this.backend = null;
+            int[] productIds = Arrays.stream(lineIds).filter(id -> id != LineParser.NO_PRODUCT_ID).sorted().distinct().toArray();
+            ShardPartition partition = ShardPartition.of(productIds, this.connections.size());
+            writeShards(databasePath, lineIds, partition, shardFiles);
+            loadShards(shardFiles);
+            this.backend = new ShardedQueryBackend(this.connections, partition, this.executor);
+            return Result.success();
+        } catch (DataParsException exception) {
+            return Result.error(exception.getMessage());
+        } finally {
+            deleteShards(shardFiles);
+        }
+    }
+
+    private static int[] parseProductIds(Path databasePath) throws DataParsException {
+        // The ids of the subject and the object of every line, in the order of the lines
+        int[] lineIds = new int[INITIAL_LINES * 2];
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(databasePath, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while (line != null) {
+                if (count == lineIds.length) {
+                    lineIds = Arrays.copyOf(lineIds, count * 2);
+                }
+                int[] ids = LineParser.parseProductIds(line);
+                lineIds[count++] = ids[0];
+                lineIds[count++] = ids[1];
+                line = reader.readLine();
+            }
+        } catch (IOException exception) {
+            throw new DataParsException(ERROR_READING_FILE);
+        }
+        return Arrays.copyOf(lineIds, count);
+    }
+
+    private static void writeShards(Path databasePath, int[] lineIds, ShardPartition partition, List<Path> shardFiles)
+            throws DataParsException {
+        List<BufferedWriter> writers = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(databasePath, StandardCharsets.UTF_8)) {
+            for (int shard = 0; shard < partition.getShards(); shard++) {
+                shardFiles.add(Files.createTempFile(SHARD_FILE_PREFIX, SHARD_FILE_SUFFIX));
+                writers.add(Files.newBufferedWriter(shardFiles.get(shard), StandardCharsets.UTF_8));
+            }
+            String line = reader.readLine();
+            for (int i = 0; line != null; i += 2) {
+                if (i == lineIds.length) {
+                    throw new DataParsException(ERROR_FILE_CHANGED);
+                }
+                for (int shard = 0; shard < writers.size(); shard++) {
+                    if (partition.isStoredOn(lineIds[i], lineIds[i + 1], shard)) {
+                        writers.get(shard).write(line);
+                        writers.get(shard).newLine();
+                    }
+                }
+                line = reader.readLine();
+            }
+            for (BufferedWriter writer : writers) {
+                writer.close();
+            }
+        } catch (IOException exception) {
+            throw new DataParsException(ERROR_WRITING_SHARDS.formatted(exception.getMessage()));
+        } finally {
+            closeWriters(writers);
+        }
+    }
+
+    private void loadShards(List<Path> shardFiles) throws DataParsException {
+        List<Future<Void>> executions = new ArrayList<>();
+        for (int shard = 0; shard < shardFiles.size(); shard++) {
+            ShardConnection connection = this.connections.get(shard);
+            Path shardFile = shardFiles.get(shard);
+            executions.add(this.executor.submit(() -> {
+                connection.load(shardFile);
+                return null;
+            }));
+        }
+
+        DataParsException failure = null;
+        for (int shard = 0; shard < executions.size(); shard++) {
+            try {
+                executions.get(shard).get();
+            } catch (ExecutionException exception) {
+                DataParsException shardFailure = exception.getCause() instanceof DataParsException parsFailure ? parsFailure
+                        : new DataParsException(ERROR_UNREACHABLE.formatted(shard));
+                failure = failure == null ? shardFailure : failure;
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new DataParsException(ERROR_INTERRUPTED);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void closeWriters(List<BufferedWriter> writers) {
+        for (BufferedWriter writer : writers) {
+            try {
+                writer.close();
+            } catch (IOException exception) {
+                // The shards were not loaded and are deleted anyway
+            }
+        }
+    }
+
+    private static void deleteShards(List<Path> shardFiles) {
+        for (Path shardFile : shardFiles) {
+            try {
+                Files.deleteIfExists(shardFile);
+            } catch (IOException exception) {
+                // A leftover temporary file does not affect the loaded shards
+            }
+        }
+    }
+
+    /**
+     * Stops all workers.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+        this.connections.forEach(ShardConnection::close);
+    }
+}
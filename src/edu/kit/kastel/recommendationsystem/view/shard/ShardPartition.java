@@ -0,0 +1,99 @@
+package edu.kit.kastel.recommendationsystem.view.shard;
+
+import java.util.Arrays;
+
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.model.Product;
+import edu.kit.kastel.recommendationsystem.util.parser.LineParser;
+
+/**
+ * Assigns the nodes of a graph to the shards of a {@link ShardCoordinator}.
+ * Products are split into ranges of their ids, where every shard owns about
+ * the same number of products. A relationship between two products is stored
+ * on the owners of both products, so an edge crossing two shards is replicated
+ * on both of them. A relationship between a product and a category is only
+ * stored on the owner of the product. The hierarchy of the categories is small
+ * compared to the products, so only the relationships between two categories
+ * are replicated on every shard.
+ * 
+ * @author urrwg
+ */
+final class ShardPartition {
+
+    private final int shards;
+    private final int[] boundaries;
+
+    private ShardPartition(int shards, int[] boundaries) {
+        this.shards = shards;
+        this.boundaries = boundaries;
+    }
+
+    /**
+     * Creates a partition splitting the given product ids into ranges of about
+     * the same size.
+     * 
+     * @param productIds the distinct product ids, sorted in ascending order
+     * @param shards     the number of shards
+     * @return the partition
+     */
+    static ShardPartition of(int[] productIds, int shards) {
+        if (productIds.length == 0) {
+            return new ShardPartition(shards, new int[0]);
+        }
+        // The i-th boundary is the smallest id owned by shard i + 1
+        int[] boundaries = new int[shards - 1];
+        for (int i = 0; i < boundaries.length; i++) {
+            boundaries[i] = productIds[(int) ((long) (i + 1) * productIds.length / shards)];
+        }
+        return new ShardPartition(shards, boundaries);
+    }
+
+    /**
+     * Returns the number of shards of this partition.
+     * 
+     * @return the number of shards
+     */
+    int getShards() {
+        return this.shards;
+    }
+
+    /**
+     * Returns the shard owning the product with the given id.
+     * 
+     * @param productId the id of the product
+     * @return the index of the owning shard
+     */
+    int ownerOf(int productId) {
+        int index = Arrays.binarySearch(this.boundaries, productId);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Returns the shard owning the given product.
+     * 
+     * @param product the product
+     * @return the index of the owning shard
+     */
+    int ownerOf(Node product) {
+        return ownerOf(((Product) product).getId());
+    }
+
+    /**
+     * Returns whether the relationship between the nodes with the given product
+     * ids is stored on the given shard.
+     * 
+     * @param subjectId the product id of the subject, or
+     *                  {@link LineParser#NO_PRODUCT_ID} for a category
+     * @param objectId  the product id of the object, or
+     *                  {@link LineParser#NO_PRODUCT_ID} for a category
+     * @param shard     the index of the shard
+     * @return {@code true} if the shard stores the relationship
+     */
+    boolean isStoredOn(int subjectId, int objectId, int shard) {
+        if (subjectId == LineParser.NO_PRODUCT_ID && objectId == LineParser.NO_PRODUCT_ID) {
+            return true;
+        }
+        return subjectId != LineParser.NO_PRODUCT_ID && ownerOf(subjectId) == shard
+                || objectId != LineParser.NO_PRODUCT_ID && ownerOf(objectId) == shard;
+    }
+}
@@ -0,0 +1,197 @@
+package edu.kit.kastel.recommendationsystem.view.shard;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import edu.kit.kastel.recommendationsystem.model.Graph;
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.model.NodeType;
+import edu.kit.kastel.recommendationsystem.model.RelationshipType;
+import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+import edu.kit.kastel.recommendationsystem.util.parser.DatabaseParser;
+import edu.kit.kastel.recommendationsystem.view.Result;
+import edu.kit.kastel.recommendationsystem.view.ResultType;
+import edu.kit.kastel.recommendationsystem.view.commands.CommandRecommend;
+
+/**
+ * A worker process holding one shard of a graph split by a
+ * {@link ShardCoordinator}. The worker serves a single connection of its
+ * coordinator on a local port, which sends one request per line:
+ * <ul>
+ * <li>{@code load <path>} replaces the shard with the database file at the
+ * path</li>
+ * <li>{@code query <query>} evaluates a recommendation query on the shard</li>
+ * <li>{@code categories <id>} lists the names of the categories directly
+ * containing the product with the id, which the shard has to own</li>
+ * <li>{@code members <name>...} lists the products of the shard directly
+ * contained in any of the categories with the names</li>
+ * <li>{@code quit} closes the connection</li>
+ * </ul>
+ * Every request except {@code quit} is answered by one line, either
+ * {@code ok} followed by the products or names found, or {@code error} followed
+ * by the error message.
+ * 
+ * @author urrwg
+ */
+public final class ShardWorker implements AutoCloseable {
+
+    static final String LOAD_REQUEST = "load ";
+    static final String QUERY_REQUEST = "query ";
+    static final String CATEGORIES_REQUEST = "categories ";
+    static final String MEMBERS_REQUEST = "members ";
+    static final String QUIT_REQUEST = "quit";
+    static final String OK_RESPONSE = "ok";
+    static final String ERROR_RESPONSE = "error ";
+    static final String SEPARATOR = " ";
+    private static final String ERROR_READING_FILE = "could not read database file";
+    private static final String ERROR_NOT_LOADED = "no database is loaded";
+    private static final String ERROR_UNKNOWN_REQUEST = "unknown request: %s";
+    private static final String ERROR_PRODUCT_NOT_FOUND = "product not found: %s";
+
+    private final ServerSocket serverSocket;
+    private Graph graph;
+
+    private ShardWorker(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+    }
+
+    /**
+     * Binds a new worker to the given port of the loopback address.
+     * 
+     * @param port the port to bind to, {@code 0} to pick a free port
+     * @return the bound worker
+     * @throws IOException if the port can not be bound
+     */
+    public static ShardWorker bind(int port) throws IOException {
+        return new ShardWorker(new ServerSocket(port, 0, InetAddress.getLoopbackAddress()));
+    }
+
+    /**
+     * Returns the port this worker is bound to.
+     * 
+     * @return the local port
+     */
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts the connection of the coordinator and answers its requests until it
+     * sends {@code quit} or closes the connection. This method will block while
+     * serving.
+     * 
+     * @throws IOException if the connection could not be accepted or failed
+     */
+    public void serve() throws IOException {
+        try (Socket client = this.serverSocket.accept();
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                Writer writer = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8))) {
+            client.setTcpNoDelay(true);
+            String request = reader.readLine();
+            while (request != null && !request.equals(QUIT_REQUEST)) {
+                writer.write(answer(request));
+                writer.write(System.lineSeparator());
+                // Pipelined requests are answered in one write
+                if (!reader.ready()) {
+                    writer.flush();
+                }
+                request = reader.readLine();
+            }
+        }
+    }
+
+    private String answer(String request) {
+        if (request.startsWith(LOAD_REQUEST)) {
+            try {
+                this.graph = load(Path.of(request.substring(LOAD_REQUEST.length())));
+                return OK_RESPONSE;
+            } catch (DataParsException exception) {
+                return ERROR_RESPONSE + exception.getMessage();
+            }
+        }
+        if (!request.startsWith(QUERY_REQUEST) && !request.startsWith(CATEGORIES_REQUEST)
+                && !request.startsWith(MEMBERS_REQUEST)) {
+            return ERROR_RESPONSE + ERROR_UNKNOWN_REQUEST.formatted(request);
+        }
+        if (this.graph == null) {
+            return ERROR_RESPONSE + ERROR_NOT_LOADED;
+        }
+        if (request.startsWith(CATEGORIES_REQUEST)) {
+            return answerCategories(request.substring(CATEGORIES_REQUEST.length()));
+        }
+        if (request.startsWith(MEMBERS_REQUEST)) {
+            return answerMembers(request.substring(MEMBERS_REQUEST.length()).split(SEPARATOR));
+        }
+
+        Result result = new CommandRecommend(request.substring(QUERY_REQUEST.length())).execute(this.graph);
+        if (result.getType() == ResultType.FAILURE) {
+            return ERROR_RESPONSE + result.getMessage();
+        }
+        return result.getMessage().isEmpty() ? OK_RESPONSE : OK_RESPONSE + ' ' + result.getMessage();
+    }
+
+    private String answerCategories(String productId) {
+        Node product;
+        try {
+            product = this.graph.findProductById(Integer.parseInt(productId));
+        } catch (NumberFormatException exception) {
+            product = null;
+        }
+        if (product == null) {
+            return ERROR_RESPONSE + ERROR_PRODUCT_NOT_FOUND.formatted(productId);
+        }
+
+        StringBuilder response = new StringBuilder(OK_RESPONSE);
+        for (Node category : this.graph.getNeighbors(product, RelationshipType.CONTAINED_IN)) {
+            response.append(SEPARATOR).append(category.getName());
+        }
+        return response.toString();
+    }
+
+    private String answerMembers(String[] categoryNames) {
+        StringBuilder response = new StringBuilder(OK_RESPONSE);
+        Set<Node> members = new HashSet<>();
+        for (String name : categoryNames) {
+            // A category without products on this shard is not known to it
+            Node category = this.graph.findNodeByName(name);
+            if (category == null || !category.isOfType(NodeType.CATEGORY)) {
+                continue;
+            }
+            for (Node member : this.graph.getNeighbors(category, RelationshipType.CONTAINS)) {
+                if (member.isOfType(NodeType.PRODUCT) && members.add(member)) {
+                    response.append(SEPARATOR).append(member);
+                }
+            }
+        }
+        return response.toString();
+    }
+
+    private static Graph load(Path path) throws DataParsException {
+        try {
+            return DatabaseParser.parse(Files.readAllLines(path));
+        } catch (IOException exception) {
+            throw new DataParsException(ERROR_READING_FILE);
+        }
+    }
+
+    /**
+     * Stops accepting the connection of the coordinator.
+     */
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+    }
+}
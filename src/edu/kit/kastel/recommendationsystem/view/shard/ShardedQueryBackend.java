@@ -0,0 +1,261 @@
+package edu.kit.kastel.recommendationsystem.view.shard;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import edu.kit.kastel.recommendationsystem.model.Node;
+import edu.kit.kastel.recommendationsystem.model.Product;
+import edu.kit.kastel.recommendationsystem.model.TraversalBounds;
+import edu.kit.kastel.recommendationsystem.util.SortUtils;
+import edu.kit.kastel.recommendationsystem.util.parser.DataParsException;
+import edu.kit.kastel.recommendationsystem.util.parser.QueryBackend;
+
+/**
+ * Evaluates the strategies of queries on the shards of a
+ * {@link ShardCoordinator} by scatter-gather. Every strategy starts on the
+ * shard owning the reference product, which reports missing products and
+ * invalid strategies like a single graph does. The products of a category are
+ * spread over the shards owning them, so the owner of a product only lists its
+ * categories, whose products are then gathered from all shards. Likewise every
+ * shard evaluates the subtree of a category on its own products.
+ * <p>
+ * The transitive strategies continue in rounds: a shard only expands the
+ * products it owns, and the products it found on replicated cross-shard edges
+ * are sent to their owners in the next round, all shards in parallel. Bounded
+ * strategies are expanded one generation per round instead, so their depth is
+ * counted across shards. Where the maximum number of results cuts a generation,
+ * the products are kept in the order of their output.
+ * </p>
+ * 
+ * @author urrwg
+ */
+final class ShardedQueryBackend implements QueryBackend {
+
+    private static final String STRATEGY_QUERY_FORMAT = "%s %d";
+    private static final String GENERATION_QUERY_FORMAT = "%s[depth=1] %d";
+    private static final String CATEGORY_QUERY_FORMAT = "CATEGORY(%s)";
+    private static final String ERROR_UNREACHABLE = "shard %d is not reachable";
+    private static final String ERROR_CATEGORY_NOT_FOUND = "category not found: %s";
+    private static final String ERROR_INTERRUPTED = "the query was interrupted";
+
+    private final List<ShardConnection> connections;
+    private final ShardPartition partition;
+    private final ExecutorService executor;
+
+    /**
+     * Constructs a new backend evaluating queries on the given shards.
+     * 
+     * @param connections the connections to the workers, by shard index
+     * @param partition   the partition the shards were loaded with
+     * @param executor    the executor querying the shards in parallel
+     */
+    ShardedQueryBackend(List<ShardConnection> connections, ShardPartition partition, ExecutorService executor) {
+        this.connections = connections;
+        this.partition = partition;
+        this.executor = executor;
+    }
+
+    @Override
+    public Set<Node> findProducts(String strategy, TraversalBounds bounds, int productId) throws DataParsException {
+        if (strategy.equals(SIBLING_STRATEGY)) {
+            return findSiblings(bounds, productId);
+        }
+        if (!bounds.equals(TraversalBounds.UNBOUNDED)) {
+            return findGenerations(strategy, bounds, productId);
+        }
+        int owner = this.partition.ownerOf(productId);
+        return findClosure(strategy, productId, query(owner, STRATEGY_QUERY_FORMAT.formatted(strategy, productId)));
+    }
+
+    @Override
+    public Set<Node> findCategoryProducts(String category) throws DataParsException {
+        String query = CATEGORY_QUERY_FORMAT.formatted(category);
+        List<Callable<Set<Node>>> calls = new ArrayList<>();
+        for (ShardConnection connection : this.connections) {
+            calls.add(() -> {
+                try {
+                    return connection.query(List.of(query));
+                } catch (DataParsException exception) {
+                    // A shard only knows the categories of its own products
+                    return null;
+                }
+            });
+        }
+
+        Set<Node> products = new HashSet<>();
+        boolean isKnown = false;
+        for (Set<Node> response : gather(calls)) {
+            if (response != null) {
+                isKnown = true;
+                products.addAll(response);
+            }
+        }
+        if (!isKnown) {
+            throw new DataParsException(ERROR_CATEGORY_NOT_FOUND.formatted(category.toLowerCase()));
+        }
+        return products;
+    }
+
+    private Set<Node> findSiblings(TraversalBounds bounds, int productId) throws DataParsException {
+        ShardConnection owner = this.connections.get(this.partition.ownerOf(productId));
+        List<String> categories;
+        try {
+            categories = owner.findCategories(productId);
+        } catch (IOException exception) {
+            throw new DataParsException(ERROR_UNREACHABLE.formatted(owner.getIndex()));
+        }
+        if (categories.isEmpty()) {
+            return Set.of();
+        }
+
+        List<Callable<Set<Node>>> calls = new ArrayList<>();
+        for (ShardConnection connection : this.connections) {
+            calls.add(() -> connection.findMembers(categories));
+        }
+        List<Node> siblings = new ArrayList<>();
+        for (Set<Node> members : gather(calls)) {
+            siblings.addAll(members);
+        }
+        siblings.removeIf(node -> idOf(node) == productId);
+        // The depth does not limit siblings, and where the maximum cuts them they are kept in output order
+        SortUtils.sortNodes(siblings);
+        return new HashSet<>(siblings.subList(0, Math.min(siblings.size(), bounds.maxResults())));
+    }
+
+    private Set<Node> findClosure(String strategy, int productId, Set<Node> found) throws DataParsException {
+        Set<Node> result = new HashSet<>(found);
+        // A product is expanded once it was found on its owner, which holds all of its edges
+        Set<Node> expanded = new HashSet<>();
+        int startOwner = this.partition.ownerOf(productId);
+        List<Node> frontier = new ArrayList<>();
+        collectFrontier(found, startOwner, expanded, frontier);
+
+        while (!frontier.isEmpty()) {
+            List<List<String>> requests = emptyRequests();
+            for (Node product : frontier) {
+                expanded.add(product);
+                requests.get(this.partition.ownerOf(product)).add(strategyQuery(strategy, product));
+            }
+            List<Set<Node>> responses = scatter(requests);
+            frontier = new ArrayList<>();
+            for (int shard = 0; shard < responses.size(); shard++) {
+                result.addAll(responses.get(shard));
+                collectFrontier(responses.get(shard), shard, expanded, frontier);
+            }
+        }
+        result.removeIf(node -> idOf(node) == productId);
+        return result;
+    }
+
+    private void collectFrontier(Set<Node> found, int shard, Set<Node> expanded, List<Node> frontier) {
+        for (Node product : found) {
+            if (this.partition.ownerOf(product) == shard) {
+                expanded.add(product);
+            }
+        }
+        for (Node product : found) {
+            if (!expanded.contains(product)) {
+                expanded.add(product);
+                frontier.add(product);
+            }
+        }
+    }
+
+    private Set<Node> findGenerations(String strategy, TraversalBounds bounds, int productId) throws DataParsException {
+        Set<Node> result = new HashSet<>();
+        List<Integer> frontier = List.of(productId);
+        int depth = 0;
+        while (!frontier.isEmpty() && depth < bounds.maxDepth() && result.size() < bounds.maxResults()) {
+            depth++;
+            List<List<String>> requests = emptyRequests();
+            for (int id : frontier) {
+                requests.get(this.partition.ownerOf(id)).add(GENERATION_QUERY_FORMAT.formatted(strategy, id));
+            }
+            List<Node> generation = new ArrayList<>();
+            for (Set<Node> response : scatter(requests)) {
+                generation.addAll(response);
+            }
+
+            SortUtils.sortNodes(generation);
+            frontier = new ArrayList<>();
+            for (Node product : generation) {
+                if (result.size() < bounds.maxResults() && idOf(product) != productId && result.add(product)) {
+                    frontier.add(idOf(product));
+                }
+            }
+        }
+        return result;
+    }
+
+    private Set<Node> query(int shard, String query) throws DataParsException {
+        List<List<String>> requests = emptyRequests();
+        requests.get(shard).add(query);
+        return scatter(requests).get(shard);
+    }
+
+    private List<Set<Node>> scatter(List<List<String>> requests) throws DataParsException {
+        List<Callable<Set<Node>>> calls = new ArrayList<>();
+        for (int shard = 0; shard < requests.size(); shard++) {
+            ShardConnection connection = this.connections.get(shard);
+            List<String> queries = requests.get(shard);
+            calls.add(queries.isEmpty() ? null : () -> connection.query(queries));
+        }
+        return gather(calls);
+    }
+
+    private List<Set<Node>> gather(List<Callable<Set<Node>>> calls) throws DataParsException {
+        List<Future<Set<Node>>> executions = new ArrayList<>();
+        for (Callable<Set<Node>> call : calls) {
+            executions.add(call == null ? null : this.executor.submit(call));
+        }
+
+        List<Set<Node>> responses = new ArrayList<>();
+        DataParsException failure = null;
+        for (int shard = 0; shard < executions.size(); shard++) {
+            // All shards are awaited, so no connection is left with unread responses
+            try {
+                responses.add(executions.get(shard) == null ? Set.of() : executions.get(shard).get());
+            } catch (ExecutionException exception) {
+                responses.add(Set.of());
+                failure = failure == null ? toFailure(shard, exception.getCause()) : failure;
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new DataParsException(ERROR_INTERRUPTED);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return responses;
+    }
+
+    private List<List<String>> emptyRequests() {
+        List<List<String>> requests = new ArrayList<>();
+        for (int shard = 0; shard < this.partition.getShards(); shard++) {
+            requests.add(new ArrayList<>());
+        }
+        return requests;
+    }
+
+    private static DataParsException toFailure(int shard, Throwable cause) {
+        if (cause instanceof DataParsException failure) {
+            return failure;
+        }
+        return new DataParsException(ERROR_UNREACHABLE.formatted(shard));
+    }
+
+    private static String strategyQuery(String strategy, Node product) {
+        return STRATEGY_QUERY_FORMAT.formatted(strategy, idOf(product));
+    }
+
+    private static int idOf(Node product) {
+        return ((Product) product).getId();
+    }
+}